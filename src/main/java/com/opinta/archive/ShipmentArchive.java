@@ -0,0 +1,401 @@
+package com.opinta.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.opinta.dto.ArchivedShipmentDto;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Archive of shipments in one pair of files per month.
+ * {@code shipments-<month>.ndjson.gz} is a sequence of gzip members, each a block of up to blockSize
+ * records sorted by id, so the file as a whole is still a valid gzip stream.
+ * {@code shipments-<month>.idx} is the sparse index: a generation line naming the data file, then a line of
+ * offset, length, min id, max id and count per block, sorted by min id. The id ranges of the blocks of a month
+ * never overlap, so a lookup binary-searches each month to at most one block.
+ * <p>
+ * New records falling into the range of existing blocks are merged with them into new blocks appended to
+ * the data file, the old blocks are dropped from the index. When the data file is more than twice the size
+ * of its live blocks, they are copied to the data file of the next generation. Data is synced before the index
+ * is replaced, so a crash leaves at most unreferenced bytes or files, removed on the next start
+ */
+@Slf4j
+public class ShipmentArchive {
+    private static final String DATA_SUFFIX = ".ndjson.gz";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String PREFIX = "shipments-";
+    private static final String GENERATION = "generation ";
+    private static final String ID_PREFIX = "{\"id\":";
+
+    private final Path directory;
+    private final int blockSize;
+    private final ObjectWriter objectWriter;
+    private final ObjectReader objectReader;
+    private final Map<String, Month> months = new ConcurrentHashMap<>();
+
+    /**
+     * @param reset true when the database has been recreated, so the archived ids may be reused
+     *              and the archive of the previous database is dropped
+     */
+    public ShipmentArchive(Path directory, int blockSize, ObjectMapper objectMapper, boolean reset)
+            throws IOException {
+        this.directory = directory;
+        this.blockSize = blockSize;
+        this.objectWriter = objectMapper.writerFor(ArchivedShipmentDto.class);
+        this.objectReader = objectMapper.readerFor(ArchivedShipmentDto.class);
+        Files.createDirectories(directory);
+        List<Path> indexFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*")) {
+            for (Path file : files) {
+                if (reset) {
+                    Files.delete(file);
+                } else if (file.getFileName().toString().endsWith(INDEX_SUFFIX)) {
+                    indexFiles.add(file);
+                }
+            }
+        }
+        for (Path indexFile : indexFiles) {
+            loadIndex(indexFile);
+        }
+        deleteUnreferencedFiles();
+        log.info("Shipment archive {} has {} months in {} blocks", directory, months.size(),
+                months.values().stream().mapToInt(month -> month.blocks.size()).sum());
+    }
+
+    /**
+     * Adds the shipments to the archive of the month, replacing archived records with the same id
+     *
+     * @param month year and month like 2017-05
+     */
+    public synchronized void append(String month, List<ArchivedShipmentDto> shipments) throws IOException {
+        if (shipments.isEmpty()) {
+            return;
+        }
+        TreeMap<Long, String> records = new TreeMap<>();
+        for (ArchivedShipmentDto shipment : shipments) {
+            records.put(shipment.getId(), objectWriter.writeValueAsString(shipment));
+        }
+        Month current = months.get(month);
+        if (current == null) {
+            current = new Month(month, 0, dataFile(month, 0), Collections.emptyList());
+        }
+        List<Block> kept = new ArrayList<>();
+        List<Block> overlapping = new ArrayList<>();
+        for (Block block : current.blocks) {
+            if (block.maxId < records.firstKey() || block.minId > records.lastKey()) {
+                kept.add(block);
+            } else {
+                overlapping.add(block);
+            }
+        }
+        for (Block block : overlapping) {
+            for (String record : block.readRecords(current.dataFile)) {
+                records.putIfAbsent(idOf(record), record);
+            }
+        }
+        Month updated = write(current, kept, records);
+        log.info("Archived {} shipments of {} in {} blocks, merged with {} archived blocks", shipments.size(),
+                month, updated.blocks.size() - kept.size(), overlapping.size());
+    }
+
+    /**
+     * @return the archived shipment or null if it isn't in the archive
+     */
+    public ArchivedShipmentDto find(long id) throws IOException {
+        for (String month : months.keySet()) {
+            ArchivedShipmentDto shipment = find(month, id);
+            if (shipment != null) {
+                return shipment;
+            }
+        }
+        return null;
+    }
+
+    private ArchivedShipmentDto find(String name, long id) throws IOException {
+        String prefix = ID_PREFIX + id + ",";
+        while (true) {
+            Month month = months.get(name);
+            Block block = month.blockOf(id);
+            if (block == null) {
+                return null;
+            }
+            try {
+                for (String record : block.readRecords(month.dataFile)) {
+                    if (record.startsWith(prefix)) {
+                        return objectReader.readValue(record);
+                    }
+                }
+                return null;
+            } catch (NoSuchFileException e) {
+                // the month was compacted into the next generation after it was read, so it's read again
+                if (months.get(name) == month) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the records as blocks to the data file of the month and replaces its index with the kept blocks
+     * and the appended ones
+     */
+    private Month write(Month current, List<Block> kept, TreeMap<Long, String> records) throws IOException {
+        List<Block> blocks = new ArrayList<>(kept);
+        long dataSize;
+        try (FileChannel data = FileChannel.open(current.dataFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            long offset = data.size();
+            List<String> block = new ArrayList<>(blockSize);
+            long minId = records.firstKey();
+            for (Map.Entry<Long, String> record : records.entrySet()) {
+                if (block.isEmpty()) {
+                    minId = record.getKey();
+                }
+                block.add(record.getValue());
+                if (block.size() == blockSize || record.getKey().equals(records.lastKey())) {
+                    byte[] member = compress(block);
+                    writeFully(data, member, offset);
+                    blocks.add(new Block(offset, member.length, minId, record.getKey(), block.size()));
+                    offset += member.length;
+                    block.clear();
+                }
+            }
+            data.force(false);
+            dataSize = offset;
+        }
+        blocks.sort(Comparator.comparingLong(block -> block.minId));
+        Month updated = new Month(current.name, current.generation, current.dataFile, blocks);
+        if (dataSize > 2 * updated.liveBytes()) {
+            updated = compact(updated);
+        }
+        writeIndex(updated);
+        months.put(updated.name, updated);
+        if (updated.generation != current.generation) {
+            Files.deleteIfExists(current.dataFile);
+        }
+        return updated;
+    }
+
+    private Month compact(Month month) throws IOException {
+        int generation = month.generation + 1;
+        Path dataFile = dataFile(month.name, generation);
+        List<Block> blocks = new ArrayList<>(month.blocks.size());
+        try (FileChannel data = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long offset = 0;
+            for (Block block : month.blocks) {
+                writeFully(data, block.read(month.dataFile), offset);
+                blocks.add(new Block(offset, block.length, block.minId, block.maxId, block.count));
+                offset += block.length;
+            }
+            data.force(false);
+        }
+        log.info("Compacted archive of {} into {}", month.name, dataFile);
+        return new Month(month.name, generation, dataFile, blocks);
+    }
+
+    private void writeIndex(Month month) throws IOException {
+        StringBuilder lines = new StringBuilder(GENERATION).append(month.generation).append('\n');
+        month.blocks.forEach(block -> lines.append(block.toIndexLine()).append('\n'));
+        Path indexFile = indexFile(month.name);
+        Path temporary = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (FileChannel index = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(index, lines.toString().getBytes(StandardCharsets.US_ASCII), 0);
+            index.force(false);
+        }
+        Files.move(temporary, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void loadIndex(Path indexFile) throws IOException {
+        String name = indexFile.getFileName().toString();
+        String month = name.substring(PREFIX.length(), name.length() - INDEX_SUFFIX.length());
+        int generation = 0;
+        List<Block> blocks = new ArrayList<>();
+        for (String line : Files.readAllLines(indexFile, StandardCharsets.US_ASCII)) {
+            if (line.startsWith(GENERATION)) {
+                generation = Integer.parseInt(line.substring(GENERATION.length()).trim());
+                continue;
+            }
+            String[] fields = line.trim().split(" ");
+            if (fields.length != 5) {
+                log.warn("Skipping malformed line of archive index {}: {}", indexFile, line);
+                continue;
+            }
+            blocks.add(new Block(Long.parseLong(fields[0]), Integer.parseInt(fields[1]),
+                    Long.parseLong(fields[2]), Long.parseLong(fields[3]), Integer.parseInt(fields[4])));
+        }
+        blocks.sort(Comparator.comparingLong(block -> block.minId));
+        Month loaded = new Month(month, generation, dataFile(month, generation), blocks);
+        months.put(month, loaded);
+        for (int i = 1; i < blocks.size(); i++) {
+            if (blocks.get(i).minId <= blocks.get(i - 1).maxId) {
+                log.warn("Archive index {} has overlapping blocks, rewriting its records in id order", indexFile);
+                TreeMap<Long, String> records = new TreeMap<>();
+                for (Block block : blocks) {
+                    for (String record : block.readRecords(loaded.dataFile)) {
+                        records.put(idOf(record), record);
+                    }
+                }
+                write(loaded, Collections.emptyList(), records);
+                return;
+            }
+        }
+    }
+
+    private void deleteUnreferencedFiles() throws IOException {
+        Set<Path> referenced = new HashSet<>();
+        months.values().forEach(month -> {
+            referenced.add(month.dataFile);
+            referenced.add(indexFile(month.name));
+        });
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*")) {
+            for (Path file : files) {
+                if (!referenced.contains(file)) {
+                    log.info("Deleting archive file {} not referenced by any index", file);
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private Path dataFile(String month, int generation) {
+        return directory.resolve(PREFIX + month + (generation == 0 ? "" : "." + generation) + DATA_SUFFIX);
+    }
+
+    private Path indexFile(String month) {
+        return directory.resolve(PREFIX + month + INDEX_SUFFIX);
+    }
+
+    private static long idOf(String record) {
+        return Long.parseLong(record.substring(ID_PREFIX.length(), record.indexOf(',')));
+    }
+
+    private static byte[] compress(List<String> records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+            for (String record : records) {
+                writer.write(record);
+                writer.write('\n');
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * Blocks of a month sorted by min id with no overlapping ranges, replaced as a whole on every write
+     */
+    private static class Month {
+        private final String name;
+        private final int generation;
+        private final Path dataFile;
+        private final List<Block> blocks;
+
+        private Month(String name, int generation, Path dataFile, List<Block> blocks) {
+            this.name = name;
+            this.generation = generation;
+            this.dataFile = dataFile;
+            this.blocks = Collections.unmodifiableList(blocks);
+        }
+
+        private Block blockOf(long id) {
+            int low = 0;
+            int high = blocks.size() - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                Block block = blocks.get(middle);
+                if (id < block.minId) {
+                    high = middle - 1;
+                } else if (id > block.maxId) {
+                    low = middle + 1;
+                } else {
+                    return block;
+                }
+            }
+            return null;
+        }
+
+        private long liveBytes() {
+            return blocks.stream().mapToLong(block -> block.length).sum();
+        }
+    }
+
+    private static class Block {
+        private final long offset;
+        private final int length;
+        private final long minId;
+        private final long maxId;
+        private final int count;
+
+        private Block(long offset, int length, long minId, long maxId, int count) {
+            this.offset = offset;
+            this.length = length;
+            this.minId = minId;
+            this.maxId = maxId;
+            this.count = count;
+        }
+
+        private byte[] read(Path dataFile) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, offset + buffer.position()) < 0) {
+                        throw new IOException(String.format("Archive block at %d of %s is truncated", offset,
+                                dataFile));
+                    }
+                }
+            }
+            return buffer.array();
+        }
+
+        private List<String> readRecords(Path dataFile) throws IOException {
+            List<String> records = new ArrayList<>(count);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new ByteArrayInputStream(read(dataFile))), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    records.add(line);
+                }
+            }
+            return records;
+        }
+
+        private String toIndexLine() {
+            return offset + " " + length + " " + minId + " " + maxId + " " + count;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.opinta.config;
 
+import javax.servlet.Filter;
+import org.springframework.web.filter.DelegatingFilterProxy;
 import org.springframework.web.servlet.support.AbstractAnnotationConfigDispatcherServletInitializer;
 
 public class AppInitializer extends AbstractAnnotationConfigDispatcherServletInitializer {
@@ -17,4 +19,10 @@ public class AppInitializer extends AbstractAnnotationConfigDispatcherServletIni
 	protected String[] getServletMappings() {
 		return new String[] { "/" };
 	}
+
+	@Override
+	protected Filter[] getServletFilters() {
+		return new Filter[] { new DelegatingFilterProxy("rateLimitFilter"),
+				new DelegatingFilterProxy("sqlBudgetFilter"), new DelegatingFilterProxy("compressionFilter") };
+	}
 }
@@ -1,13 +1,98 @@
 package com.opinta.config;
 
+import com.opinta.filter.CompressionFilter;
+import com.opinta.filter.RateLimitFilter;
+import com.opinta.filter.SqlBudgetFilter;
+import com.opinta.metrics.MetricRegistry;
+import com.opinta.metrics.RequestMetricsInterceptor;
+import com.opinta.metrics.SqlStatementCounter;
+import com.opinta.service.RateLimitService;
+import com.opinta.util.AsyncRequestExecutor;
+import com.opinta.util.JsonFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 
 @Configuration
 @EnableWebMvc
 @EnableTransactionManagement
 @ComponentScan(basePackages = "com.opinta")
-public class ApplicationConfig {
+public class ApplicationConfig extends WebMvcConfigurerAdapter {
+    private final Environment environment;
+
+    @Autowired
+    public ApplicationConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Added after the default converters, so json stays the format of clients that accept anything
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new BinaryJsonHttpMessageConverter(JsonFormat.SMILE));
+        converters.add(new BinaryJsonHttpMessageConverter(JsonFormat.CBOR));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestMetricsInterceptor(metricRegistry()));
+    }
+
+    @Bean
+    public MetricRegistry metricRegistry() {
+        return new MetricRegistry(TimeUnit.MINUTES.toMillis(
+                environment.getRequiredProperty("metrics.quantileWindowMinutes", Long.class)));
+    }
+
+    @Bean
+    public CompressionFilter compressionFilter(Environment environment) {
+        return new CompressionFilter(environment.getRequiredProperty("compression.minSize", Integer.class),
+                MediaType.parseMediaTypes(environment.getRequiredProperty("compression.mediaTypes")));
+    }
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(RateLimitService rateLimitService) {
+        return new RateLimitFilter(rateLimitService);
+    }
+
+    @Bean
+    public SqlBudgetFilter sqlBudgetFilter(SqlStatementCounter sqlStatementCounter, Environment environment) {
+        return new SqlBudgetFilter(sqlStatementCounter,
+                environment.getRequiredProperty("sql.budget.default", Integer.class),
+                environment.getRequiredProperty("sql.budget.routes"),
+                environment.getRequiredProperty("sql.budget.failOnExceed", Boolean.class));
+    }
+
+    /**
+     * Pdf forms are rendered on a pool of their own, a burst of print jobs queues up there
+     * instead of taking the servlet threads
+     */
+    @Bean(destroyMethod = "shutdown")
+    public AsyncRequestExecutor printRequestExecutor(Environment environment) {
+        return asyncRequestExecutor("print", environment);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public AsyncRequestExecutor listRequestExecutor(Environment environment) {
+        return asyncRequestExecutor("list", environment);
+    }
+
+    private static AsyncRequestExecutor asyncRequestExecutor(String name, Environment environment) {
+        String prefix = "async." + name + ".";
+        return new AsyncRequestExecutor(name,
+                environment.getRequiredProperty(prefix + "threads", Integer.class),
+                environment.getRequiredProperty(prefix + "queueCapacity", Integer.class),
+                environment.getRequiredProperty(prefix + "timeoutMillis", Long.class));
+    }
 }
@@ -0,0 +1,14 @@
+package com.opinta.config;
+
+import com.opinta.util.JsonFormat;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+/**
+ * Reads and writes request and response bodies as Smile or CBOR when they are the content type or are accepted
+ */
+public class BinaryJsonHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    public BinaryJsonHttpMessageConverter(JsonFormat format) {
+        super(format.getObjectMapper(), format.getMediaType());
+    }
+}
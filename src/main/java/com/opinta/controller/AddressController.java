@@ -1,7 +1,8 @@
 package com.opinta.controller;
 
-import java.util.List;
+import java.util.Map;
 
+import com.opinta.dao.FieldProjection;
 import com.opinta.dto.AddressDto;
 import com.opinta.service.AddressService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +14,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -33,13 +35,23 @@ public class AddressController {
     }
 
     @GetMapping
-    @ResponseStatus(OK)
-    public List<AddressDto> getAddresses() {
-        return addressService.getAll();
+    public ResponseEntity<?> getAddresses(@RequestParam(value = "fields", required = false) String fields) {
+        if (fields == null) {
+            return new ResponseEntity<>(addressService.getAll(), OK);
+        }
+        FieldProjection projection = addressService.getFieldProjection(fields);
+        if (projection == null) {
+            return new ResponseEntity<>(format("Can't project fields %s", fields), BAD_REQUEST);
+        }
+        return new ResponseEntity<>(addressService.getAll(projection), OK);
     }
 
     @GetMapping("{id}")
-    public ResponseEntity<?> getAddress(@PathVariable("id") long id) {
+    public ResponseEntity<?> getAddress(@PathVariable("id") long id,
+                                        @RequestParam(value = "fields", required = false) String fields) {
+        if (fields != null) {
+            return getAddressFields(id, fields);
+        }
         AddressDto addressDto = addressService.getById(id);
         if (addressDto == null) {
             return new ResponseEntity<>(format("No Address found for ID %d", id), NOT_FOUND);
@@ -47,6 +59,18 @@ public class AddressController {
         return new ResponseEntity<>(addressDto, OK);
     }
 
+    private ResponseEntity<?> getAddressFields(long id, String fields) {
+        FieldProjection projection = addressService.getFieldProjection(fields);
+        if (projection == null) {
+            return new ResponseEntity<>(format("Can't project fields %s", fields), BAD_REQUEST);
+        }
+        Map<String, Object> address = addressService.getById(id, projection);
+        if (address == null) {
+            return new ResponseEntity<>(format("No Address found for ID %d", id), NOT_FOUND);
+        }
+        return new ResponseEntity<>(address, OK);
+    }
+
     @PostMapping
     @ResponseStatus(OK)
     public ResponseEntity<?> createAddress(@RequestBody AddressDto addressDto) {
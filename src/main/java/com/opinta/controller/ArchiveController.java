@@ -0,0 +1,28 @@
+package com.opinta.controller;
+
+import com.opinta.dto.ShipmentArchiveResultDto;
+import com.opinta.service.ShipmentArchiveService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.http.HttpStatus.OK;
+
+@RestController
+@RequestMapping("/admin/archive")
+public class ArchiveController {
+    private final ShipmentArchiveService shipmentArchiveService;
+
+    @Autowired
+    public ArchiveController(ShipmentArchiveService shipmentArchiveService) {
+        this.shipmentArchiveService = shipmentArchiveService;
+    }
+
+    @PostMapping("shipments")
+    @ResponseStatus(OK)
+    public ShipmentArchiveResultDto archiveShipments() {
+        return new ShipmentArchiveResultDto(shipmentArchiveService.archiveDelivered());
+    }
+}
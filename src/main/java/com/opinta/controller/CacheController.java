@@ -0,0 +1,42 @@
+package com.opinta.controller;
+
+import com.opinta.dto.CacheRegionStatisticsDto;
+import com.opinta.service.CacheStatisticsService;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import static java.lang.String.format;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.OK;
+
+@RestController
+@RequestMapping("/admin/cache")
+public class CacheController {
+    private final CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    public CacheController(CacheStatisticsService cacheStatisticsService) {
+        this.cacheStatisticsService = cacheStatisticsService;
+    }
+
+    @GetMapping
+    @ResponseStatus(OK)
+    public List<CacheRegionStatisticsDto> getRegionStatistics() {
+        return cacheStatisticsService.getRegionStatistics();
+    }
+
+    @GetMapping("{region:.+}")
+    public ResponseEntity<?> getRegionStatistics(@PathVariable("region") String region) {
+        CacheRegionStatisticsDto regionStatistics = cacheStatisticsService.getRegionStatistics(region);
+        if (regionStatistics == null) {
+            return new ResponseEntity<>(format("No cache region found for name %s", region), NOT_FOUND);
+        }
+        return new ResponseEntity<>(regionStatistics, OK);
+    }
+}
@@ -1,12 +1,19 @@
 package com.opinta.controller;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
+import com.opinta.dao.FieldProjection;
 import com.opinta.dto.ClientDto;
 import com.opinta.dto.ShipmentDto;
 import com.opinta.service.ClientService;
 import com.opinta.service.ShipmentService;
+import com.opinta.service.TrackingStreamService;
+import com.opinta.util.JsonFormat;
+import javax.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,9 +21,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import static java.lang.String.format;
 
@@ -29,21 +38,41 @@ import static org.springframework.http.HttpStatus.OK;
 public class ClientController {
     private final ClientService clientService;
     private final ShipmentService shipmentService;
+    private final TrackingStreamService trackingStreamService;
     
     @Autowired
-    public ClientController(ClientService clientService, ShipmentService shipmentService) {
+    public ClientController(ClientService clientService, ShipmentService shipmentService,
+                            TrackingStreamService trackingStreamService) {
         this.clientService = clientService;
         this.shipmentService = shipmentService;
+        this.trackingStreamService = trackingStreamService;
     }
     
     @GetMapping
-    @ResponseStatus(OK)
-    public List<ClientDto> getAllClients() {
-        return this.clientService.getAll();
+    public void getAllClients(@RequestParam(value = "fields", required = false) String fields,
+                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                              HttpServletResponse response) throws IOException {
+        JsonFormat format = JsonFormat.fromAccept(accept);
+        if (fields == null) {
+            response.setContentType(format.getMediaType().toString());
+            clientService.writeAll(format, response.getOutputStream());
+            return;
+        }
+        FieldProjection projection = clientService.getFieldProjection(fields);
+        if (projection == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, format("Can't project fields %s", fields));
+            return;
+        }
+        response.setContentType(format.getMediaType().toString());
+        clientService.writeAll(format, response.getOutputStream(), projection);
     }
     
     @GetMapping("{id}")
-    public ResponseEntity<?> getClient(@PathVariable("id") long id) {
+    public ResponseEntity<?> getClient(@PathVariable("id") long id,
+                                       @RequestParam(value = "fields", required = false) String fields) {
+        if (fields != null) {
+            return getClientFields(id, fields);
+        }
         ClientDto clientDto = clientService.getById(id);
         if (clientDto == null) {
             return new ResponseEntity<>(format("No Client found for ID %d", id), NOT_FOUND);
@@ -51,6 +80,18 @@ public class ClientController {
         return new ResponseEntity<>(clientDto, OK);
     }
 
+    private ResponseEntity<?> getClientFields(long id, String fields) {
+        FieldProjection projection = clientService.getFieldProjection(fields);
+        if (projection == null) {
+            return new ResponseEntity<>(format("Can't project fields %s", fields), BAD_REQUEST);
+        }
+        Map<String, Object> client = clientService.getById(id, projection);
+        if (client == null) {
+            return new ResponseEntity<>(format("No Client found for ID %d", id), NOT_FOUND);
+        }
+        return new ResponseEntity<>(client, OK);
+    }
+
     @GetMapping("{clientId}/shipments")
     public ResponseEntity<?> getShipmentsByClientId(@PathVariable long clientId) {
         List<ShipmentDto> shipmentDtos = shipmentService.getAllByClientId(clientId);
@@ -59,6 +100,16 @@ public class ClientController {
         }
         return new ResponseEntity<>(shipmentDtos, OK);
     }
+
+    @GetMapping(value = "{clientId}/tracking/stream", produces = "text/event-stream")
+    public SseEmitter streamClientTracking(@PathVariable long clientId, HttpServletResponse response)
+            throws IOException {
+        SseEmitter emitter = trackingStreamService.subscribeToClient(clientId);
+        if (emitter == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, format("Client %d doesn't exist", clientId));
+        }
+        return emitter;
+    }
     
     @PostMapping
     public ResponseEntity<?> createClient(@RequestBody ClientDto clientDto) {
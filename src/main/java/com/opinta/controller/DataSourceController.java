@@ -0,0 +1,38 @@
+package com.opinta.controller;
+
+import com.opinta.datasource.InstrumentedDataSource;
+import com.opinta.dto.DataSourceStatisticsDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.http.HttpStatus.OK;
+
+@RestController
+@RequestMapping("/admin/datasource")
+public class DataSourceController {
+    private final InstrumentedDataSource primaryDataSource;
+    private final InstrumentedDataSource replicaDataSource;
+
+    @Autowired
+    public DataSourceController(@Qualifier("primaryDataSource") InstrumentedDataSource primaryDataSource,
+                                @Qualifier("replicaDataSource") InstrumentedDataSource replicaDataSource) {
+        this.primaryDataSource = primaryDataSource;
+        this.replicaDataSource = replicaDataSource;
+    }
+
+    @GetMapping
+    @ResponseStatus(OK)
+    public DataSourceStatisticsDto getStatistics() {
+        return primaryDataSource.getStatistics();
+    }
+
+    @GetMapping("replica")
+    @ResponseStatus(OK)
+    public DataSourceStatisticsDto getReplicaStatistics() {
+        return replicaDataSource.getStatistics();
+    }
+}
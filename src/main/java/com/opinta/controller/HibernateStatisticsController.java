@@ -0,0 +1,32 @@
+package com.opinta.controller;
+
+import com.opinta.service.HibernateStatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import static java.lang.String.format;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.OK;
+
+@RestController
+@RequestMapping("/admin/hibernate")
+public class HibernateStatisticsController {
+    private final HibernateStatisticsService hibernateStatisticsService;
+
+    @Autowired
+    public HibernateStatisticsController(HibernateStatisticsService hibernateStatisticsService) {
+        this.hibernateStatisticsService = hibernateStatisticsService;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getStatistics(@RequestParam(value = "queries", defaultValue = "20") int queries) {
+        if (queries < 0) {
+            return new ResponseEntity<>(format("Number of queries %d can't be negative", queries), BAD_REQUEST);
+        }
+        return new ResponseEntity<>(hibernateStatisticsService.getStatistics(queries), OK);
+    }
+}
@@ -0,0 +1,23 @@
+package com.opinta.controller;
+
+import com.opinta.metrics.MetricRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/metrics")
+public class MetricsController {
+    private final MetricRegistry metricRegistry;
+
+    @Autowired
+    public MetricsController(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    @GetMapping(produces = MetricRegistry.CONTENT_TYPE)
+    public String getMetrics() {
+        return metricRegistry.toPrometheusText();
+    }
+}
@@ -3,6 +3,8 @@ package com.opinta.controller;
 import com.opinta.entity.Parcel;
 import com.opinta.service.ParcelService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -11,13 +13,19 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.DeleteMapping;
 
 import java.util.List;
 
+import static com.opinta.util.ETagUtil.toETag;
+import static com.opinta.util.ETagUtil.toExpectedVersion;
 import static java.lang.String.format;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
 
 @RestController
 @RequestMapping
@@ -41,18 +49,26 @@ public class ParcelController {
         if (parcel == null) {
             return new ResponseEntity<>(format("No Parcel found for ID %d", id), NOT_FOUND);
         }
-        return new ResponseEntity<>(parcel, OK);
+        return new ResponseEntity<>(parcel, eTagHeaders(parcel), OK);
     }
 
     @PutMapping("{id}/{shipmentId}")
     public ResponseEntity<?> updateParcels(@PathVariable long id,
                                            @PathVariable long shipmentId,
-                                           @RequestBody Parcel parcel) {
-        parcel = parcelService.update(id, shipmentId, parcel);
+                                           @RequestBody Parcel parcel,
+                                           @RequestHeader(value = IF_MATCH, required = false) String ifMatch) {
+        try {
+            parcel = parcelService.update(id, shipmentId, parcel, toExpectedVersion(ifMatch));
+        } catch (OptimisticLockingFailureException e) {
+            if (ifMatch != null) {
+                return new ResponseEntity<>(format("Parcel %d doesn't match %s", id, ifMatch), PRECONDITION_FAILED);
+            }
+            return new ResponseEntity<>(format("Parcel %d has been changed concurrently", id), CONFLICT);
+        }
         if (parcel == null) {
             return new ResponseEntity<>(format("No Parcel found for ID %d", id), NOT_FOUND);
         }
-        return new ResponseEntity<>(parcel, OK);
+        return new ResponseEntity<>(parcel, eTagHeaders(parcel), OK);
     }
 
     @DeleteMapping("{id}")
@@ -62,4 +78,10 @@ public class ParcelController {
         }
         return new ResponseEntity<>(OK);
     }
+
+    private HttpHeaders eTagHeaders(Parcel parcel) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(toETag(parcel.getVersion()));
+        return headers;
+    }
 }
@@ -1,9 +1,19 @@
 package com.opinta.controller;
 
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import com.opinta.dto.PostOfficeDto;
+import com.opinta.dto.PostOfficeHourlyStatsDto;
+import com.opinta.dto.PostOfficeStatsDto;
+import com.opinta.dto.ShipmentCurrentStatusDto;
+import com.opinta.entity.ShipmentStatus;
 import com.opinta.service.PostOfficeService;
+import com.opinta.service.PostOfficeStatsService;
+import com.opinta.service.ShipmentCurrentStatusService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,6 +23,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -25,11 +36,20 @@ import static org.springframework.http.HttpStatus.OK;
 @RestController
 @RequestMapping("/post-offices")
 public class PostOfficeController {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final long MAX_HOURLY_STATS_DAYS = 31;
+    private static final Pattern WINDOW = Pattern.compile("(\\d{1,5})([mh])");
     private PostOfficeService postOfficeService;
+    private ShipmentCurrentStatusService shipmentCurrentStatusService;
+    private PostOfficeStatsService postOfficeStatsService;
 
     @Autowired
-    public PostOfficeController(PostOfficeService postOfficeService) {
+    public PostOfficeController(PostOfficeService postOfficeService,
+                                ShipmentCurrentStatusService shipmentCurrentStatusService,
+                                PostOfficeStatsService postOfficeStatsService) {
         this.postOfficeService = postOfficeService;
+        this.shipmentCurrentStatusService = shipmentCurrentStatusService;
+        this.postOfficeStatsService = postOfficeStatsService;
     }
 
     @GetMapping
@@ -47,6 +67,55 @@ public class PostOfficeController {
         return new ResponseEntity<>(postOfficeDto, OK);
     }
 
+    @GetMapping("{id}/shipments")
+    public ResponseEntity<?> getShipments(@PathVariable("id") long id,
+                                          @RequestParam(value = "status", required = false) ShipmentStatus status,
+                                          @RequestParam(value = "page", defaultValue = "0") int page,
+                                          @RequestParam(value = "size", defaultValue = "50") int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(
+                    format("Page should not be negative and size should be from 1 to %d", MAX_PAGE_SIZE), BAD_REQUEST);
+        }
+        List<ShipmentCurrentStatusDto> shipments = shipmentCurrentStatusService.getByPostOffice(id, status, page, size);
+        if (shipments == null) {
+            return new ResponseEntity<>(format("No PostOffice found for ID %d", id), NOT_FOUND);
+        }
+        return new ResponseEntity<>(shipments, OK);
+    }
+
+    @GetMapping("{id}/stats")
+    public ResponseEntity<?> getStats(@PathVariable("id") long id,
+                                      @RequestParam(value = "window", defaultValue = "1h") String window) {
+        int windowMinutes = toMinutes(window);
+        if (windowMinutes < 1 || windowMinutes > postOfficeStatsService.getMaxWindowMinutes()) {
+            return new ResponseEntity<>(format("Window should be from 1m to %dm",
+                    postOfficeStatsService.getMaxWindowMinutes()), BAD_REQUEST);
+        }
+        PostOfficeStatsDto stats = postOfficeStatsService.getStats(id, windowMinutes);
+        if (stats == null) {
+            return new ResponseEntity<>(format("No PostOffice found for ID %d", id), NOT_FOUND);
+        }
+        return new ResponseEntity<>(stats, OK);
+    }
+
+    @GetMapping("{id}/stats/hourly")
+    public ResponseEntity<?> getHourlyStats(@PathVariable("id") long id,
+                                            @RequestParam(value = "from", required = false) Long from,
+                                            @RequestParam(value = "to", required = false) Long to) {
+        long toMillis = to != null ? to : System.currentTimeMillis();
+        long fromMillis = from != null ? from : toMillis - TimeUnit.DAYS.toMillis(1);
+        if (fromMillis > toMillis || toMillis - fromMillis > TimeUnit.DAYS.toMillis(MAX_HOURLY_STATS_DAYS)) {
+            return new ResponseEntity<>(format("Hourly stats can be requested for up to %d days",
+                    MAX_HOURLY_STATS_DAYS), BAD_REQUEST);
+        }
+        List<PostOfficeHourlyStatsDto> stats =
+                postOfficeStatsService.getHourlyStats(id, new Date(fromMillis), new Date(toMillis));
+        if (stats == null) {
+            return new ResponseEntity<>(format("No PostOffice found for ID %d", id), NOT_FOUND);
+        }
+        return new ResponseEntity<>(stats, OK);
+    }
+
     @PostMapping
     @ResponseStatus(OK)
     public ResponseEntity<?> createPostOffice(@RequestBody PostOfficeDto postOfficeDto) {
@@ -73,4 +142,16 @@ public class PostOfficeController {
         }
         return new ResponseEntity<>(OK);
     }
+
+    /**
+     * @return minutes of a window like 15m or 1h, 0 if the window is malformed
+     */
+    private static int toMinutes(String window) {
+        Matcher matcher = WINDOW.matcher(window);
+        if (!matcher.matches()) {
+            return 0;
+        }
+        int value = Integer.parseInt(matcher.group(1));
+        return "h".equals(matcher.group(2)) ? value * 60 : value;
+    }
 }
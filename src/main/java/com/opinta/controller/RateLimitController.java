@@ -0,0 +1,36 @@
+package com.opinta.controller;
+
+import com.opinta.dto.RateLimitBucketDto;
+import com.opinta.service.RateLimitService;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.http.HttpStatus.OK;
+
+@RestController
+@RequestMapping("/admin/rate-limits")
+public class RateLimitController {
+    private final RateLimitService rateLimitService;
+
+    @Autowired
+    public RateLimitController(RateLimitService rateLimitService) {
+        this.rateLimitService = rateLimitService;
+    }
+
+    @GetMapping
+    @ResponseStatus(OK)
+    public List<RateLimitBucketDto> getBuckets() {
+        return rateLimitService.getBuckets();
+    }
+
+    @GetMapping("{counterpartyId}")
+    @ResponseStatus(OK)
+    public List<RateLimitBucketDto> getBuckets(@PathVariable("counterpartyId") long counterpartyId) {
+        return rateLimitService.getBuckets(counterpartyId);
+    }
+}
@@ -1,11 +1,29 @@
 package com.opinta.controller;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
+import com.opinta.dao.FieldProjection;
+import com.opinta.dao.ShipmentFilter;
+import com.opinta.dao.ShipmentSort;
+import com.opinta.dto.ShipmentBatchResultDto;
 import com.opinta.dto.ShipmentDto;
+import com.opinta.dto.ShipmentSearchResultDto;
+import com.opinta.dto.ShipmentTrackingDetailDto;
+import com.opinta.dto.ShipmentTrackingDto;
 import com.opinta.service.PDFGeneratorService;
+import com.opinta.service.ShipmentExportFormat;
+import com.opinta.service.ShipmentExportService;
 import com.opinta.service.ShipmentService;
+import com.opinta.service.ShipmentTrackingDetailService;
+import com.opinta.service.TrackingStreamService;
+import com.opinta.util.AsyncRequestExecutor;
+import com.opinta.util.JsonFormat;
+import javax.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -15,59 +33,175 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import static com.opinta.util.ETagUtil.toETag;
+import static com.opinta.util.ETagUtil.toExpectedVersion;
 import static java.lang.String.format;
 
+import static org.springframework.http.HttpHeaders.IF_MATCH;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
 
 @RestController
 @RequestMapping("/shipments")
 public class ShipmentController {
+    private static final int MAX_SEARCH_LIMIT = 1000;
     private ShipmentService shipmentService;
     private PDFGeneratorService pdfGeneratorService;
+    private ShipmentExportService shipmentExportService;
+    private ShipmentTrackingDetailService shipmentTrackingDetailService;
+    private TrackingStreamService trackingStreamService;
+    private AsyncRequestExecutor printRequestExecutor;
+    private AsyncRequestExecutor listRequestExecutor;
 
     @Autowired
-    public ShipmentController(ShipmentService shipmentService, PDFGeneratorService pdfGeneratorService) {
+    public ShipmentController(ShipmentService shipmentService, PDFGeneratorService pdfGeneratorService,
+                              ShipmentExportService shipmentExportService,
+                              ShipmentTrackingDetailService shipmentTrackingDetailService,
+                              TrackingStreamService trackingStreamService,
+                              @Qualifier("printRequestExecutor") AsyncRequestExecutor printRequestExecutor,
+                              @Qualifier("listRequestExecutor") AsyncRequestExecutor listRequestExecutor) {
         this.shipmentService = shipmentService;
         this.pdfGeneratorService = pdfGeneratorService;
+        this.shipmentExportService = shipmentExportService;
+        this.shipmentTrackingDetailService = shipmentTrackingDetailService;
+        this.trackingStreamService = trackingStreamService;
+        this.printRequestExecutor = printRequestExecutor;
+        this.listRequestExecutor = listRequestExecutor;
     }
 
     @GetMapping
-    @ResponseStatus(OK)
-    public List<ShipmentDto> getShipments() {
-        return shipmentService.getAll();
+    public WebAsyncTask<ResponseEntity<?>> getShipments(
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletResponse response) throws IOException {
+        JsonFormat format = JsonFormat.fromAccept(accept);
+        FieldProjection projection = fields == null ? null : shipmentService.getFieldProjection(fields);
+        if (fields != null && projection == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, format("Can't project fields %s", fields));
+            return null;
+        }
+        response.setContentType(format.getMediaType().toString());
+        return listRequestExecutor.submit(outputStream -> {
+            if (projection == null) {
+                shipmentService.writeAll(format, outputStream);
+            } else {
+                shipmentService.writeAll(format, outputStream, projection);
+            }
+        }, response);
+    }
+
+    @GetMapping("search")
+    public ResponseEntity<?> searchShipments(ShipmentFilter filter,
+                                             @RequestParam(value = "sort", defaultValue = "id") String sort,
+                                             @RequestParam(value = "after", required = false) String after,
+                                             @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            return new ResponseEntity<>(format("Limit should be from 1 to %d", MAX_SEARCH_LIMIT), BAD_REQUEST);
+        }
+        ShipmentSort shipmentSort = ShipmentSort.fromParameter(sort);
+        if (shipmentSort == null) {
+            return new ResponseEntity<>(format("Can't sort shipments by %s", sort), BAD_REQUEST);
+        }
+        ShipmentSearchResultDto searchResult = shipmentService.search(filter, shipmentSort, after, limit);
+        if (searchResult == null) {
+            return new ResponseEntity<>(format("Invalid cursor %s for sort %s", after, sort), BAD_REQUEST);
+        }
+        return new ResponseEntity<>(searchResult, OK);
+    }
+
+    @GetMapping("export")
+    public void exportShipments(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                HttpServletResponse response) throws IOException {
+        ShipmentExportFormat exportFormat = ShipmentExportFormat.fromName(format);
+        if (exportFormat == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, format("Unknown export format %s", format));
+            return;
+        }
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=shipments." + exportFormat.getExtension());
+        shipmentExportService.export(exportFormat, response.getOutputStream());
     }
 
     @GetMapping("{id}")
-    public ResponseEntity<?> getShipment(@PathVariable("id") long id) {
+    public ResponseEntity<?> getShipment(@PathVariable("id") long id,
+                                         @RequestParam(value = "fields", required = false) String fields) {
+        if (fields != null) {
+            return getShipmentFields(id, fields);
+        }
         ShipmentDto shipmentDto = shipmentService.getById(id);
         if (shipmentDto == null) {
             return new ResponseEntity<>(format("No Shipment found for ID %d", id), NOT_FOUND);
         }
-        return new ResponseEntity<>(shipmentDto, OK);
+        return new ResponseEntity<>(shipmentDto, eTagHeaders(shipmentDto), OK);
+    }
+
+    private ResponseEntity<?> getShipmentFields(long id, String fields) {
+        FieldProjection projection = shipmentService.getFieldProjection(fields);
+        if (projection == null) {
+            return new ResponseEntity<>(format("Can't project fields %s", fields), BAD_REQUEST);
+        }
+        Map<String, Object> shipment = shipmentService.getById(id, projection);
+        if (shipment == null) {
+            return new ResponseEntity<>(format("No Shipment found for ID %d", id), NOT_FOUND);
+        }
+        return new ResponseEntity<>(shipment, OK);
+    }
+
+    @GetMapping("{id}/tracking")
+    public ResponseEntity<?> getShipmentTracking(@PathVariable long id) {
+        List<ShipmentTrackingDetailDto> tracking = shipmentTrackingDetailService.getByShipmentId(id);
+        if (tracking == null) {
+            return new ResponseEntity<>(format("No Shipment found for ID %d", id), NOT_FOUND);
+        }
+        return new ResponseEntity<>(tracking, OK);
+    }
+
+    @GetMapping(value = "{id}/tracking/stream", produces = "text/event-stream")
+    public SseEmitter streamShipmentTracking(@PathVariable long id, HttpServletResponse response) throws IOException {
+        SseEmitter emitter = trackingStreamService.subscribeToShipment(id);
+        if (emitter == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, format("No Shipment found for ID %d", id));
+        }
+        return emitter;
+    }
+
+    @PostMapping("tracking:batchGet")
+    public ResponseEntity<?> getShipmentsTracking(@RequestBody List<Long> shipmentIds) {
+        List<ShipmentTrackingDto> tracking = shipmentTrackingDetailService.getByShipmentIds(shipmentIds);
+        if (tracking == null) {
+            return new ResponseEntity<>("Tracking batch is empty, too large or has a null id", BAD_REQUEST);
+        }
+        return new ResponseEntity<>(tracking, OK);
     }
 
     @GetMapping("{id}/label-form")
-    public ResponseEntity<?> getShipmentLabelForm(@PathVariable("id") long id) {
-        byte[] data = pdfGeneratorService.generateLabel(id);
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("application/pdf"));
-        String filename = "labelform" + id + ".pdf";
-        headers.setContentDispositionFormData(filename, filename);
-        headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-        return new ResponseEntity<>(data, headers, OK);
+    public WebAsyncTask<ResponseEntity<?>> getShipmentLabelForm(@PathVariable("id") long id) {
+        return printRequestExecutor.submit(() -> pdfResponse(pdfGeneratorService.generateLabel(id), "labelform" + id));
     }
 
     @GetMapping("{id}/postpay-form")
-    public ResponseEntity<?> getShipmentPostpayForm(@PathVariable("id") long id) {
-        byte[] data = pdfGeneratorService.generatePostpay(id);
+    public WebAsyncTask<ResponseEntity<?>> getShipmentPostpayForm(@PathVariable("id") long id) {
+        return printRequestExecutor.submit(
+                () -> pdfResponse(pdfGeneratorService.generatePostpay(id), "postpayform" + id));
+    }
+
+    private ResponseEntity<?> pdfResponse(byte[] data, String name) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.parseMediaType("application/pdf"));
-        String filename = "postpayform" + id + ".pdf";
+        String filename = name + ".pdf";
         headers.setContentDispositionFormData(filename, filename);
         headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
         return new ResponseEntity<>(data, headers, OK);
@@ -79,13 +213,30 @@ public class ShipmentController {
         return shipmentService.save(shipmentDto);
     }
 
+    @PostMapping("batch")
+    public ResponseEntity<?> createShipments(@RequestBody List<ShipmentDto> shipmentDtos) {
+        List<ShipmentBatchResultDto> results = shipmentService.saveAll(shipmentDtos);
+        if (results == null) {
+            return new ResponseEntity<>("Shipment batch is empty or too large", BAD_REQUEST);
+        }
+        return new ResponseEntity<>(results, OK);
+    }
+
     @PutMapping("{id}")
-    public ResponseEntity<?> updateShipment(@PathVariable long id, @RequestBody ShipmentDto shipmentDto) {
-        shipmentDto = shipmentService.update(id, shipmentDto);
+    public ResponseEntity<?> updateShipment(@PathVariable long id, @RequestBody ShipmentDto shipmentDto,
+                                            @RequestHeader(value = IF_MATCH, required = false) String ifMatch) {
+        try {
+            shipmentDto = shipmentService.update(id, shipmentDto, toExpectedVersion(ifMatch));
+        } catch (OptimisticLockingFailureException e) {
+            if (ifMatch != null) {
+                return new ResponseEntity<>(format("Shipment %d doesn't match %s", id, ifMatch), PRECONDITION_FAILED);
+            }
+            return new ResponseEntity<>(format("Shipment %d has been changed concurrently", id), CONFLICT);
+        }
         if (shipmentDto == null) {
             return new ResponseEntity<>(format("No Shipment found for ID %d", id), NOT_FOUND);
         }
-        return new ResponseEntity<>(shipmentDto, OK);
+        return new ResponseEntity<>(shipmentDto, eTagHeaders(shipmentDto), OK);
     }
 
     @DeleteMapping("{id}")
@@ -95,4 +246,10 @@ public class ShipmentController {
         }
         return new ResponseEntity<>(OK);
     }
+
+    private HttpHeaders eTagHeaders(ShipmentDto shipmentDto) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(toETag(shipmentDto.getVersion()));
+        return headers;
+    }
 }
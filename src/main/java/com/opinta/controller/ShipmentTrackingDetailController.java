@@ -1,10 +1,23 @@
 package com.opinta.controller;
 
-import java.util.List;
+import java.io.IOException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.opinta.dto.ScanEventBatchResultDto;
+import com.opinta.dto.ScanEventDto;
 import com.opinta.dto.ShipmentTrackingDetailDto;
+import com.opinta.service.ScanEventAck;
+import com.opinta.service.ScanEventIngestionService;
 import com.opinta.service.ShipmentTrackingDetailService;
+import com.opinta.util.JsonFormat;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,29 +25,42 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import static java.lang.String.format;
 
+import static org.springframework.http.HttpStatus.ACCEPTED;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.OK;
 
 @RestController
 @RequestMapping("/shipment-tracking")
 public class ShipmentTrackingDetailController {
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final String SMILE_VALUE = "application/x-jackson-smile";
+    private static final String CBOR_VALUE = "application/cbor";
+    private final ObjectReader scanEventReader = new ObjectMapper().readerFor(ScanEventDto.class);
     private ShipmentTrackingDetailService shipmentTrackingDetailService;
+    private ScanEventIngestionService scanEventIngestionService;
 
     @Autowired
-    public ShipmentTrackingDetailController(ShipmentTrackingDetailService shipmentTrackingDetailService) {
+    public ShipmentTrackingDetailController(ShipmentTrackingDetailService shipmentTrackingDetailService,
+                                            ScanEventIngestionService scanEventIngestionService) {
         this.shipmentTrackingDetailService = shipmentTrackingDetailService;
+        this.scanEventIngestionService = scanEventIngestionService;
     }
 
     @GetMapping
-    @ResponseStatus(OK)
-    public List<ShipmentTrackingDetailDto> getShipmentTrackingDetails() {
-        return shipmentTrackingDetailService.getAll();
+    public void getShipmentTrackingDetails(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                           HttpServletResponse response) throws IOException {
+        JsonFormat format = JsonFormat.fromAccept(accept);
+        response.setContentType(format.getMediaType().toString());
+        shipmentTrackingDetailService.writeAll(format, response.getOutputStream());
     }
 
 	@GetMapping("{id}")
@@ -52,6 +78,35 @@ public class ShipmentTrackingDetailController {
 		shipmentTrackingDetailService.save(shipmentTrackingDetailDto);
 	}
 
+    /**
+     * Accepts a json array or a ndjson stream of scan events, or the same in Smile or CBOR,
+     * they are parsed and buffered one by one.
+     * A batch that breaks off at a malformed event is partly accepted: the events before it are ingested and
+     * the answer is 200 or 202 as for a complete batch, with the error and the failedIndex of that event,
+     * so a client sends again only the events from failedIndex on. When nothing could be read the answer is 400
+     */
+    @PostMapping(value = "batch", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON_VALUE, SMILE_VALUE, CBOR_VALUE})
+    public ResponseEntity<?> ingestScanEvents(@RequestParam(value = "ack", required = false) String ack,
+                                              HttpServletRequest request) throws IOException {
+        ScanEventAck scanEventAck = ScanEventAck.fromName(ack);
+        if (ack != null && scanEventAck == null) {
+            return new ResponseEntity<>(format("Unknown acknowledgement %s", ack), BAD_REQUEST);
+        }
+        JsonFormat format = JsonFormat.fromContentType(request.getContentType());
+        ObjectReader reader = format == null ? scanEventReader
+                : scanEventReader.with(format.getObjectMapper().getFactory());
+        ScanEventBatchResultDto result;
+        try (MappingIterator<ScanEventDto> scanEvents = reader.readValues(request.getInputStream())) {
+            result = scanEventIngestionService.ingest(scanEvents, scanEventAck);
+        } catch (JsonProcessingException e) {
+            return new ResponseEntity<>("Malformed scan event batch", BAD_REQUEST);
+        }
+        if (result.getError() != null && result.getFailedIndex() == 0) {
+            return new ResponseEntity<>(result, BAD_REQUEST);
+        }
+        return new ResponseEntity<>(result, result.isCommitted() ? OK : ACCEPTED);
+    }
+
 	@PutMapping("{id}")
 	public ResponseEntity<?> updateShipmentTrackingDetail(
 			@PathVariable long id, @RequestBody ShipmentTrackingDetailDto shipmentTrackingDetailDto) {
@@ -1,6 +1,7 @@
 package com.opinta.dao;
 
 import java.util.List;
+import java.util.Map;
 
 import com.opinta.entity.Address;
 
@@ -8,8 +9,18 @@ public interface AddressDao {
 
     List<Address> getAll();
 
+    /**
+     * @return the projected fields of every address ordered by id
+     */
+    List<Map<String, Object>> getAll(FieldProjection projection);
+
     Address getById(long id);
 
+    /**
+     * @return the projected fields of the address or null if it doesn't exist
+     */
+    Map<String, Object> getById(long id, FieldProjection projection);
+
     Address save(Address address);
 
     void update(Address address);
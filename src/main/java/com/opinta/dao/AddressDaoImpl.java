@@ -1,11 +1,14 @@
 package com.opinta.dao;
 
 import java.util.List;
+import java.util.Map;
 
 import com.opinta.entity.Address;
 import org.hibernate.Criteria;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -27,12 +30,24 @@ public class AddressDaoImpl implements AddressDao {
                 .list();
     }
 
+    @Override
+    public List<Map<String, Object>> getAll(FieldProjection projection) {
+        Session session = sessionFactory.getCurrentSession();
+        return projection.list(session.createCriteria(Address.class).addOrder(Order.asc("id")));
+    }
+
     @Override
     public Address getById(long id) {
         Session session = sessionFactory.getCurrentSession();
         return (Address) session.get(Address.class, id);
     }
 
+    @Override
+    public Map<String, Object> getById(long id, FieldProjection projection) {
+        Session session = sessionFactory.getCurrentSession();
+        return projection.uniqueResult(session.createCriteria(Address.class).add(Restrictions.idEq(id)));
+    }
+
     @Override
     public Address save(Address address) {
         Session session = sessionFactory.getCurrentSession();
@@ -1,7 +1,10 @@
 package com.opinta.dao;
 
 import com.opinta.entity.Counterparty;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import com.opinta.entity.Client;
 import com.opinta.entity.Counterparty;
@@ -12,8 +15,26 @@ public interface ClientDao {
 
     List<Client> getAllByCounterparty(Counterparty counterparty);
 
+    /**
+     * Streams every client ordered by id through a stateless session. Clients are detached, their address
+     * and counterparty are references with id only
+     */
+    void scrollAll(int fetchSize, Consumer<Client> consumer);
+
+    /**
+     * Streams the projected fields of every client ordered by id
+     */
+    void scrollAll(FieldProjection projection, int fetchSize, Consumer<Map<String, Object>> consumer);
+
     Client getById(long id);
 
+    /**
+     * @return the projected fields of the client or null if it doesn't exist
+     */
+    Map<String, Object> getById(long id, FieldProjection projection);
+
+    List<Client> getByIds(Collection<Long> ids);
+
     Client save(Client client);
 
     void update(Client client);
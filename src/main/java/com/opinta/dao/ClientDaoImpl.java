@@ -1,19 +1,26 @@
 package com.opinta.dao;
 
 import com.opinta.entity.Counterparty;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import com.opinta.entity.Address;
 import com.opinta.entity.Client;
 import com.opinta.entity.Counterparty;
 import org.hibernate.Criteria;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public class ClientDaoImpl implements ClientDao {
+    private static final String SCROLL_ALL = "select c.id, c.name, c.uniqueRegistrationNumber, c.address.id, "
+            + "c.counterparty.id from Client c order by c.id";
     private final SessionFactory sessionFactory;
 
     @Autowired
@@ -40,12 +47,53 @@ public class ClientDaoImpl implements ClientDao {
                 .list();
     }
 
+    @Override
+    public void scrollAll(int fetchSize, Consumer<Client> consumer) {
+        StatelessScroll.forEachRow(sessionFactory, SCROLL_ALL, fetchSize, row -> {
+            Address address = null;
+            if (row[3] != null) {
+                address = new Address();
+                address.setId((Long) row[3]);
+            }
+            Counterparty counterparty = null;
+            if (row[4] != null) {
+                counterparty = new Counterparty();
+                counterparty.setId((Long) row[4]);
+            }
+            Client client = new Client((String) row[1], (String) row[2], address, counterparty);
+            client.setId((Long) row[0]);
+            consumer.accept(client);
+        });
+    }
+
+    @Override
+    public void scrollAll(FieldProjection projection, int fetchSize, Consumer<Map<String, Object>> consumer) {
+        Session session = sessionFactory.getCurrentSession();
+        projection.scroll(session.createCriteria(Client.class).addOrder(Order.asc("id")), fetchSize, consumer);
+    }
+
     @Override
     public Client getById(long id) {
         Session session = sessionFactory.getCurrentSession();
         return (Client) session.get(Client.class, id);
     }
 
+    @Override
+    public Map<String, Object> getById(long id, FieldProjection projection) {
+        Session session = sessionFactory.getCurrentSession();
+        return projection.uniqueResult(session.createCriteria(Client.class).add(Restrictions.idEq(id)));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Client> getByIds(Collection<Long> ids) {
+        Session session = sessionFactory.getCurrentSession();
+        return session.createCriteria(Client.class)
+                .add(Restrictions.in("id", ids))
+                .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
+                .list();
+    }
+
     @Override
     public Client save(Client client) {
         Session session = sessionFactory.getCurrentSession();
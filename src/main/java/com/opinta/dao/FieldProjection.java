@@ -0,0 +1,127 @@
+package com.opinta.dao;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import org.hibernate.Criteria;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.criterion.ProjectionList;
+import org.hibernate.criterion.Projections;
+
+/**
+ * Sparse fieldset of a dto compiled into a Criteria projection. Only the columns of the requested fields
+ * are selected, associations are neither joined nor loaded, and every row becomes a map of the requested
+ * fields in the order they are declared in the dto
+ */
+public class FieldProjection {
+    private final String[] fields;
+    private final ProjectionList projection;
+
+    private FieldProjection(String[] fields, ProjectionList projection) {
+        this.fields = fields;
+        this.projection = projection;
+    }
+
+    public Map<String, Object> uniqueResult(Criteria criteria) {
+        Object row = criteria.setProjection(projection).uniqueResult();
+        return row == null ? null : toMap(row);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> list(Criteria criteria) {
+        List<Object> rows = criteria.setProjection(projection).list();
+        List<Map<String, Object>> maps = new ArrayList<>(rows.size());
+        rows.forEach(row -> maps.add(toMap(row)));
+        return maps;
+    }
+
+    /**
+     * Hands the rows to the consumer one by one, projected rows are not entities, so nothing piles up
+     * in the session
+     */
+    public void scroll(Criteria criteria, int fetchSize, Consumer<Map<String, Object>> consumer) {
+        ScrollableResults rows = criteria.setProjection(projection)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            while (rows.next()) {
+                consumer.accept(toMap(rows.get()));
+            }
+        } finally {
+            rows.close();
+        }
+    }
+
+    /**
+     * @return the requested fields of a dto that has already been turned into a map
+     */
+    public Map<String, Object> select(Map<String, Object> values) {
+        Map<String, Object> selected = new LinkedHashMap<>();
+        for (String field : fields) {
+            selected.put(field, values.get(field));
+        }
+        return selected;
+    }
+
+    private Map<String, Object> toMap(Object row) {
+        // a projection of a single column returns the value itself instead of an array
+        Object[] values = row instanceof Object[] ? (Object[]) row : new Object[]{row};
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            map.put(fields[i], values[i]);
+        }
+        return map;
+    }
+
+    /**
+     * Projectable fields of a dto with the entity properties they are read from.
+     * There are only so many subsets of the declared fields, so every compiled projection is kept
+     */
+    public static class Fields {
+        private final Map<String, String> properties = new LinkedHashMap<>();
+        private final Map<String, FieldProjection> projections = new ConcurrentHashMap<>();
+
+        public Fields field(String name) {
+            return field(name, name);
+        }
+
+        public Fields field(String name, String property) {
+            properties.put(name, property);
+            return this;
+        }
+
+        /**
+         * @param fields comma separated dto fields, the order and repetitions don't matter
+         * @return projection of the fields or null if none is given or any of them can't be projected
+         */
+        public FieldProjection compile(String fields) {
+            Set<String> requested = new TreeSet<>();
+            for (String field : fields.split(",")) {
+                if (!field.trim().isEmpty()) {
+                    requested.add(field.trim());
+                }
+            }
+            if (requested.isEmpty() || !properties.keySet().containsAll(requested)) {
+                return null;
+            }
+            return projections.computeIfAbsent(String.join(",", requested), key -> {
+                List<String> names = new ArrayList<>();
+                ProjectionList projection = Projections.projectionList();
+                properties.forEach((name, property) -> {
+                    if (requested.contains(name)) {
+                        names.add(name);
+                        projection.add(Projections.property(property));
+                    }
+                });
+                return new FieldProjection(names.toArray(new String[names.size()]), projection);
+            });
+        }
+    }
+}
@@ -3,10 +3,13 @@ package com.opinta.dao;
 import com.opinta.entity.Parcel;
 import com.opinta.entity.Shipment;
 import org.hibernate.Criteria;
+import org.hibernate.FetchMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StaleStateException;
 import org.hibernate.criterion.Restrictions;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -25,6 +28,7 @@ public class ParcelDaoImpl implements ParcelDao {
     public List<Parcel> getAll() {
         Session session = sessionFactory.getCurrentSession();
         return session.createCriteria(Parcel.class)
+                .setFetchMode("parcelItems", FetchMode.JOIN)
                 .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
                 .list();
     }
@@ -32,7 +36,11 @@ public class ParcelDaoImpl implements ParcelDao {
     @Override
     public Parcel getById(long id) {
         Session session = sessionFactory.getCurrentSession();
-        return (Parcel) session.get(Parcel.class, id);
+        return (Parcel) session.createCriteria(Parcel.class)
+                .add(Restrictions.idEq(id))
+                .setFetchMode("parcelItems", FetchMode.JOIN)
+                .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
+                .uniqueResult();
     }
 
     @Override
@@ -45,6 +53,12 @@ public class ParcelDaoImpl implements ParcelDao {
     public void update(Parcel parcel) {
         Session session = sessionFactory.getCurrentSession();
         session.update(parcel);
+        // flushed right away, so the new version is known to the caller and a lost update is reported here
+        try {
+            session.flush();
+        } catch (StaleStateException e) {
+            throw new ObjectOptimisticLockingFailureException(Parcel.class, parcel.getId(), e);
+        }
     }
 
     @Override
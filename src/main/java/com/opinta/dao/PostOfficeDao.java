@@ -1,7 +1,9 @@
 package com.opinta.dao;
 
 import com.opinta.entity.PostOffice;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface PostOfficeDao {
 
@@ -9,6 +11,11 @@ public interface PostOfficeDao {
 
     PostOffice getById(long id);
 
+    /**
+     * @return the ids out of the given ones that belong to existing post offices
+     */
+    Set<Long> getExistingIds(Collection<Long> ids);
+
     PostOffice save(PostOffice postOffice);
 
     void update(PostOffice postOffice);
@@ -1,7 +1,10 @@
 package com.opinta.dao;
 
 import com.opinta.entity.PostOffice;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.hibernate.Criteria;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -32,6 +35,18 @@ public class PostOfficeDaoImpl implements PostOfficeDao {
         return (PostOffice) session.get(PostOffice.class, id);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Long> getExistingIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        Session session = sessionFactory.getCurrentSession();
+        return new HashSet<>(session.createQuery("select p.id from PostOffice p where p.id in (:ids)")
+                .setParameterList("ids", ids)
+                .list());
+    }
+
     @Override
     public PostOffice save(PostOffice postOffice) {
         Session session = sessionFactory.getCurrentSession();
@@ -0,0 +1,20 @@
+package com.opinta.dao;
+
+import com.opinta.entity.PostOfficeHourlyStats;
+import java.util.Date;
+import java.util.List;
+
+public interface PostOfficeHourlyStatsDao {
+
+    /**
+     * Hours from inclusive to exclusive, oldest first
+     */
+    List<PostOfficeHourlyStats> getByPostOffice(long postOfficeId, Date from, Date to);
+
+    PostOfficeHourlyStats save(PostOfficeHourlyStats postOfficeHourlyStats);
+
+    /**
+     * @return number of deleted rows
+     */
+    int deleteByHour(Date hourStart);
+}
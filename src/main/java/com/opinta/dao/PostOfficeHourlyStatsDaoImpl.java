@@ -0,0 +1,49 @@
+package com.opinta.dao;
+
+import com.opinta.entity.PostOfficeHourlyStats;
+import java.util.Date;
+import java.util.List;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class PostOfficeHourlyStatsDaoImpl implements PostOfficeHourlyStatsDao {
+    private final SessionFactory sessionFactory;
+
+    @Autowired
+    public PostOfficeHourlyStatsDaoImpl(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<PostOfficeHourlyStats> getByPostOffice(long postOfficeId, Date from, Date to) {
+        Session session = sessionFactory.getCurrentSession();
+        return session.createCriteria(PostOfficeHourlyStats.class)
+                .add(Restrictions.eq("postOfficeId", postOfficeId))
+                .add(Restrictions.ge("hourStart", from))
+                .add(Restrictions.lt("hourStart", to))
+                .addOrder(Order.asc("hourStart"))
+                .addOrder(Order.asc("shipmentStatus"))
+                .list();
+    }
+
+    @Override
+    public PostOfficeHourlyStats save(PostOfficeHourlyStats postOfficeHourlyStats) {
+        Session session = sessionFactory.getCurrentSession();
+        session.save(postOfficeHourlyStats);
+        return postOfficeHourlyStats;
+    }
+
+    @Override
+    public int deleteByHour(Date hourStart) {
+        Session session = sessionFactory.getCurrentSession();
+        return session.createQuery("delete from PostOfficeHourlyStats s where s.hourStart = :hourStart")
+                .setTimestamp("hourStart", hourStart)
+                .executeUpdate();
+    }
+}
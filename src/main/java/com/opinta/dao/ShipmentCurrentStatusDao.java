@@ -0,0 +1,37 @@
+package com.opinta.dao;
+
+import com.opinta.entity.ShipmentCurrentStatus;
+import com.opinta.entity.ShipmentStatus;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+public interface ShipmentCurrentStatusDao {
+
+    ShipmentCurrentStatus getByShipmentId(long shipmentId);
+
+    List<ShipmentCurrentStatus> getByShipmentIds(Collection<Long> shipmentIds);
+
+    /**
+     * Shipments last seen at the post office, latest first
+     *
+     * @param status null for any status
+     */
+    List<ShipmentCurrentStatus> getByPostOffice(long postOfficeId, ShipmentStatus status, int offset, int limit);
+
+    /**
+     * @return dates of the oldest shipments that have been in the status since before the given date,
+     * by shipment id in date order
+     */
+    Map<Long, Date> getDatesByStatusBefore(ShipmentStatus status, Date before, int limit);
+
+    ShipmentCurrentStatus save(ShipmentCurrentStatus shipmentCurrentStatus);
+
+    void delete(ShipmentCurrentStatus shipmentCurrentStatus);
+
+    /**
+     * @return number of deleted current statuses
+     */
+    int deleteByShipmentIds(Collection<Long> shipmentIds);
+}
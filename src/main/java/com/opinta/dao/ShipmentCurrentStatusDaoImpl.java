@@ -0,0 +1,102 @@
+package com.opinta.dao;
+
+import com.opinta.entity.ShipmentCurrentStatus;
+import com.opinta.entity.ShipmentStatus;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.Criteria;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ShipmentCurrentStatusDaoImpl implements ShipmentCurrentStatusDao {
+    private final SessionFactory sessionFactory;
+
+    @Autowired
+    public ShipmentCurrentStatusDaoImpl(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public ShipmentCurrentStatus getByShipmentId(long shipmentId) {
+        Session session = sessionFactory.getCurrentSession();
+        return (ShipmentCurrentStatus) session.get(ShipmentCurrentStatus.class, shipmentId);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ShipmentCurrentStatus> getByShipmentIds(Collection<Long> shipmentIds) {
+        if (shipmentIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Session session = sessionFactory.getCurrentSession();
+        return session.createCriteria(ShipmentCurrentStatus.class)
+                .add(Restrictions.in("shipmentId", shipmentIds))
+                .list();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ShipmentCurrentStatus> getByPostOffice(long postOfficeId, ShipmentStatus status,
+                                                       int offset, int limit) {
+        Session session = sessionFactory.getCurrentSession();
+        Criteria criteria = session.createCriteria(ShipmentCurrentStatus.class)
+                .add(Restrictions.eq("postOffice.id", postOfficeId));
+        if (status != null) {
+            criteria.add(Restrictions.eq("shipmentStatus", status));
+        }
+        return criteria
+                .addOrder(Order.desc("date"))
+                .addOrder(Order.desc("shipmentId"))
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .list();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Long, Date> getDatesByStatusBefore(ShipmentStatus status, Date before, int limit) {
+        Session session = sessionFactory.getCurrentSession();
+        List<Object[]> rows = session.createQuery("select s.shipmentId, s.date from ShipmentCurrentStatus s "
+                + "where s.shipmentStatus = :status and s.date < :before order by s.date, s.shipmentId")
+                .setParameter("status", status)
+                .setTimestamp("before", before)
+                .setMaxResults(limit)
+                .list();
+        Map<Long, Date> dates = new LinkedHashMap<>();
+        rows.forEach(row -> dates.put((Long) row[0], (Date) row[1]));
+        return dates;
+    }
+
+    @Override
+    public ShipmentCurrentStatus save(ShipmentCurrentStatus shipmentCurrentStatus) {
+        Session session = sessionFactory.getCurrentSession();
+        session.save(shipmentCurrentStatus);
+        return shipmentCurrentStatus;
+    }
+
+    @Override
+    public void delete(ShipmentCurrentStatus shipmentCurrentStatus) {
+        Session session = sessionFactory.getCurrentSession();
+        session.delete(shipmentCurrentStatus);
+    }
+
+    @Override
+    public int deleteByShipmentIds(Collection<Long> shipmentIds) {
+        if (shipmentIds.isEmpty()) {
+            return 0;
+        }
+        Session session = sessionFactory.getCurrentSession();
+        return session.createQuery("delete from ShipmentCurrentStatus s where s.shipmentId in (:shipmentIds)")
+                .setParameterList("shipmentIds", shipmentIds)
+                .executeUpdate();
+    }
+}
@@ -3,19 +3,82 @@ package com.opinta.dao;
 import com.opinta.entity.Client;
 import com.opinta.entity.Shipment;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface ShipmentDao {
 
-    List<Shipment> getAll();
+    List<Shipment> getAll(ShipmentFetchPlan fetchPlan);
 
-    List<Shipment> getAllByClient(Client client);
+    List<Shipment> getAllByClient(Client client, ShipmentFetchPlan fetchPlan);
 
     Shipment getById(long id);
 
+    Shipment getById(long id, ShipmentFetchPlan fetchPlan);
+
+    /**
+     * @return the projected fields of the shipment or null if it doesn't exist
+     */
+    Map<String, Object> getById(long id, FieldProjection projection);
+
+    List<Shipment> getByIds(Collection<Long> ids, ShipmentFetchPlan fetchPlan);
+
+    /**
+     * @return ids of at most limit shipments matching the filter in the order of the sort, starting after
+     * the keyset if it is given
+     */
+    List<Long> search(ShipmentFilter filter, ShipmentSort sort, ShipmentSort.Keyset after, int limit);
+
+    /**
+     * @return the ids out of the given ones that belong to existing shipments
+     */
+    Set<Long> getExistingIds(Collection<Long> ids);
+
+    /**
+     * Locks the rows of the shipments for update in id order, so writers of data derived from several shipments
+     * wait for each other without deadlocking. The locks are held until the transaction ends
+     *
+     * @return the ids out of the given ones that belong to existing shipments
+     */
+    Set<Long> lockByIds(Collection<Long> ids);
+
+    /**
+     * @return shipment ids by barcode number, numbers that are unknown or assigned to several shipments are left out
+     */
+    Map<String, Long> getIdsByBarcodes(Collection<String> barcodes);
+
+    /**
+     * @return sender and recipient ids by shipment id
+     */
+    Map<Long, List<Long>> getClientIds(Collection<Long> ids);
+
     Shipment save(Shipment shipment);
 
+    List<Shipment> saveAll(List<Shipment> shipments);
+
+    /**
+     * Streams every shipment with its parcels and parcel items through a stateless session.
+     * Shipments are detached and handed to the consumer one by one, so memory use doesn't depend on table size
+     */
+    void scrollAllWithParcelItems(int fetchSize, Consumer<Shipment> consumer);
+
+    /**
+     * Streams the projected fields of every shipment ordered by id
+     */
+    void scrollAll(FieldProjection projection, int fetchSize, Consumer<Map<String, Object>> consumer);
+
     void update(Shipment shipment);
 
     void delete(Shipment shipment);
+
+    /**
+     * Deletes the shipments with their parcels and parcel items in three statements, bypassing the session.
+     * Tracking events of the shipments must be deleted before
+     *
+     * @return number of deleted shipments
+     */
+    int deleteAll(Collection<Long> ids);
 }
@@ -1,18 +1,46 @@
 package com.opinta.dao;
 
 import com.opinta.entity.Client;
+import com.opinta.entity.DeliveryType;
+import com.opinta.entity.Parcel;
+import com.opinta.entity.ParcelItem;
 import com.opinta.entity.Shipment;
 import org.hibernate.Criteria;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StaleStateException;
+import org.hibernate.StatelessSession;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.type.StandardBasicTypes;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Repository
 public class ShipmentDaoImpl implements ShipmentDao {
+    private static final String SCROLL_ALL_WITH_PARCEL_ITEMS = "select s.id, s.sender.id, s.recipient.id, "
+            + "s.deliveryType, s.postPay, s.description, s.price, "
+            + "p.id, p.weight, p.length, p.width, p.height, p.declaredPrice, p.price, "
+            + "i.id, i.name, i.quantity, i.width, i.price, "
+            + "s.version, p.version "
+            + "from Shipment s left join s.parcels p left join p.parcelItems i "
+            + "order by s.id, p.id, i.id";
     private final SessionFactory sessionFactory;
 
     @Autowired
@@ -22,18 +50,18 @@ public class ShipmentDaoImpl implements ShipmentDao {
 
     @Override
     @SuppressWarnings("unchecked")
-    public List<Shipment> getAll() {
+    public List<Shipment> getAll(ShipmentFetchPlan fetchPlan) {
         Session session = sessionFactory.getCurrentSession();
-        return session.createCriteria(Shipment.class)
+        return fetchPlan.apply(session.createCriteria(Shipment.class))
                 .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
                 .list();
     }
 
     @Override
     @SuppressWarnings("unchecked")
-    public List<Shipment> getAllByClient(Client client) {
+    public List<Shipment> getAllByClient(Client client, ShipmentFetchPlan fetchPlan) {
         Session session = sessionFactory.getCurrentSession();
-        return session.createCriteria(Shipment.class)
+        return fetchPlan.apply(session.createCriteria(Shipment.class))
                 .add(Restrictions.eq("sender", client))
                 .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
                 .list();
@@ -45,16 +73,246 @@ public class ShipmentDaoImpl implements ShipmentDao {
         return (Shipment) session.get(Shipment.class, id);
     }
 
+    @Override
+    public Shipment getById(long id, ShipmentFetchPlan fetchPlan) {
+        Session session = sessionFactory.getCurrentSession();
+        return (Shipment) fetchPlan.apply(session.createCriteria(Shipment.class))
+                .add(Restrictions.idEq(id))
+                .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
+                .uniqueResult();
+    }
+
+    @Override
+    public Map<String, Object> getById(long id, FieldProjection projection) {
+        Session session = sessionFactory.getCurrentSession();
+        return projection.uniqueResult(session.createCriteria(Shipment.class).add(Restrictions.idEq(id)));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Shipment> getByIds(Collection<Long> ids, ShipmentFetchPlan fetchPlan) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Session session = sessionFactory.getCurrentSession();
+        return fetchPlan.apply(session.createCriteria(Shipment.class))
+                .add(Restrictions.in("id", ids))
+                .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
+                .list();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Long> search(ShipmentFilter filter, ShipmentSort sort, ShipmentSort.Keyset after, int limit) {
+        Session session = sessionFactory.getCurrentSession();
+        return sort.apply(filter.apply(session.createCriteria(Shipment.class)), after)
+                .setProjection(Projections.id())
+                .setMaxResults(limit)
+                .list();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Long> getExistingIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        Session session = sessionFactory.getCurrentSession();
+        return new HashSet<>(session.createQuery("select s.id from Shipment s where s.id in (:ids)")
+                .setParameterList("ids", ids)
+                .list());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<Long> lockByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        // hibernate can't lock the rows of a projection, so the select for update is native
+        Session session = sessionFactory.getCurrentSession();
+        String forUpdate = ((SessionFactoryImplementor) sessionFactory).getDialect().getForUpdateString();
+        return new HashSet<>(session
+                .createSQLQuery("select id from Shipment where id in (:ids) order by id" + forUpdate)
+                .addScalar("id", StandardBasicTypes.LONG)
+                .setParameterList("ids", ids)
+                .list());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Long> getIdsByBarcodes(Collection<String> barcodes) {
+        Map<String, Long> ids = new HashMap<>();
+        if (barcodes.isEmpty()) {
+            return ids;
+        }
+        Session session = sessionFactory.getCurrentSession();
+        List<Object[]> rows = session.createQuery("select b.number, s.id from Shipment s join s.barcode b "
+                + "where b.number in (:barcodes)")
+                .setParameterList("barcodes", barcodes)
+                .list();
+        Set<String> ambiguous = new HashSet<>();
+        rows.forEach(row -> {
+            if (ids.put((String) row[0], (Long) row[1]) != null) {
+                ambiguous.add((String) row[0]);
+            }
+        });
+        ids.keySet().removeAll(ambiguous);
+        return ids;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Long, List<Long>> getClientIds(Collection<Long> ids) {
+        Map<Long, List<Long>> clientIds = new HashMap<>();
+        if (ids.isEmpty()) {
+            return clientIds;
+        }
+        Session session = sessionFactory.getCurrentSession();
+        List<Object[]> rows = session.createQuery("select s.id, s.sender.id, s.recipient.id from Shipment s "
+                + "where s.id in (:ids)")
+                .setParameterList("ids", ids)
+                .list();
+        rows.forEach(row -> {
+            List<Long> shipmentClientIds = new ArrayList<>(2);
+            for (int i = 1; i < row.length; i++) {
+                if (row[i] != null) {
+                    shipmentClientIds.add((Long) row[i]);
+                }
+            }
+            clientIds.put((Long) row[0], shipmentClientIds);
+        });
+        return clientIds;
+    }
+
     @Override
     public Shipment save(Shipment shipment) {
         Session session = sessionFactory.getCurrentSession();
+        setCreated(shipment);
         return (Shipment) session.merge(shipment);
     }
 
+    @Override
+    public List<Shipment> saveAll(List<Shipment> shipments) {
+        Session session = sessionFactory.getCurrentSession();
+        int batchSize = ((SessionFactoryImplementor) sessionFactory).getSettings().getJdbcBatchSize();
+        for (int i = 0; i < shipments.size(); i++) {
+            setCreated(shipments.get(i));
+            session.save(shipments.get(i));
+            if (batchSize > 0 && (i + 1) % batchSize == 0) {
+                session.flush();
+                session.clear();
+            }
+        }
+        session.flush();
+        session.clear();
+        return shipments;
+    }
+
+    private static void setCreated(Shipment shipment) {
+        if (shipment.getCreated() == null) {
+            shipment.setCreated(new Date());
+        }
+    }
+
+    @Override
+    public void scrollAll(FieldProjection projection, int fetchSize, Consumer<Map<String, Object>> consumer) {
+        Session session = sessionFactory.getCurrentSession();
+        projection.scroll(session.createCriteria(Shipment.class).addOrder(Order.asc("id")), fetchSize, consumer);
+    }
+
+    @Override
+    public void scrollAllWithParcelItems(int fetchSize, Consumer<Shipment> consumer) {
+        // runs on the connection of the current transaction, so the export sees the same data source and snapshot
+        SessionImplementor session = (SessionImplementor) sessionFactory.getCurrentSession();
+        StatelessSession statelessSession = sessionFactory.openStatelessSession(session.connection());
+        ScrollableResults rows = null;
+        try {
+            rows = statelessSession.createQuery(SCROLL_ALL_WITH_PARCEL_ITEMS)
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            Shipment shipment = null;
+            Parcel parcel = null;
+            while (rows.next()) {
+                long shipmentId = rows.getLong(0);
+                if (shipment == null || shipment.getId() != shipmentId) {
+                    if (shipment != null) {
+                        consumer.accept(shipment);
+                    }
+                    shipment = toShipment(rows);
+                    parcel = null;
+                }
+                Long parcelId = rows.getLong(7);
+                if (parcelId == null) {
+                    continue;
+                }
+                if (parcel == null || parcel.getId() != parcelId) {
+                    parcel = toParcel(rows);
+                    parcel.setShipment(shipment);
+                    shipment.getParcels().add(parcel);
+                }
+                if (rows.getLong(14) != null) {
+                    ParcelItem parcelItem = toParcelItem(rows);
+                    parcelItem.setParcel(parcel);
+                    parcel.getParcelItems().add(parcelItem);
+                }
+            }
+            if (shipment != null) {
+                consumer.accept(shipment);
+            }
+        } finally {
+            if (rows != null) {
+                rows.close();
+            }
+            statelessSession.close();
+        }
+    }
+
+    private Shipment toShipment(ScrollableResults rows) {
+        Shipment shipment = new Shipment(clientById(rows.getLong(1)), clientById(rows.getLong(2)),
+                (DeliveryType) rows.get(3), rows.getBigDecimal(4), new ArrayList<>());
+        shipment.setId(rows.getLong(0));
+        shipment.setDescription(rows.getString(5));
+        shipment.setPrice(rows.getBigDecimal(6));
+        shipment.setVersion(rows.getLong(19));
+        return shipment;
+    }
+
+    private Client clientById(Long id) {
+        if (id == null) {
+            return null;
+        }
+        Client client = new Client();
+        client.setId(id);
+        return client;
+    }
+
+    private Parcel toParcel(ScrollableResults rows) {
+        Parcel parcel = new Parcel(new ArrayList<>(), rows.getFloat(8), rows.getFloat(9), rows.getFloat(10),
+                rows.getFloat(11), rows.getBigDecimal(12), rows.getBigDecimal(13));
+        parcel.setId(rows.getLong(7));
+        parcel.setVersion(rows.getLong(20));
+        return parcel;
+    }
+
+    private ParcelItem toParcelItem(ScrollableResults rows) {
+        ParcelItem parcelItem = new ParcelItem(rows.getString(15), rows.getInteger(16), rows.getFloat(17),
+                rows.getBigDecimal(18));
+        parcelItem.setId(rows.getLong(14));
+        return parcelItem;
+    }
+
     @Override
     public void update(Shipment shipment) {
         Session session = sessionFactory.getCurrentSession();
         session.update(shipment);
+        // flushed right away, so the new version is known to the caller and a lost update is reported here
+        try {
+            session.flush();
+        } catch (StaleStateException e) {
+            throw new ObjectOptimisticLockingFailureException(Shipment.class, shipment.getId(), e);
+        }
     }
 
     @Override
@@ -62,4 +320,22 @@ public class ShipmentDaoImpl implements ShipmentDao {
         Session session = sessionFactory.getCurrentSession();
         session.delete(shipment);
     }
+
+    @Override
+    public int deleteAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Session session = sessionFactory.getCurrentSession();
+        session.createQuery("delete from ParcelItem i where i.parcel.id in "
+                + "(select p.id from Parcel p where p.shipment.id in (:ids))")
+                .setParameterList("ids", ids)
+                .executeUpdate();
+        session.createQuery("delete from Parcel p where p.shipment.id in (:ids)")
+                .setParameterList("ids", ids)
+                .executeUpdate();
+        return session.createQuery("delete from Shipment s where s.id in (:ids)")
+                .setParameterList("ids", ids)
+                .executeUpdate();
+    }
 }
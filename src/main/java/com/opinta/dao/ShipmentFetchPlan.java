@@ -0,0 +1,37 @@
+package com.opinta.dao;
+
+import org.hibernate.Criteria;
+import org.hibernate.FetchMode;
+
+/**
+ * Fetch plans for the Shipment aggregate.
+ * Parcels and parcel items are mapped lazily, so each use case names the associations it needs
+ * and they are fetch-joined in the same statement as the shipment itself
+ */
+public enum ShipmentFetchPlan {
+    /**
+     * Parcels with their items, used when the whole shipment is mapped to dto
+     */
+    FULL("parcels", "parcels.parcelItems"),
+    /**
+     * Parcels without items, enough to print the weight and totals on the label form
+     */
+    LABEL_FORM("parcels"),
+    /**
+     * No collections, only sender and recipient as printed on the postpay form
+     */
+    POSTPAY_FORM;
+
+    private final String[] associations;
+
+    ShipmentFetchPlan(String... associations) {
+        this.associations = associations;
+    }
+
+    public Criteria apply(Criteria criteria) {
+        for (String association : associations) {
+            criteria.setFetchMode(association, FetchMode.JOIN);
+        }
+        return criteria;
+    }
+}
@@ -0,0 +1,89 @@
+package com.opinta.dao;
+
+import com.opinta.entity.Client;
+import com.opinta.entity.DeliveryType;
+import com.opinta.entity.ShipmentCurrentStatus;
+import com.opinta.entity.ShipmentStatus;
+import java.math.BigDecimal;
+import java.util.Date;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.Criteria;
+import org.hibernate.criterion.DetachedCriteria;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.criterion.Subqueries;
+
+/**
+ * Filters of a shipment search, every one that is set has to match.
+ * Counterparty, postcode pool and status are matched by subqueries on their own indexes,
+ * so the shipment itself is never joined and each shipment is returned once
+ */
+@Getter
+@Setter
+public class ShipmentFilter {
+    private DeliveryType deliveryType;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Long senderId;
+    private Long recipientId;
+    /**
+     * Counterparty of the sender
+     */
+    private Long counterpartyId;
+    /**
+     * Postcode pool of the counterparty of the sender
+     */
+    private Long postcodePoolId;
+    private ShipmentStatus status;
+    /**
+     * Epoch millis, inclusive
+     */
+    private Long createdFrom;
+    /**
+     * Epoch millis, exclusive
+     */
+    private Long createdTo;
+
+    public Criteria apply(Criteria criteria) {
+        if (deliveryType != null) {
+            criteria.add(Restrictions.eq("deliveryType", deliveryType));
+        }
+        if (minPrice != null) {
+            criteria.add(Restrictions.ge("price", minPrice));
+        }
+        if (maxPrice != null) {
+            criteria.add(Restrictions.le("price", maxPrice));
+        }
+        if (senderId != null) {
+            criteria.add(Restrictions.eq("sender.id", senderId));
+        }
+        if (recipientId != null) {
+            criteria.add(Restrictions.eq("recipient.id", recipientId));
+        }
+        if (counterpartyId != null || postcodePoolId != null) {
+            DetachedCriteria senders = DetachedCriteria.forClass(Client.class, "client")
+                    .setProjection(Projections.id());
+            if (counterpartyId != null) {
+                senders.add(Restrictions.eq("client.counterparty.id", counterpartyId));
+            }
+            if (postcodePoolId != null) {
+                senders.createAlias("client.counterparty", "counterparty")
+                        .add(Restrictions.eq("counterparty.postcodePool.id", postcodePoolId));
+            }
+            criteria.add(Subqueries.propertyIn("sender.id", senders));
+        }
+        if (status != null) {
+            criteria.add(Subqueries.propertyIn("id", DetachedCriteria.forClass(ShipmentCurrentStatus.class)
+                    .add(Restrictions.eq("shipmentStatus", status))
+                    .setProjection(Projections.property("shipmentId"))));
+        }
+        if (createdFrom != null) {
+            criteria.add(Restrictions.ge("created", new Date(createdFrom)));
+        }
+        if (createdTo != null) {
+            criteria.add(Restrictions.lt("created", new Date(createdTo)));
+        }
+        return criteria;
+    }
+}
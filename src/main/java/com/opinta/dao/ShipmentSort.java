@@ -0,0 +1,148 @@
+package com.opinta.dao;
+
+import com.opinta.entity.Shipment;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import org.hibernate.Criteria;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+
+/**
+ * Order of a shipment search with keyset pagination. A page continues after the sort value and id of the last
+ * shipment of the previous one, so deep pages cost the same as the first and shipments inserted meanwhile
+ * don't shift the pages. The keyset is handed to clients as an opaque cursor.
+ * Shipments without a value of the sort property are left out
+ */
+public class ShipmentSort {
+    private static final String DESCENDING_PREFIX = "-";
+    private static final String SEPARATOR = "|";
+
+    private final String parameter;
+    private final Property property;
+    private final boolean descending;
+
+    private ShipmentSort(String parameter, Property property, boolean descending) {
+        this.parameter = parameter;
+        this.property = property;
+        this.descending = descending;
+    }
+
+    /**
+     * @param sort property name, prefixed with "-" for descending order
+     * @return the sort or null if the property can't be sorted by
+     */
+    public static ShipmentSort fromParameter(String sort) {
+        boolean descending = sort.startsWith(DESCENDING_PREFIX);
+        String name = descending ? sort.substring(DESCENDING_PREFIX.length()) : sort;
+        for (Property property : Property.values()) {
+            if (property.name.equals(name)) {
+                return new ShipmentSort(sort, property, descending);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Orders the criteria and restricts it to the shipments after the keyset
+     */
+    public Criteria apply(Criteria criteria, Keyset after) {
+        if (property != Property.ID) {
+            criteria.add(Restrictions.isNotNull(property.name));
+        }
+        if (after != null) {
+            criteria.add(property == Property.ID ? after(property.name, after.id)
+                    : Restrictions.or(after(property.name, after.value),
+                            Restrictions.and(Restrictions.eq(property.name, after.value), after("id", after.id))));
+        }
+        criteria.addOrder(descending ? Order.desc(property.name) : Order.asc(property.name));
+        if (property != Property.ID) {
+            criteria.addOrder(descending ? Order.desc("id") : Order.asc("id"));
+        }
+        return criteria;
+    }
+
+    private Criterion after(String propertyName, Object value) {
+        return descending ? Restrictions.lt(propertyName, value) : Restrictions.gt(propertyName, value);
+    }
+
+    public String toCursor(Shipment last) {
+        String keyset = parameter + SEPARATOR + property.format(last) + SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(keyset.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the keyset of the cursor or null if it is malformed or was made for another sort
+     */
+    public Keyset fromCursor(String cursor) {
+        try {
+            String[] keyset = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR, -1);
+            if (keyset.length != 3 || !parameter.equals(keyset[0])) {
+                return null;
+            }
+            return new Keyset(property.parse(keyset[1]), Long.parseLong(keyset[2]));
+        } catch (IllegalArgumentException e) {
+            // also thrown for malformed numbers
+            return null;
+        }
+    }
+
+    public static class Keyset {
+        private final Object value;
+        private final long id;
+
+        private Keyset(Object value, long id) {
+            this.value = value;
+            this.id = id;
+        }
+    }
+
+    private enum Property {
+        ID("id") {
+            @Override
+            String format(Shipment shipment) {
+                return String.valueOf(shipment.getId());
+            }
+
+            @Override
+            Object parse(String value) {
+                return Long.valueOf(value);
+            }
+        },
+        CREATED("created") {
+            @Override
+            String format(Shipment shipment) {
+                return String.valueOf(shipment.getCreated().getTime());
+            }
+
+            @Override
+            Object parse(String value) {
+                return new Date(Long.parseLong(value));
+            }
+        },
+        PRICE("price") {
+            @Override
+            String format(Shipment shipment) {
+                return shipment.getPrice().toPlainString();
+            }
+
+            @Override
+            Object parse(String value) {
+                return new BigDecimal(value);
+            }
+        };
+
+        private final String name;
+
+        Property(String name) {
+            this.name = name;
+        }
+
+        abstract String format(Shipment shipment);
+
+        abstract Object parse(String value);
+    }
+}
@@ -1,17 +1,49 @@
 package com.opinta.dao;
 
 import com.opinta.entity.ShipmentTrackingDetail;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ShipmentTrackingDetailDao {
 
     List<ShipmentTrackingDetail> getAll();
 
+    /**
+     * Streams every tracking event ordered by id through a stateless session, shipment and post office
+     * are references with id only
+     */
+    void scrollAll(int fetchSize, Consumer<ShipmentTrackingDetail> consumer);
+
     ShipmentTrackingDetail getById(long id);
 
+    /**
+     * Tracking events of the shipment ordered by date, shipment and post office are references with id only
+     */
+    List<ShipmentTrackingDetail> getByShipmentId(long shipmentId);
+
+    /**
+     * Tracking events of the shipments ordered by shipment and date, shipment and post office are references
+     * with id only
+     */
+    List<ShipmentTrackingDetail> getByShipmentIds(Collection<Long> shipmentIds);
+
     ShipmentTrackingDetail save(ShipmentTrackingDetail shipmentTrackingDetail);
 
+    /**
+     * Inserts the events with a single jdbc batch, bypassing the session. Shipments and post offices
+     * must exist and only their ids are used. Generated ids are set on the events when the driver returns them
+     */
+    void insertAll(List<ShipmentTrackingDetail> shipmentTrackingDetails);
+
     void update(ShipmentTrackingDetail shipmentTrackingDetail);
 
+    /**
+     * Deletes the events of the shipments with a single statement, bypassing the session
+     *
+     * @return number of deleted events
+     */
+    int deleteByShipmentIds(Collection<Long> shipmentIds);
+
     void delete(ShipmentTrackingDetail shipmentTrackingDetail);
 }
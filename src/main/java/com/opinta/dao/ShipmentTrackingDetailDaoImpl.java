@@ -1,7 +1,19 @@
 package com.opinta.dao;
 
+import com.opinta.entity.PostOffice;
+import com.opinta.entity.Shipment;
+import com.opinta.entity.ShipmentStatus;
 import com.opinta.entity.ShipmentTrackingDetail;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import org.hibernate.Criteria;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -10,6 +22,12 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 public class ShipmentTrackingDetailDaoImpl implements ShipmentTrackingDetailDao {
+    // shipment and post office ids are read from the foreign keys, so the timeline is a single index range scan
+    // on (shipment_id, date) without joining or loading the eagerly mapped shipment
+    private static final String SELECT_TIMELINE = "select d.id, d.shipment.id, d.postOffice.id, d.shipmentStatus, "
+            + "d.date from ShipmentTrackingDetail d ";
+    private static final String INSERT = "insert into ShipmentTrackingDetail "
+            + "(shipment_id, post_office_id, shipmentStatus, date) values (?, ?, ?, ?)";
     private final SessionFactory sessionFactory;
 
     @Autowired
@@ -26,18 +44,90 @@ public class ShipmentTrackingDetailDaoImpl implements ShipmentTrackingDetailDao
                 .list();
     }
 
+    @Override
+    public void scrollAll(int fetchSize, Consumer<ShipmentTrackingDetail> consumer) {
+        StatelessScroll.forEachRow(sessionFactory, SELECT_TIMELINE + "order by d.id", fetchSize,
+                row -> consumer.accept(toShipmentTrackingDetail(row)));
+    }
+
     @Override
     public ShipmentTrackingDetail getById(long id) {
         Session session = sessionFactory.getCurrentSession();
         return (ShipmentTrackingDetail) session.get(ShipmentTrackingDetail.class, id);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ShipmentTrackingDetail> getByShipmentId(long shipmentId) {
+        Session session = sessionFactory.getCurrentSession();
+        List<Object[]> rows = session.createQuery(SELECT_TIMELINE
+                + "where d.shipment.id = :shipmentId order by d.date, d.id")
+                .setLong("shipmentId", shipmentId)
+                .list();
+        return toShipmentTrackingDetails(rows);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ShipmentTrackingDetail> getByShipmentIds(Collection<Long> shipmentIds) {
+        Session session = sessionFactory.getCurrentSession();
+        List<Object[]> rows = session.createQuery(SELECT_TIMELINE
+                + "where d.shipment.id in (:shipmentIds) order by d.shipment.id, d.date, d.id")
+                .setParameterList("shipmentIds", shipmentIds)
+                .list();
+        return toShipmentTrackingDetails(rows);
+    }
+
+    private List<ShipmentTrackingDetail> toShipmentTrackingDetails(List<Object[]> rows) {
+        return rows.stream().map(this::toShipmentTrackingDetail).collect(Collectors.toList());
+    }
+
+    private ShipmentTrackingDetail toShipmentTrackingDetail(Object[] row) {
+        Shipment shipment = new Shipment();
+        shipment.setId((Long) row[1]);
+        PostOffice postOffice = null;
+        if (row[2] != null) {
+            postOffice = new PostOffice();
+            postOffice.setId((Long) row[2]);
+        }
+        ShipmentTrackingDetail shipmentTrackingDetail =
+                new ShipmentTrackingDetail(shipment, postOffice, (ShipmentStatus) row[3], (Date) row[4]);
+        shipmentTrackingDetail.setId((Long) row[0]);
+        return shipmentTrackingDetail;
+    }
+
     @Override
     public ShipmentTrackingDetail save(ShipmentTrackingDetail shipmentTrackingDetail) {
         Session session = sessionFactory.getCurrentSession();
         return (ShipmentTrackingDetail) session.merge(shipmentTrackingDetail);
     }
 
+    @Override
+    public void insertAll(List<ShipmentTrackingDetail> shipmentTrackingDetails) {
+        Session session = sessionFactory.getCurrentSession();
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (ShipmentTrackingDetail shipmentTrackingDetail : shipmentTrackingDetails) {
+                    statement.setLong(1, shipmentTrackingDetail.getShipment().getId());
+                    if (shipmentTrackingDetail.getPostOffice() == null) {
+                        statement.setNull(2, Types.BIGINT);
+                    } else {
+                        statement.setLong(2, shipmentTrackingDetail.getPostOffice().getId());
+                    }
+                    statement.setString(3, shipmentTrackingDetail.getShipmentStatus().name());
+                    statement.setTimestamp(4, new Timestamp(shipmentTrackingDetail.getDate().getTime()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                    for (int i = 0; i < shipmentTrackingDetails.size() && generatedKeys.next(); i++) {
+                        shipmentTrackingDetails.get(i).setId(generatedKeys.getLong(1));
+                    }
+                }
+            }
+        });
+    }
+
     @Override
     public void update(ShipmentTrackingDetail shipmentTrackingDetail) {
         Session session = sessionFactory.getCurrentSession();
@@ -49,4 +139,15 @@ public class ShipmentTrackingDetailDaoImpl implements ShipmentTrackingDetailDao
         Session session = sessionFactory.getCurrentSession();
         session.delete(shipmentTrackingDetail);
     }
+
+    @Override
+    public int deleteByShipmentIds(Collection<Long> shipmentIds) {
+        if (shipmentIds.isEmpty()) {
+            return 0;
+        }
+        Session session = sessionFactory.getCurrentSession();
+        return session.createQuery("delete from ShipmentTrackingDetail d where d.shipment.id in (:shipmentIds)")
+                .setParameterList("shipmentIds", shipmentIds)
+                .executeUpdate();
+    }
 }
@@ -0,0 +1,36 @@
+package com.opinta.dao;
+
+import java.util.function.Consumer;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionImplementor;
+
+/**
+ * Forward-only scroll of a query through a stateless session on the connection of the current transaction,
+ * so rows are read in the same snapshot as the rest of the transaction and nothing piles up in a session
+ */
+class StatelessScroll {
+
+    static void forEachRow(SessionFactory sessionFactory, String query, int fetchSize,
+                           Consumer<Object[]> consumer) {
+        SessionImplementor session = (SessionImplementor) sessionFactory.getCurrentSession();
+        StatelessSession statelessSession = sessionFactory.openStatelessSession(session.connection());
+        ScrollableResults rows = null;
+        try {
+            rows = statelessSession.createQuery(query)
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            while (rows.next()) {
+                consumer.accept(rows.get());
+            }
+        } finally {
+            if (rows != null) {
+                rows.close();
+            }
+            statelessSession.close();
+        }
+    }
+}
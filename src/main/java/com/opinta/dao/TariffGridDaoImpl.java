@@ -15,6 +15,7 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 public class TariffGridDaoImpl implements TariffGridDao {
+    private static final String QUERY_CACHE_REGION = "query.tariffGrid";
     private final SessionFactory sessionFactory;
 
     @Autowired
@@ -28,6 +29,8 @@ public class TariffGridDaoImpl implements TariffGridDao {
         Session session = sessionFactory.getCurrentSession();
         return session.createCriteria(TariffGrid.class)
                 .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
+                .setCacheable(true)
+                .setCacheRegion(QUERY_CACHE_REGION)
                 .list();
     }
 
@@ -67,6 +70,8 @@ public class TariffGridDaoImpl implements TariffGridDao {
                         Restrictions.eq("w2wVariation", w2wVariation)))
                 .addOrder(Order.asc(id))
                 .setMaxResults(1)
+                .setCacheable(true)
+                .setCacheRegion(QUERY_CACHE_REGION)
                 .uniqueResult();
     }
 
@@ -78,6 +83,8 @@ public class TariffGridDaoImpl implements TariffGridDao {
                 .add(Restrictions.eq("w2wVariation", w2wVariation))
                 .addOrder(Order.desc(id))
                 .setMaxResults(1)
+                .setCacheable(true)
+                .setCacheRegion(QUERY_CACHE_REGION)
                 .uniqueResult();
     }
 }
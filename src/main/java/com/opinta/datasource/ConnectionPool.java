@@ -0,0 +1,15 @@
+package com.opinta.datasource;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.dbcp2.PoolableConnection;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+
+/**
+ * Dbcp pool that tells how many threads are blocked waiting for a connection to be returned
+ */
+class ConnectionPool extends BasicDataSource {
+    int getNumWaiters() {
+        GenericObjectPool<PoolableConnection> connectionPool = getConnectionPool();
+        return connectionPool == null ? 0 : connectionPool.getNumWaiters();
+    }
+}
@@ -0,0 +1,52 @@
+package com.opinta.datasource;
+
+import org.springframework.core.env.Environment;
+
+/**
+ * Builds the instrumented connection pools from the jdbc properties under a common prefix,
+ * so the application and the integration tests configure their pools the same way
+ */
+public class ConnectionPoolFactory {
+    private final Environment environment;
+    private final String prefix;
+
+    /**
+     * @param prefix of the driver and pool properties, like jdbc for jdbc.driverClassName and jdbc.pool.maxTotal
+     */
+    public ConnectionPoolFactory(Environment environment, String prefix) {
+        this.environment = environment;
+        this.prefix = prefix;
+    }
+
+    /**
+     * @param connectionPrefix prefix of the url, username and password of the database to connect to
+     */
+    public InstrumentedDataSource create(String connectionPrefix, boolean readOnly) {
+        ConnectionPool pool = new ConnectionPool();
+        pool.setDriverClassName(environment.getRequiredProperty(prefix + ".driverClassName"));
+        pool.setUrl(environment.getRequiredProperty(connectionPrefix + ".url"));
+        pool.setUsername(environment.getRequiredProperty(connectionPrefix + ".username"));
+        pool.setPassword(environment.getRequiredProperty(connectionPrefix + ".password"));
+        pool.setDefaultReadOnly(readOnly);
+        int minIdle = getPoolProperty("minIdle", Integer.class);
+        int maxTotal = getPoolProperty("maxTotal", Integer.class);
+        pool.setInitialSize(minIdle);
+        pool.setMinIdle(minIdle);
+        pool.setMaxIdle(maxTotal);
+        pool.setMaxTotal(maxTotal);
+        pool.setMaxWaitMillis(getPoolProperty("maxWaitMillis", Long.class));
+        // connections still in use aren't abandoned, the timeout only reclaims ones that were never closed
+        pool.setAbandonedUsageTracking(true);
+        pool.setLogAbandoned(true);
+        pool.setRemoveAbandonedOnMaintenance(true);
+        pool.setRemoveAbandonedTimeout(getPoolProperty("abandonedTimeoutSeconds", Integer.class));
+        pool.setTimeBetweenEvictionRunsMillis(getPoolProperty("maintenanceIntervalMillis", Long.class));
+        pool.setPoolPreparedStatements(true);
+        pool.setMaxOpenPreparedStatements(getPoolProperty("maxOpenPreparedStatements", Integer.class));
+        return new InstrumentedDataSource(pool);
+    }
+
+    private <T> T getPoolProperty(String name, Class<T> type) {
+        return environment.getRequiredProperty(prefix + ".pool." + name, type);
+    }
+}
@@ -0,0 +1,72 @@
+package com.opinta.datasource;
+
+import com.opinta.dto.DataSourceStatisticsDto;
+import com.opinta.metrics.LatencyHistogram;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Connection pool wrapper that records how long threads wait for a connection and how often they don't get one
+ */
+@Slf4j
+public class InstrumentedDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final LongAdder acquisitionFailures = new LongAdder();
+    private final LatencyHistogram acquisitionTime = new LatencyHistogram();
+
+    InstrumentedDataSource(ConnectionPool pool) {
+        super(pool);
+        this.pool = pool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return acquire(pool::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return acquire(() -> pool.getConnection(username, password));
+    }
+
+    private Connection acquire(ConnectionSupplier supplier) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } catch (SQLException e) {
+            acquisitionFailures.increment();
+            log.warn("Can't acquire connection from pool: active {}, idle {}, waiting {}",
+                    pool.getNumActive(), pool.getNumIdle(), pool.getNumWaiters());
+            throw e;
+        } finally {
+            acquisitionTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public DataSourceStatisticsDto getStatistics() {
+        DataSourceStatisticsDto statistics = new DataSourceStatisticsDto();
+        statistics.setActive(pool.getNumActive());
+        statistics.setIdle(pool.getNumIdle());
+        statistics.setWaiting(pool.getNumWaiters());
+        statistics.setMinIdle(pool.getMinIdle());
+        statistics.setMaxTotal(pool.getMaxTotal());
+        statistics.setAcquisitionFailures(acquisitionFailures.sum());
+        statistics.setAcquisitionTime(acquisitionTime.snapshot());
+        return statistics;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        log.info("Closing connection pool");
+        pool.close();
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+}
@@ -0,0 +1,27 @@
+package com.opinta.datasource;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.springframework.orm.hibernate4.HibernateTransactionManager;
+import org.springframework.orm.hibernate4.SessionHolder;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs read-only transactions with a session that is never flushed and loads entities as read-only,
+ * so Hibernate neither keeps snapshots of loaded entities nor dirty checks them on commit
+ */
+public class ReadOnlyAwareTransactionManager extends HibernateTransactionManager {
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, definition);
+        if (definition.isReadOnly()) {
+            SessionHolder sessionHolder = (SessionHolder) TransactionSynchronizationManager.getResource(
+                    getSessionFactory());
+            Session session = sessionHolder.getSession();
+            session.setFlushMode(FlushMode.MANUAL);
+            session.setDefaultReadOnly(true);
+        }
+    }
+}
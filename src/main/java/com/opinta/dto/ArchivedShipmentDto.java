@@ -0,0 +1,21 @@
+package com.opinta.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import java.util.Date;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Shipment with its tracking history as stored in the archive, the id goes first so a record
+ * is found in its block without parsing the others
+ */
+@Getter
+@Setter
+@JsonPropertyOrder({"id", "deliveredAt", "shipment", "tracking"})
+public class ArchivedShipmentDto {
+    private long id;
+    private Date deliveredAt;
+    private ShipmentDto shipment;
+    private List<ShipmentTrackingDetailDto> tracking;
+}
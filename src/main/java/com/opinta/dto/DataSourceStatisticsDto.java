@@ -0,0 +1,16 @@
+package com.opinta.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class DataSourceStatisticsDto {
+    private int active;
+    private int idle;
+    private int waiting;
+    private int minIdle;
+    private int maxTotal;
+    private long acquisitionFailures;
+    private HistogramDto acquisitionTime;
+}
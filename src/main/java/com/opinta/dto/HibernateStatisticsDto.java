@@ -0,0 +1,30 @@
+package com.opinta.dto;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class HibernateStatisticsDto {
+    private long queryExecutionCount;
+    private long queryExecutionMaxTimeMillis;
+    private String queryExecutionMaxTimeQuery;
+    private long entityLoadCount;
+    private long entityFetchCount;
+    private long entityInsertCount;
+    private long entityUpdateCount;
+    private long entityDeleteCount;
+    private long collectionLoadCount;
+    private long collectionFetchCount;
+    private long secondLevelCacheHitCount;
+    private long secondLevelCacheMissCount;
+    private double secondLevelCacheHitRatio;
+    private long queryCacheHitCount;
+    private long queryCacheMissCount;
+    private long flushCount;
+    private long prepareStatementCount;
+    private long sessionOpenCount;
+    private long transactionCount;
+    private List<QueryStatisticsDto> slowestQueries;
+}
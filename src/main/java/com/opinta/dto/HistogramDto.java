@@ -0,0 +1,16 @@
+package com.opinta.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class HistogramDto {
+    private long count;
+    private long sumMicros;
+    private long maxMicros;
+    private long p50Micros;
+    private long p90Micros;
+    private long p99Micros;
+    private long p999Micros;
+}
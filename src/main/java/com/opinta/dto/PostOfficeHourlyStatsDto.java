@@ -0,0 +1,21 @@
+package com.opinta.dto;
+
+import com.opinta.entity.ShipmentStatus;
+import java.util.Date;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class PostOfficeHourlyStatsDto {
+    private long postOfficeId;
+    private ShipmentStatus shipmentStatus;
+    private Date hourStart;
+    private long scans;
+    private long dwellCount;
+    private long dwellSumMicros;
+    private long dwellMaxMicros;
+    private long dwellP50Micros;
+    private long dwellP90Micros;
+    private long dwellP99Micros;
+}
@@ -0,0 +1,15 @@
+package com.opinta.dto;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class PostOfficeStatsDto {
+    private long postOfficeId;
+    private int windowMinutes;
+    private long scans;
+    private double scansPerMinute;
+    private List<PostOfficeStatusStatsDto> statuses;
+}
@@ -0,0 +1,14 @@
+package com.opinta.dto;
+
+import com.opinta.entity.ShipmentStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class PostOfficeStatusStatsDto {
+    private ShipmentStatus shipmentStatus;
+    private long scans;
+    private double scansPerMinute;
+    private HistogramDto dwell;
+}
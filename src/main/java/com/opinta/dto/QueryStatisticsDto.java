@@ -0,0 +1,17 @@
+package com.opinta.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class QueryStatisticsDto {
+    private String query;
+    private long executionCount;
+    private long executionRowCount;
+    private long executionAvgTimeMillis;
+    private long executionMaxTimeMillis;
+    private long executionTotalTimeMillis;
+    private long cacheHitCount;
+    private long cacheMissCount;
+}
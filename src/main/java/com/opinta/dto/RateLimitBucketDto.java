@@ -0,0 +1,15 @@
+package com.opinta.dto;
+
+import com.opinta.ratelimit.EndpointClass;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class RateLimitBucketDto {
+    private long counterpartyId;
+    private EndpointClass endpointClass;
+    private double tokens;
+    private int burst;
+    private double refillPerSecond;
+}
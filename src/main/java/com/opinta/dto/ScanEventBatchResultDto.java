@@ -0,0 +1,22 @@
+package com.opinta.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Outcome of a scan event batch. Accepted events are stored when committed is true,
+ * otherwise they are only buffered and will be stored shortly.
+ * When reading the batch failed, error is set and failedIndex is the index of the event it failed at:
+ * the events before it are accepted or rejected as usual, the ones from it on haven't been read
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ScanEventBatchResultDto {
+    private int accepted;
+    private int rejected;
+    private boolean committed;
+    private String error;
+    private Integer failedIndex;
+}
@@ -0,0 +1,19 @@
+package com.opinta.dto;
+
+import com.opinta.entity.ShipmentStatus;
+import java.util.Date;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Scan event from a sorting center, the shipment is identified either by id or by barcode number
+ */
+@Getter
+@Setter
+public class ScanEventDto {
+    private Long shipmentId;
+    private String barcode;
+    private Long postOfficeId;
+    private ShipmentStatus shipmentStatus;
+    private Date date;
+}
@@ -0,0 +1,14 @@
+package com.opinta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShipmentArchiveResultDto {
+    private int archived;
+}
@@ -0,0 +1,23 @@
+package com.opinta.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Result of a single shipment of the batch: the saved shipment or the reason it was rejected
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ShipmentBatchResultDto {
+    private int index;
+    private ShipmentDto shipment;
+    private String error;
+
+    public ShipmentBatchResultDto(int index, ShipmentDto shipment, String error) {
+        this.index = index;
+        this.shipment = shipment;
+        this.error = error;
+    }
+}
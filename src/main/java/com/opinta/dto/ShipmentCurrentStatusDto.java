@@ -0,0 +1,15 @@
+package com.opinta.dto;
+
+import com.opinta.entity.ShipmentStatus;
+import java.util.Date;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ShipmentCurrentStatusDto {
+    private long shipmentId;
+    private long postOfficeId;
+    private ShipmentStatus shipmentStatus;
+    private Date date;
+}
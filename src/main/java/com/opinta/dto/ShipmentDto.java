@@ -15,6 +15,7 @@ import lombok.Setter;
 @Setter
 public class ShipmentDto {
     private long id;
+    private long version;
     private long senderId;
     private long recipientId;
     @EnumString(source = DeliveryType.class)
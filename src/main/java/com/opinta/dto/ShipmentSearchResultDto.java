@@ -0,0 +1,15 @@
+package com.opinta.dto;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ShipmentSearchResultDto {
+    private List<ShipmentDto> shipments;
+    /**
+     * Cursor of the next page, null on the last one
+     */
+    private String next;
+}
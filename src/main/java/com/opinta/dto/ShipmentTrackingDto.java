@@ -0,0 +1,22 @@
+package com.opinta.dto;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Tracking events of a single shipment ordered by date
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ShipmentTrackingDto {
+    private long shipmentId;
+    private List<ShipmentTrackingDetailDto> events;
+
+    public ShipmentTrackingDto(long shipmentId, List<ShipmentTrackingDetailDto> events) {
+        this.shipmentId = shipmentId;
+        this.events = events;
+    }
+}
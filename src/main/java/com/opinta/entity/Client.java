@@ -8,6 +8,8 @@ import javax.persistence.ManyToOne;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 @Entity
 @Data
@@ -19,9 +21,11 @@ public class Client {
     private String name;
     private String uniqueRegistrationNumber;
     @ManyToOne
+    @Fetch(FetchMode.SELECT)
     @JoinColumn(name = "address_id")
     private Address address;
     @ManyToOne
+    @Fetch(FetchMode.SELECT)
     @JoinColumn(name = "counterparty_id")
     private Counterparty counterparty;
 
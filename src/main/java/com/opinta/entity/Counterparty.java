@@ -8,6 +8,10 @@ import javax.validation.constraints.NotNull;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 
 /**
@@ -16,12 +20,14 @@ import lombok.NoArgsConstructor;
 @Entity
 @Data
 @NoArgsConstructor
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Counterparty {
     @Id
     @GeneratedValue
     private long id;
     private String name;
     @OneToOne
+    @Fetch(FetchMode.SELECT)
     @NotNull
     private PostcodePool postcodePool;
     private String description;
@@ -2,11 +2,14 @@ package com.opinta.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.ListIndexBase;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
 import javax.persistence.JoinColumn;
@@ -14,16 +17,23 @@ import javax.persistence.OneToMany;
 import javax.persistence.CascadeType;
 import javax.persistence.OrderColumn;
 import javax.persistence.FetchType;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Version;
 import java.math.BigDecimal;
 import java.util.List;
 
 @Entity
 @Data
 @NoArgsConstructor
+@EqualsAndHashCode(exclude = "shipment")
+@ToString(exclude = {"shipment", "parcelItems"})
 public class Parcel {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "parcel_seq")
+    @SequenceGenerator(name = "parcel_seq", sequenceName = "parcel_seq", allocationSize = 50)
     private long id;
+    @Version
+    private long version;
     private float weight;
     private float length;
     private float width;
@@ -36,7 +46,11 @@ public class Parcel {
     @JsonIgnore
     private Shipment shipment;
 
-    @OneToMany(cascade = CascadeType.ALL, targetEntity = ParcelItem.class, mappedBy = "parcel", fetch = FetchType.EAGER)
+    /**
+     * Items taken out of the list are deleted, so the list has to be changed in place rather than replaced
+     */
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, targetEntity = ParcelItem.class, mappedBy = "parcel",
+            fetch = FetchType.LAZY)
     @OrderColumn
     @ListIndexBase
     private List<ParcelItem> parcelItems;
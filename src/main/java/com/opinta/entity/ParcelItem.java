@@ -2,21 +2,28 @@ package com.opinta.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.ManyToOne;
 import javax.persistence.JoinColumn;
+import javax.persistence.SequenceGenerator;
 import java.math.BigDecimal;
 
 @Entity
 @Data
 @NoArgsConstructor
+@EqualsAndHashCode(exclude = "parcel")
+@ToString(exclude = "parcel")
 public class ParcelItem {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "parcel_item_seq")
+    @SequenceGenerator(name = "parcel_item_seq", sequenceName = "parcel_item_seq", allocationSize = 50)
     private long id;
     private String name;
     private int quantity;
@@ -10,19 +10,26 @@ import javax.persistence.OneToOne;
 import javax.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 @Entity
 @Data
 @NoArgsConstructor
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class PostOffice {
     @Id
     @GeneratedValue
     private long id;
     private String name;
     @ManyToOne
+    @Fetch(FetchMode.SELECT)
     @JoinColumn(name = "address_id")
     private Address address;
     @OneToOne(cascade = CascadeType.REMOVE)
+    @Fetch(FetchMode.SELECT)
     @NotNull
     private PostcodePool postcodePool;
 
@@ -0,0 +1,39 @@
+package com.opinta.entity;
+
+import java.util.Date;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Scans and dwell times of a post office in a status during an hour, rolled up from the in-memory counters.
+ * The post office is kept as a plain id, so the history outlives deleted post offices
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class PostOfficeHourlyStats {
+    @Id
+    @GeneratedValue
+    private long id;
+    @Column(name = "post_office_id")
+    private long postOfficeId;
+    @Enumerated(EnumType.STRING)
+    private ShipmentStatus shipmentStatus;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date hourStart;
+    private long scans;
+    private long dwellCount;
+    private long dwellSumMicros;
+    private long dwellMaxMicros;
+    private long dwellP50Micros;
+    private long dwellP90Micros;
+    private long dwellP99Micros;
+}
@@ -1,11 +1,13 @@
 package com.opinta.entity;
 
 import java.math.BigDecimal;
+import java.util.Date;
 import java.util.List;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
 import javax.persistence.JoinColumn;
@@ -15,18 +17,28 @@ import javax.persistence.Enumerated;
 import javax.persistence.EnumType;
 import javax.persistence.FetchType;
 import javax.persistence.OrderColumn;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.Version;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.ListIndexBase;
 
 @Entity
 @Data
 @NoArgsConstructor
+// logged on every save and update, so the clients and parcels are left out
+@ToString(exclude = {"sender", "recipient", "parcels"})
 public class Shipment {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shipment_seq")
+    @SequenceGenerator(name = "shipment_seq", sequenceName = "shipment_seq", allocationSize = 50)
     private long id;
+    @Version
+    private long version;
     @ManyToOne
     @JoinColumn(name = "sender_id")
     private Client sender;
@@ -41,8 +53,17 @@ public class Shipment {
     private BigDecimal postPay;
     private String description;
     private BigDecimal price;
+    /**
+     * Set when the shipment is inserted, only used to search shipments
+     */
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date created;
 
-    @OneToMany(cascade = CascadeType.ALL, targetEntity = Parcel.class, mappedBy = "shipment", fetch = FetchType.EAGER)
+    /**
+     * Parcels taken out of the list are deleted, so the list has to be changed in place rather than replaced
+     */
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, targetEntity = Parcel.class, mappedBy = "shipment",
+            fetch = FetchType.LAZY)
     @OrderColumn
     @ListIndexBase
     private List<Parcel> parcels;
@@ -0,0 +1,41 @@
+package com.opinta.entity;
+
+import java.util.Date;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+
+/**
+ * Latest tracking event of a shipment, kept up to date in the same transaction as the tracking events
+ * so the current location and status are read without scanning the tracking history
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class ShipmentCurrentStatus {
+    @Id
+    @Column(name = "shipment_id")
+    private long shipmentId;
+    @ManyToOne
+    @Fetch(FetchMode.SELECT)
+    @JoinColumn(name = "post_office_id")
+    private PostOffice postOffice;
+    @Enumerated(EnumType.STRING)
+    private ShipmentStatus shipmentStatus;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date date;
+
+    public ShipmentCurrentStatus(long shipmentId) {
+        this.shipmentId = shipmentId;
+    }
+}
@@ -12,6 +12,8 @@ import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 @Entity
 @Data
@@ -24,6 +26,7 @@ public class ShipmentTrackingDetail {
     @JoinColumn(name = "shipment_id")
     private Shipment shipment;
     @ManyToOne
+    @Fetch(FetchMode.SELECT)
     @JoinColumn(name = "post_office_id")
     private PostOffice postOffice;
     @Enumerated(EnumType.STRING)
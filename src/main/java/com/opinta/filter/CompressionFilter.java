@@ -0,0 +1,406 @@
+package com.opinta.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Compresses responses with gzip or deflate when the client accepts it.
+ * A response is buffered until it grows over the threshold, smaller ones are sent as they are because
+ * compressing them costs more than it saves. Only the configured content types are compressed, anything else
+ * is passed through without buffering. Server-sent events are never compressed, buffering would hold them back.
+ * Error responses are not compressed either. Once compression has started, Content-Encoding can't be taken back:
+ * resetting the buffer starts a new compressed body, and an error sent then has no error page of the container
+ */
+public class CompressionFilter extends OncePerRequestFilter {
+    private static final MediaType EVENT_STREAM = MediaType.parseMediaType("text/event-stream");
+    private final int minSize;
+    private final List<MediaType> mediaTypes;
+
+    public CompressionFilter(int minSize, List<MediaType> mediaTypes) {
+        this.minSize = minSize;
+        this.mediaTypes = mediaTypes;
+    }
+
+    // asynchronous responses are finished by the dispatch that completes them
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CompressingResponse compressingResponse = WebUtils.getNativeResponse(response, CompressingResponse.class);
+        if (compressingResponse == null) {
+            ContentEncoding encoding = ContentEncoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+            if (encoding == null || "HEAD".equals(request.getMethod())) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            compressingResponse = new CompressingResponse(response, encoding);
+        }
+        filterChain.doFilter(request, compressingResponse);
+        if (!isAsyncStarted(request)) {
+            compressingResponse.finish();
+        }
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return !EVENT_STREAM.includes(mediaType)
+                    && mediaTypes.stream().anyMatch(compressible -> compressible.includes(mediaType));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private enum ContentEncoding {
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        private final String token;
+
+        ContentEncoding(String token) {
+            this.token = token;
+        }
+
+        /**
+         * Prefers gzip, codings with q=0 are refused
+         */
+        private static ContentEncoding negotiate(String acceptEncoding) {
+            if (acceptEncoding == null) {
+                return null;
+            }
+            Set<String> accepted = new HashSet<>();
+            for (String coding : acceptEncoding.split(",")) {
+                String[] parts = coding.split(";");
+                if (parts.length > 1 && parts[1].replace(" ", "").matches("q=0(\\.0*)?")) {
+                    continue;
+                }
+                accepted.add(parts[0].trim().toLowerCase(Locale.ROOT));
+            }
+            if (accepted.contains(GZIP.token) || accepted.contains("*")) {
+                return GZIP;
+            }
+            return accepted.contains(DEFLATE.token) ? DEFLATE : null;
+        }
+
+        // sync flush, so flushing a compressed stream still sends everything written so far
+        private OutputStream compress(OutputStream outputStream) throws IOException {
+            if (this == GZIP) {
+                return new GZIPOutputStream(outputStream, true);
+            }
+            return new DeflaterOutputStream(outputStream, true);
+        }
+    }
+
+    private class CompressingResponse extends HttpServletResponseWrapper {
+        private final ContentEncoding encoding;
+        private CompressingOutputStream outputStream;
+        private PrintWriter writer;
+
+        private CompressingResponse(HttpServletResponse response, ContentEncoding encoding) {
+            super(response);
+            this.encoding = encoding;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("Writer has already been obtained");
+            }
+            return compressingOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (outputStream != null) {
+                    throw new IllegalStateException("Output stream has already been obtained");
+                }
+                writer = new PrintWriter(new OutputStreamWriter(compressingOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        private CompressingOutputStream compressingOutputStream() {
+            if (outputStream == null) {
+                outputStream = new CompressingOutputStream(this);
+            }
+            return outputStream;
+        }
+
+        // the length is only known once the response has been buffered or compressed
+        @Override
+        public void setContentLength(int length) {
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.addIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            } else if (outputStream != null) {
+                outputStream.flush();
+            }
+        }
+
+        // a committed response can't be reset, the wrapped response throws then and the stream is left as it is
+        @Override
+        public void resetBuffer() {
+            if (outputStream != null && !isCommitted()) {
+                outputStream.resetBuffer();
+            }
+            super.resetBuffer();
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            if (!sendCompressedError(status)) {
+                super.sendError(status);
+            }
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            if (!sendCompressedError(status)) {
+                super.sendError(status, message);
+            }
+        }
+
+        /**
+         * @return false when nothing has been compressed, the container sends the error page as it is then
+         */
+        private boolean sendCompressedError(int status) {
+            if (outputStream == null || !outputStream.compressing) {
+                if (outputStream != null && !isCommitted()) {
+                    outputStream.resetBuffer();
+                }
+                return false;
+            }
+            resetBuffer();
+            setStatus(status);
+            return true;
+        }
+
+        @Override
+        public void reset() {
+            resetBuffer();
+            super.reset();
+        }
+
+        private void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream != null) {
+                outputStream.finish();
+            }
+        }
+    }
+
+    private class CompressingOutputStream extends ServletOutputStream {
+        private final CompressingResponse response;
+        private ByteArrayOutputStream buffer;
+        private OutputStream target;
+        private DetachableOutputStream compressed;
+        private boolean compressing;
+        private boolean finished;
+
+        private CompressingOutputStream(CompressingResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (finished) {
+                throw new IOException("Response has already been finished");
+            }
+            if (target == null && buffer == null) {
+                start();
+            }
+            if (target == null && buffer.size() + length > minSize) {
+                startCompression();
+            }
+            if (target != null) {
+                target.write(bytes, offset, length);
+            } else {
+                buffer.write(bytes, offset, length);
+            }
+        }
+
+        private void start() throws IOException {
+            if (compressing) {
+                // the buffer has been reset after compression started
+                startCompressor();
+                return;
+            }
+            if (response.containsHeader(HttpHeaders.CONTENT_ENCODING) || !isCompressible(response.getContentType())
+                    || response.getStatus() >= HttpServletResponse.SC_BAD_REQUEST) {
+                target = response.getResponse().getOutputStream();
+                return;
+            }
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            buffer = new ByteArrayOutputStream(minSize);
+        }
+
+        private void startCompression() throws IOException {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, response.encoding.token);
+            compressing = true;
+            startCompressor();
+            buffer.writeTo(target);
+            buffer = null;
+        }
+
+        private void startCompressor() throws IOException {
+            compressed = new DetachableOutputStream(response.getResponse().getOutputStream());
+            target = response.encoding.compress(compressed);
+        }
+
+        // a partly buffered response stays buffered, it may still turn out to be too small to compress
+        @Override
+        public void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        // the compressed bytes go with the buffer of the response, the compressor is closed without writing
+        // the rest of them and the next write starts a new compressed body
+        private void resetBuffer() {
+            if (buffer != null) {
+                buffer.reset();
+            } else if (compressing && target != null) {
+                compressed.detached = true;
+                try {
+                    target.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                target = null;
+            }
+        }
+
+        private void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (buffer != null) {
+                if (buffer.size() > 0) {
+                    response.getResponse().setContentLength(buffer.size());
+                    buffer.writeTo(response.getResponse().getOutputStream());
+                }
+                buffer = null;
+                return;
+            }
+            if (target == null && compressing) {
+                // an empty body still has to be a complete compressed stream
+                startCompressor();
+            }
+            if (target != null) {
+                // also releases the native memory of the deflater
+                target.close();
+            }
+        }
+    }
+
+    private static class DetachableOutputStream extends FilterOutputStream {
+        private boolean detached;
+
+        private DetachableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!detached) {
+                out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!detached) {
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!detached) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!detached) {
+                out.close();
+            }
+        }
+    }
+}
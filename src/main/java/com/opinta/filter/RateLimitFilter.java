@@ -0,0 +1,64 @@
+package com.opinta.filter;
+
+import com.opinta.ratelimit.EndpointClass;
+import com.opinta.service.RateLimitService;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import static java.lang.String.format;
+
+/**
+ * Admits requests of a counterparty while its bucket for the endpoint class has tokens, otherwise answers
+ * 429 with the seconds to wait in Retry-After. The counterparty is named by the X-Counterparty-Id header,
+ * requests without it share the buckets of the anonymous counterparty
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+    public static final String COUNTERPARTY_HEADER = "X-Counterparty-Id";
+
+    private final RateLimitService rateLimitService;
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public RateLimitFilter(RateLimitService rateLimitService) {
+        this.rateLimitService = rateLimitService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String counterparty = request.getHeader(COUNTERPARTY_HEADER);
+        EndpointClass endpointClass = EndpointClass.of(request.getMethod(),
+                urlPathHelper.getPathWithinApplication(request));
+        if (endpointClass == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long counterpartyId = RateLimitService.ANONYMOUS_COUNTERPARTY_ID;
+        if (counterparty != null) {
+            try {
+                counterpartyId = Long.parseLong(counterparty.trim());
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                        format("Invalid counterparty id %s", counterparty));
+                return;
+            }
+        }
+        long waitNanos = rateLimitService.tryAcquire(counterpartyId, endpointClass);
+        if (waitNanos > 0) {
+            long retryAfterSeconds = (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), counterparty == null
+                    ? format("Too many anonymous %s requests", endpointClass)
+                    : format("Too many %s requests of counterparty %s", endpointClass, counterparty));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
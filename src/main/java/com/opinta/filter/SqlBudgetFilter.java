@@ -0,0 +1,94 @@
+package com.opinta.filter;
+
+import com.opinta.metrics.SqlStatementCounter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static java.lang.String.format;
+
+/**
+ * Counts the sql statements of every request and checks them against the budget of its route, so a lazy
+ * association or an eager mapping that turns into N+1 selects shows up as soon as it is introduced.
+ * An exceeded budget is logged, or fails the request where failing is switched on, as it is in tests.
+ * Only statements of the servlet threads are counted, the ones run by an async executor are not
+ */
+@Slf4j
+public class SqlBudgetFilter extends OncePerRequestFilter {
+    private static final String COUNT_ATTRIBUTE = SqlBudgetFilter.class.getName() + ".count";
+
+    private final SqlStatementCounter sqlStatementCounter;
+    private final int defaultBudget;
+    private final Map<String, Integer> budgets;
+    private final boolean failOnExceed;
+
+    /**
+     * @param budgets comma separated budgets of routes like {@code GET /shipments/{id}=5},
+     * routes that aren't listed get the default budget
+     */
+    public SqlBudgetFilter(SqlStatementCounter sqlStatementCounter, int defaultBudget, String budgets,
+                           boolean failOnExceed) {
+        this.sqlStatementCounter = sqlStatementCounter;
+        this.defaultBudget = defaultBudget;
+        this.budgets = parseBudgets(budgets);
+        this.failOnExceed = failOnExceed;
+    }
+
+    // the statements of an asynchronous request add up over its dispatches
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        sqlStatementCounter.start();
+        int count;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Integer previousCount = (Integer) request.getAttribute(COUNT_ATTRIBUTE);
+            count = sqlStatementCounter.stop() + (previousCount == null ? 0 : previousCount);
+            request.setAttribute(COUNT_ATTRIBUTE, count);
+        }
+        if (isAsyncStarted(request)) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            return;
+        }
+        String route = request.getMethod() + ' ' + pattern;
+        int budget = budgets.getOrDefault(route, defaultBudget);
+        if (count > budget) {
+            String message = format("%s ran %d sql statements, its budget is %d", route, count, budget);
+            if (failOnExceed) {
+                throw new IllegalStateException(message);
+            }
+            log.warn(message);
+        }
+    }
+
+    private static Map<String, Integer> parseBudgets(String budgets) {
+        Map<String, Integer> parsed = new HashMap<>();
+        for (String budget : budgets.split(",")) {
+            if (budget.trim().isEmpty()) {
+                continue;
+            }
+            int separator = budget.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException(format("Invalid sql budget %s", budget));
+            }
+            parsed.put(budget.substring(0, separator).trim(), Integer.valueOf(budget.substring(separator + 1).trim()));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,168 @@
+package com.opinta.logging;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+
+/**
+ * Console appender that hands events over to a writer thread of its own through a bounded queue, so the threads
+ * that log never wait for the console. When the queue is full the event is dropped and counted, the number of
+ * dropped events is logged as soon as the queue has room again. Whatever is queued is written out when the
+ * appender is closed or the jvm shuts down
+ */
+public class AsyncConsoleAppender extends AppenderSkeleton {
+    private static final String SYSTEM_ERR = "System.err";
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private int bufferSize = 8192;
+    private String target = "System.out";
+    private BlockingQueue<LoggingEvent> queue;
+    private Thread writerThread;
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean stopped;
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void activateOptions() {
+        queue = new ArrayBlockingQueue<>(bufferSize);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                SYSTEM_ERR.equalsIgnoreCase(target) ? System.err : System.out, StandardCharsets.UTF_8));
+        writerThread = new Thread(() -> write(writer), "log-writer-" + getName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "log-writer-shutdown-" + getName()));
+    }
+
+    /**
+     * Unlike the skeleton this isn't synchronized, the queue is all the logging threads share
+     */
+    @Override
+    public void doAppend(LoggingEvent event) {
+        if (!isAsSevereAsThreshold(event.getLevel())) {
+            return;
+        }
+        for (Filter filter = getFirstFilter(); filter != null; filter = filter.getNext()) {
+            int decision = filter.decide(event);
+            if (decision == Filter.DENY) {
+                return;
+            }
+            if (decision == Filter.ACCEPT) {
+                break;
+            }
+        }
+        append(event);
+    }
+
+    @Override
+    protected void append(LoggingEvent event) {
+        if (queue == null || stopped) {
+            return;
+        }
+        // everything that depends on the logging thread is taken now, the event is formatted by the writer
+        event.getThreadName();
+        event.getNDC();
+        event.getMDCCopy();
+        event.getRenderedMessage();
+        event.getThrowableStrRep();
+        if (!queue.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    private void write(Writer writer) {
+        long reportedDrops = 0;
+        while (!stopped || !queue.isEmpty()) {
+            try {
+                LoggingEvent event = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    writeEvent(writer, event);
+                }
+                long drops = dropped.sum();
+                if (drops > reportedDrops) {
+                    writeEvent(writer, new LoggingEvent(AsyncConsoleAppender.class.getName(),
+                            Logger.getLogger(AsyncConsoleAppender.class), Level.WARN,
+                            String.format("Dropped %d log events, the queue of %d was full",
+                                    drops - reportedDrops, bufferSize), null));
+                    reportedDrops = drops;
+                }
+                if (queue.isEmpty()) {
+                    writer.flush();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                errorHandler.error("Can't write log event", e, 0);
+            }
+        }
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            errorHandler.error("Can't flush log events", e, 0);
+        }
+    }
+
+    private void writeEvent(Writer writer, LoggingEvent event) throws IOException {
+        writer.write(layout.format(event));
+        if (layout.ignoresThrowable()) {
+            String[] throwable = event.getThrowableStrRep();
+            if (throwable != null) {
+                for (String line : throwable) {
+                    writer.write(line);
+                    writer.write(System.lineSeparator());
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        stopped = true;
+        if (writerThread != null && writerThread != Thread.currentThread()) {
+            try {
+                writerThread.join(CLOSE_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresLayout() {
+        return true;
+    }
+}
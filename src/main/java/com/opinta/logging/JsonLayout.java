@@ -0,0 +1,59 @@
+package com.opinta.logging;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import org.apache.log4j.Layout;
+import org.apache.log4j.spi.LoggingEvent;
+
+/**
+ * Writes every event as a json object on a line of its own:
+ * time, level, logger, thread, message and, when there are any, the mdc values and the stack trace
+ */
+public class JsonLayout extends Layout {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Override
+    public String format(LoggingEvent event) {
+        StringWriter line = new StringWriter(256);
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(line)) {
+            json.writeStartObject();
+            json.writeStringField("time", DateTimeFormatter.ISO_INSTANT.format(
+                    Instant.ofEpochMilli(event.getTimeStamp())));
+            json.writeStringField("level", event.getLevel().toString());
+            json.writeStringField("logger", event.getLoggerName());
+            json.writeStringField("thread", event.getThreadName());
+            json.writeStringField("message", event.getRenderedMessage());
+            Map<?, ?> mdc = event.getProperties();
+            if (!mdc.isEmpty()) {
+                json.writeObjectFieldStart("mdc");
+                for (Map.Entry<?, ?> entry : mdc.entrySet()) {
+                    json.writeStringField(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+                }
+                json.writeEndObject();
+            }
+            String[] throwable = event.getThrowableStrRep();
+            if (throwable != null) {
+                json.writeStringField("exception", String.join("\n", throwable));
+            }
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return line.append(LINE_SEP).toString();
+    }
+
+    @Override
+    public boolean ignoresThrowable() {
+        return false;
+    }
+
+    @Override
+    public void activateOptions() {
+    }
+}
@@ -0,0 +1,30 @@
+package com.opinta.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets one of every {@code rate} events of a hot path through to the log, so the path stays visible
+ * without logging every call
+ */
+public class LogSampler {
+    private final int rate;
+    private final AtomicLong events = new AtomicLong();
+
+    public LogSampler(int rate) {
+        if (rate < 1) {
+            throw new IllegalArgumentException(String.format("Sample rate %d should be positive", rate));
+        }
+        this.rate = rate;
+    }
+
+    /**
+     * @return true for the first event and then for every rate-th one
+     */
+    public boolean sample() {
+        return events.getAndIncrement() % rate == 0;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+}
@@ -0,0 +1,22 @@
+package com.opinta.mapper;
+
+import org.mapstruct.BeanMapping;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.NullValueCheckStrategy;
+import org.mapstruct.NullValuePropertyMappingStrategy;
+
+/**
+ * Generated copier of the entity state used by the update paths instead of reflective property copying.
+ * The id of the target is never overwritten and null properties of the source leave the target value as is.
+ * Collections are refilled in place, so Hibernate keeps tracking the collection instance it has loaded
+ *
+ * @param <ENTITY> type of Entity
+ */
+public interface MergeMapper<ENTITY> {
+
+    @BeanMapping(nullValueCheckStrategy = NullValueCheckStrategy.ALWAYS,
+            nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "id", ignore = true)
+    void merge(ENTITY source, @MappingTarget ENTITY target);
+}
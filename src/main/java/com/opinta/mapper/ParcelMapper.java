@@ -0,0 +1,34 @@
+package com.opinta.mapper;
+
+import com.opinta.entity.Parcel;
+import org.mapstruct.AfterMapping;
+import org.mapstruct.BeanMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.Mappings;
+import org.mapstruct.NullValueCheckStrategy;
+import org.mapstruct.NullValuePropertyMappingStrategy;
+
+@Mapper(componentModel = "spring")
+public interface ParcelMapper extends MergeMapper<Parcel> {
+
+    /**
+     * The version is only changed by Hibernate, the expected one is passed with If-Match
+     */
+    @Override
+    @BeanMapping(nullValueCheckStrategy = NullValueCheckStrategy.ALWAYS,
+            nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mappings({
+            @Mapping(target = "id", ignore = true),
+            @Mapping(target = "version", ignore = true)
+    })
+    void merge(Parcel source, @MappingTarget Parcel target);
+
+    @AfterMapping
+    default void linkParcelItems(Parcel source, @MappingTarget Parcel target) {
+        if (target.getParcelItems() != null) {
+            target.getParcelItems().forEach(parcelItem -> parcelItem.setParcel(target));
+        }
+    }
+}
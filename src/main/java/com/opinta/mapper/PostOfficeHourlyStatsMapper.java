@@ -0,0 +1,17 @@
+package com.opinta.mapper;
+
+import com.opinta.dto.PostOfficeHourlyStatsDto;
+import com.opinta.entity.PostOfficeHourlyStats;
+import java.util.List;
+import org.mapstruct.Mapper;
+
+/**
+ * Hourly stats are rolled up from tracking events and never created from dto
+ */
+@Mapper(componentModel = "spring")
+public interface PostOfficeHourlyStatsMapper {
+
+    PostOfficeHourlyStatsDto toDto(PostOfficeHourlyStats postOfficeHourlyStats);
+
+    List<PostOfficeHourlyStatsDto> toDto(List<PostOfficeHourlyStats> postOfficeHourlyStats);
+}
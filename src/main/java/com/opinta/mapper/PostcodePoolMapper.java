@@ -2,8 +2,26 @@ package com.opinta.mapper;
 
 import com.opinta.dto.PostcodePoolDto;
 import com.opinta.entity.PostcodePool;
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.Mappings;
+import org.mapstruct.NullValueCheckStrategy;
+import org.mapstruct.NullValuePropertyMappingStrategy;
 
 @Mapper(componentModel = "spring")
 public interface PostcodePoolMapper extends BaseMapper<PostcodePoolDto, PostcodePool> {
+
+    /**
+     * Barcode inner numbers are only added through the barcode endpoints and shipment creation
+     */
+    @Override
+    @BeanMapping(nullValueCheckStrategy = NullValueCheckStrategy.ALWAYS,
+            nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mappings({
+            @Mapping(target = "id", ignore = true),
+            @Mapping(target = "barcodeInnerNumbers", ignore = true)
+    })
+    void merge(PostcodePool source, @MappingTarget PostcodePool target);
 }
@@ -0,0 +1,19 @@
+package com.opinta.mapper;
+
+import com.opinta.dto.ShipmentCurrentStatusDto;
+import com.opinta.entity.ShipmentCurrentStatus;
+import java.util.List;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Current statuses are derived from tracking events and never created from dto
+ */
+@Mapper(componentModel = "spring")
+public interface ShipmentCurrentStatusMapper {
+
+    @Mapping(source = "postOffice.id", target = "postOfficeId")
+    ShipmentCurrentStatusDto toDto(ShipmentCurrentStatus shipmentCurrentStatus);
+
+    List<ShipmentCurrentStatusDto> toDto(List<ShipmentCurrentStatus> shipmentCurrentStatuses);
+}
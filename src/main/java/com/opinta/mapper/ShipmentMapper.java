@@ -3,9 +3,14 @@ package com.opinta.mapper;
 import com.opinta.dto.ShipmentDto;
 import com.opinta.entity.Client;
 import com.opinta.entity.Shipment;
+import org.mapstruct.AfterMapping;
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 import org.mapstruct.Mappings;
+import org.mapstruct.NullValueCheckStrategy;
+import org.mapstruct.NullValuePropertyMappingStrategy;
 
 @Mapper(componentModel = "spring")
 public interface ShipmentMapper extends BaseMapper<ShipmentDto, Shipment> {
@@ -20,10 +25,33 @@ public interface ShipmentMapper extends BaseMapper<ShipmentDto, Shipment> {
     @Override
     @Mappings({
             @Mapping(target = "sender", expression = "java(createClientById(shipmentDto.getSenderId()))"),
-            @Mapping(target = "recipient", expression = "java(createClientById(shipmentDto.getRecipientId()))")
+            @Mapping(target = "recipient", expression = "java(createClientById(shipmentDto.getRecipientId()))"),
+            @Mapping(target = "created", ignore = true)
     })
     Shipment toEntity(ShipmentDto shipmentDto);
 
+    /**
+     * The version is only changed by Hibernate, the expected one is passed with If-Match.
+     * Parcels of the source replace those of the target in place, the replaced ones are deleted as orphans.
+     * Without parcels in the source the target keeps its own
+     */
+    @Override
+    @BeanMapping(nullValueCheckStrategy = NullValueCheckStrategy.ALWAYS,
+            nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mappings({
+            @Mapping(target = "id", ignore = true),
+            @Mapping(target = "version", ignore = true),
+            @Mapping(target = "created", ignore = true)
+    })
+    void merge(Shipment source, @MappingTarget Shipment target);
+
+    @AfterMapping
+    default void linkParcels(Shipment source, @MappingTarget Shipment target) {
+        if (target.getParcels() != null) {
+            target.getParcels().forEach(parcel -> parcel.setShipment(target));
+        }
+    }
+
     default Client createClientById(long id) {
         Client client = new Client();
         client.setId(id);
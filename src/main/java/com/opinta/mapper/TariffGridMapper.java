@@ -0,0 +1,8 @@
+package com.opinta.mapper;
+
+import com.opinta.entity.TariffGrid;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface TariffGridMapper extends MergeMapper<TariffGrid> {
+}
@@ -0,0 +1,16 @@
+package com.opinta.metrics;
+
+import com.opinta.entity.ShipmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Time a shipment has spent at a post office in a status before its next tracking event
+ */
+@Getter
+@AllArgsConstructor
+public class DwellSample {
+    private final long postOfficeId;
+    private final ShipmentStatus shipmentStatus;
+    private final long dwellMillis;
+}
@@ -0,0 +1,145 @@
+package com.opinta.metrics;
+
+import com.opinta.dto.HistogramDto;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency, throughput and errors of every route and the latency of named service operations,
+ * written out in the Prometheus text format. Recording only touches atomic counters, so it is cheap
+ * enough for every request. Quantiles are computed over the last one to two quantile windows, so they follow
+ * a change of latency within minutes; count and sum are kept since the start and rates are left to Prometheus
+ */
+public class MetricRegistry {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double MICROS_PER_SECOND = TimeUnit.SECONDS.toMicros(1);
+
+    private final Map<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+    private final Map<String, RotatingLatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final long quantileWindowMillis;
+
+    public MetricRegistry(long quantileWindowMillis) {
+        this.quantileWindowMillis = quantileWindowMillis;
+    }
+
+    /**
+     * @param route pattern of the mapping that handled the request, never the actual path,
+     * so the number of routes stays bounded
+     */
+    public void recordRequest(String method, String route, int status, boolean failed, long durationNanos) {
+        String key = method + ' ' + route;
+        RouteMetrics routeMetrics = routes.get(key);
+        if (routeMetrics == null) {
+            routeMetrics = routes.computeIfAbsent(key, name -> new RouteMetrics(method, route, quantileWindowMillis));
+        }
+        routeMetrics.latency.record(durationNanos, TimeUnit.NANOSECONDS);
+        routeMetrics.statuses[Math.min(Math.max(status / 100, 1), 5) - 1].increment();
+        if (failed || status >= 500) {
+            routeMetrics.errors.increment();
+        }
+    }
+
+    /**
+     * Timers are meant to be looked up once and kept by the code they time
+     */
+    public RotatingLatencyHistogram timer(String operation) {
+        return timers.computeIfAbsent(operation,
+                name -> new RotatingLatencyHistogram(quantileWindowMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Exposes a counter kept elsewhere, it is only read when the metrics are written
+     */
+    public void registerCounter(String name, String help, LongSupplier value) {
+        counters.put(name, new Counter(help, value));
+    }
+
+    public String toPrometheusText() {
+        StringBuilder text = new StringBuilder();
+        Map<String, RouteMetrics> sortedRoutes = new TreeMap<>(routes);
+
+        text.append("# HELP http_request_duration_seconds Latency of requests by route\n");
+        text.append("# TYPE http_request_duration_seconds summary\n");
+        sortedRoutes.values().forEach(routeMetrics -> appendSummary(text, "http_request_duration_seconds",
+                routeMetrics.labels, routeMetrics.latency.snapshot()));
+
+        text.append("# HELP http_requests_total Requests by route and status class\n");
+        text.append("# TYPE http_requests_total counter\n");
+        sortedRoutes.values().forEach(routeMetrics -> {
+            for (int i = 0; i < routeMetrics.statuses.length; i++) {
+                long count = routeMetrics.statuses[i].sum();
+                if (count > 0) {
+                    appendSample(text, "http_requests_total",
+                            routeMetrics.labels + ",status=\"" + (i + 1) + "xx\"", count);
+                }
+            }
+        });
+
+        text.append("# HELP http_request_errors_total Requests answered with 5xx or failed with an exception\n");
+        text.append("# TYPE http_request_errors_total counter\n");
+        sortedRoutes.values().forEach(routeMetrics ->
+                appendSample(text, "http_request_errors_total", routeMetrics.labels, routeMetrics.errors.sum()));
+
+        text.append("# HELP service_operation_duration_seconds Latency of service operations\n");
+        text.append("# TYPE service_operation_duration_seconds summary\n");
+        new TreeMap<>(timers).forEach((operation, timer) -> appendSummary(text, "service_operation_duration_seconds",
+                "operation=\"" + escape(operation) + "\"", timer.snapshot()));
+
+        new TreeMap<>(counters).forEach((name, counter) -> {
+            text.append("# HELP ").append(name).append(' ').append(counter.help).append('\n');
+            text.append("# TYPE ").append(name).append(" counter\n");
+            text.append(name).append(' ').append(counter.value.getAsLong()).append('\n');
+        });
+        return text.toString();
+    }
+
+    private static void appendSummary(StringBuilder text, String name, String labels, HistogramDto histogram) {
+        long[] values = {histogram.getP50Micros(), histogram.getP90Micros(), histogram.getP99Micros(),
+                histogram.getP999Micros()};
+        for (int i = 0; i < QUANTILES.length; i++) {
+            appendSample(text, name, labels + ",quantile=\"" + QUANTILES[i] + "\"", values[i] / MICROS_PER_SECOND);
+        }
+        appendSample(text, name + "_sum", labels, histogram.getSumMicros() / MICROS_PER_SECOND);
+        appendSample(text, name + "_count", labels, histogram.getCount());
+    }
+
+    private static void appendSample(StringBuilder text, String name, String labels, Object value) {
+        text.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static class Counter {
+        private final String help;
+        private final LongSupplier value;
+
+        private Counter(String help, LongSupplier value) {
+            this.help = help;
+            this.value = value;
+        }
+    }
+
+    private static class RouteMetrics {
+        private final String labels;
+        private final RotatingLatencyHistogram latency;
+        // 1xx to 5xx
+        private final LongAdder[] statuses = new LongAdder[5];
+        private final LongAdder errors = new LongAdder();
+
+        private RouteMetrics(String method, String route, long quantileWindowMillis) {
+            this.labels = "method=\"" + escape(method) + "\",route=\"" + escape(route) + "\"";
+            this.latency = new RotatingLatencyHistogram(quantileWindowMillis, TimeUnit.MILLISECONDS);
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] = new LongAdder();
+            }
+        }
+    }
+}
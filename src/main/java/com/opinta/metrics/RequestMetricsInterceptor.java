@@ -0,0 +1,43 @@
+package com.opinta.metrics;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Records every handled request under the pattern of its mapping. An asynchronous request passes here
+ * once more when it is dispatched again, it is timed from its first dispatch to its completion
+ */
+public class RequestMetricsInterceptor extends HandlerInterceptorAdapter {
+    private static final String START_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".start";
+    private static final String UNMATCHED_ROUTE = "unmatched";
+
+    private final MetricRegistry metricRegistry;
+
+    public RequestMetricsInterceptor(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Long start = (Long) request.getAttribute(START_ATTRIBUTE);
+        if (start == null) {
+            return;
+        }
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // an exception nobody handled leaves the status as it was, the container answers it with 500
+        int status = ex == null ? response.getStatus() : HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        metricRegistry.recordRequest(request.getMethod(), route == null ? UNMATCHED_ROUTE : route.toString(),
+                status, ex != null, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,151 @@
+package com.opinta.metrics;
+
+import com.opinta.entity.ShipmentStatus;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scan counts and dwell times of every post office and shipment status in a ring of per-minute buckets.
+ * Recording only touches atomic counters, a slot of the ring is replaced by a new bucket when its minute
+ * comes round again, so the ring holds the last {@code minutes} minutes
+ */
+public class RollingPostOfficeStats {
+    private static final ShipmentStatus[] STATUSES = ShipmentStatus.values();
+
+    private final int minutes;
+    private final Map<Long, AtomicReferenceArray<MinuteBucket>> rings = new ConcurrentHashMap<>();
+
+    public RollingPostOfficeStats(int minutes) {
+        this.minutes = minutes;
+    }
+
+    public static long toMinute(long timeMillis) {
+        return TimeUnit.MILLISECONDS.toMinutes(timeMillis);
+    }
+
+    public void recordScan(long postOfficeId, ShipmentStatus status, long timeMillis) {
+        MinuteBucket bucket = bucket(postOfficeId, toMinute(timeMillis));
+        if (bucket != null) {
+            bucket.scans[status.ordinal()].increment();
+        }
+    }
+
+    public void recordDwell(long postOfficeId, ShipmentStatus status, long dwellMillis, long timeMillis) {
+        MinuteBucket bucket = bucket(postOfficeId, toMinute(timeMillis));
+        if (bucket != null) {
+            bucket.dwell(status).record(dwellMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Set<Long> getPostOfficeIds() {
+        return rings.keySet();
+    }
+
+    /**
+     * @return totals of the minutes from fromMinute inclusive to toMinute exclusive that are still in the ring,
+     * statuses without scans or dwell times are left out
+     */
+    public Map<ShipmentStatus, Totals> aggregate(long postOfficeId, long fromMinute, long toMinute) {
+        Map<ShipmentStatus, Totals> totals = new EnumMap<>(ShipmentStatus.class);
+        AtomicReferenceArray<MinuteBucket> ring = rings.get(postOfficeId);
+        if (ring == null) {
+            return totals;
+        }
+        for (int slot = 0; slot < ring.length(); slot++) {
+            MinuteBucket bucket = ring.get(slot);
+            if (bucket == null || bucket.minute < fromMinute || bucket.minute >= toMinute) {
+                continue;
+            }
+            for (ShipmentStatus status : STATUSES) {
+                long scans = bucket.scans[status.ordinal()].sum();
+                LatencyHistogram dwell = bucket.dwell.get(status.ordinal());
+                if (scans == 0 && dwell == null) {
+                    continue;
+                }
+                Totals statusTotals = totals.computeIfAbsent(status, key -> new Totals());
+                statusTotals.scans += scans;
+                if (dwell != null) {
+                    statusTotals.dwell.add(dwell);
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Forgets post offices without scans since the minute. A scan recorded while its post office is being
+     * evicted may be lost, which is acceptable for statistics
+     */
+    public void evictIdle(long sinceMinute) {
+        rings.values().removeIf(ring -> {
+            for (int slot = 0; slot < ring.length(); slot++) {
+                MinuteBucket bucket = ring.get(slot);
+                if (bucket != null && bucket.minute >= sinceMinute) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    private MinuteBucket bucket(long postOfficeId, long minute) {
+        AtomicReferenceArray<MinuteBucket> ring = rings.computeIfAbsent(postOfficeId,
+                key -> new AtomicReferenceArray<>(minutes));
+        int slot = (int) (minute % minutes);
+        while (true) {
+            MinuteBucket bucket = ring.get(slot);
+            if (bucket != null && bucket.minute == minute) {
+                return bucket;
+            }
+            if (bucket != null && bucket.minute > minute) {
+                // the minute has already left the ring
+                return null;
+            }
+            MinuteBucket next = new MinuteBucket(minute);
+            if (ring.compareAndSet(slot, bucket, next)) {
+                return next;
+            }
+        }
+    }
+
+    public static class Totals {
+        private long scans;
+        private final LatencyHistogram dwell = new LatencyHistogram();
+
+        public long getScans() {
+            return scans;
+        }
+
+        public LatencyHistogram getDwell() {
+            return dwell;
+        }
+    }
+
+    private static class MinuteBucket {
+        private final long minute;
+        private final LongAdder[] scans = new LongAdder[STATUSES.length];
+        // most post offices see a few statuses a minute, so histograms are only created when needed
+        private final AtomicReferenceArray<LatencyHistogram> dwell = new AtomicReferenceArray<>(STATUSES.length);
+
+        private MinuteBucket(long minute) {
+            this.minute = minute;
+            for (int i = 0; i < scans.length; i++) {
+                scans[i] = new LongAdder();
+            }
+        }
+
+        private LatencyHistogram dwell(ShipmentStatus status) {
+            LatencyHistogram histogram = dwell.get(status.ordinal());
+            if (histogram == null) {
+                dwell.compareAndSet(status.ordinal(), null, new LatencyHistogram());
+                histogram = dwell.get(status.ordinal());
+            }
+            return histogram;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.opinta.metrics;
+
+import com.opinta.dto.HistogramDto;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram whose percentiles cover only recent values: values go to the current histogram,
+ * which becomes the previous one after a window, so percentiles are taken over the last one to two windows.
+ * Count and sum are kept since the start, as Prometheus expects of a summary. Times are System.nanoTime values
+ */
+public class RotatingLatencyHistogram {
+    private final long windowNanos;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private volatile LatencyHistogram current = new LatencyHistogram();
+    private volatile LatencyHistogram previous = new LatencyHistogram();
+    private volatile long rotatedAt;
+
+    public RotatingLatencyHistogram(long window, TimeUnit unit) {
+        this(window, unit, System.nanoTime());
+    }
+
+    RotatingLatencyHistogram(long window, TimeUnit unit, long now) {
+        this.windowNanos = unit.toNanos(window);
+        this.rotatedAt = now;
+    }
+
+    public void record(long duration, TimeUnit unit) {
+        record(duration, unit, System.nanoTime());
+    }
+
+    public HistogramDto snapshot() {
+        return snapshot(System.nanoTime());
+    }
+
+    void record(long duration, TimeUnit unit, long now) {
+        rotateIfDue(now);
+        current.record(duration, unit);
+        count.increment();
+        sumMicros.add(Math.max(0, unit.toMicros(duration)));
+    }
+
+    /**
+     * @return percentiles and max of the recent values with the count and sum of all of them
+     */
+    HistogramDto snapshot(long now) {
+        rotateIfDue(now);
+        LatencyHistogram recent = new LatencyHistogram();
+        recent.add(previous);
+        recent.add(current);
+        HistogramDto histogramDto = recent.snapshot();
+        histogramDto.setCount(count.sum());
+        histogramDto.setSumMicros(sumMicros.sum());
+        return histogramDto;
+    }
+
+    private void rotateIfDue(long now) {
+        if (now - rotatedAt < windowNanos) {
+            return;
+        }
+        synchronized (this) {
+            long elapsed = now - rotatedAt;
+            if (elapsed < windowNanos) {
+                return;
+            }
+            // nothing recorded in the last window is still current when more than one has passed
+            previous = elapsed < 2 * windowNanos ? current : new LatencyHistogram();
+            current = new LatencyHistogram();
+            rotatedAt = now;
+        }
+    }
+}
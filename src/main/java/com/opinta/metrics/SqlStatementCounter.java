@@ -0,0 +1,34 @@
+package com.opinta.metrics;
+
+import org.hibernate.EmptyInterceptor;
+
+/**
+ * Counts the statements hibernate prepares on the current thread between {@link #start()} and {@link #stop()}.
+ * Statements of threads that haven't started counting are not counted, so the interceptor costs a thread local
+ * lookup per statement
+ */
+public class SqlStatementCounter extends EmptyInterceptor {
+    private final transient ThreadLocal<int[]> counts = new ThreadLocal<>();
+
+    public void start() {
+        counts.set(new int[1]);
+    }
+
+    /**
+     * @return statements prepared since {@link #start()} or 0 if counting hasn't been started
+     */
+    public int stop() {
+        int[] count = counts.get();
+        counts.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public String onPrepareStatement(String sql) {
+        int[] count = counts.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,156 @@
+package com.opinta.migration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Applies versioned sql scripts named {@code V<version>__<description>.sql} in version order.
+ * Every applied script is recorded in the schema_version table with its checksum, so each one runs once
+ * per database and a script that has been changed after it was applied stops the startup
+ */
+@Slf4j
+public class SchemaMigrator {
+    static final String HISTORY_TABLE = "schema_version";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private final DataSource dataSource;
+    private final String location;
+    private final boolean schemaRecreated;
+
+    /**
+     * @param dataSource writable data source the scripts are executed on
+     * @param location resource location of the scripts, e.g. classpath:db/migration
+     * @param schemaRecreated true when hibernate has just dropped and created the tables,
+     *                        so the history of the previous schema no longer applies
+     */
+    public SchemaMigrator(DataSource dataSource, String location, boolean schemaRecreated) {
+        this.dataSource = dataSource;
+        this.location = location;
+        this.schemaRecreated = schemaRecreated;
+    }
+
+    public void migrate() throws IOException, SQLException {
+        List<Migration> migrations = findMigrations();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                createHistoryTable(connection);
+                Map<Integer, Long> applied = getAppliedChecksums(connection);
+                for (Migration migration : migrations) {
+                    Long checksum = applied.get(migration.version);
+                    if (checksum == null) {
+                        apply(connection, migration);
+                    } else if (checksum != migration.checksum) {
+                        String name = migration.resource.getFilename();
+                        throw new IllegalStateException(String.format("Migration %s was changed after applying", name));
+                    }
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private List<Migration> findMigrations() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(location + "/V*__*.sql");
+        return Arrays.stream(resources)
+                .map(Migration::new)
+                .sorted(Comparator.comparingInt(migration -> migration.version))
+                .collect(Collectors.toList());
+    }
+
+    private void createHistoryTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (schemaRecreated) {
+                statement.execute("DROP TABLE " + HISTORY_TABLE + " IF EXISTS");
+            }
+            statement.execute("CREATE TABLE IF NOT EXISTS " + HISTORY_TABLE + " (version INTEGER PRIMARY KEY, "
+                    + "description VARCHAR(255) NOT NULL, checksum BIGINT NOT NULL, "
+                    + "installed_on TIMESTAMP NOT NULL, execution_millis BIGINT NOT NULL)");
+        }
+        connection.commit();
+    }
+
+    private Map<Integer, Long> getAppliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT version, checksum FROM " + HISTORY_TABLE)) {
+            while (resultSet.next()) {
+                applied.put(resultSet.getInt(1), resultSet.getLong(2));
+            }
+        }
+        return applied;
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        long start = System.currentTimeMillis();
+        try {
+            ScriptUtils.executeSqlScript(connection, migration.resource);
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO " + HISTORY_TABLE
+                    + " (version, description, checksum, installed_on, execution_millis) VALUES (?, ?, ?, ?, ?)")) {
+                statement.setInt(1, migration.version);
+                statement.setString(2, migration.description);
+                statement.setLong(3, migration.checksum);
+                statement.setTimestamp(4, new Timestamp(start));
+                statement.setLong(5, System.currentTimeMillis() - start);
+                statement.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            log.error("Migration {} failed", migration.resource.getFilename(), e);
+            throw e;
+        }
+        log.info("Applied migration {} in {} ms", migration.resource.getFilename(), System.currentTimeMillis() - start);
+    }
+
+    private static class Migration {
+        private final Resource resource;
+        private final int version;
+        private final String description;
+        private final long checksum;
+
+        private Migration(Resource resource) {
+            Matcher matcher = SCRIPT_NAME.matcher(resource.getFilename());
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException(String.format("Invalid migration name %s", resource.getFilename()));
+            }
+            this.resource = resource;
+            this.version = Integer.parseInt(matcher.group(1));
+            this.description = matcher.group(2).replace('_', ' ');
+            this.checksum = checksum(resource);
+        }
+
+        private static long checksum(Resource resource) {
+            try (InputStream inputStream = resource.getInputStream()) {
+                CRC32 crc32 = new CRC32();
+                crc32.update(StreamUtils.copyToByteArray(inputStream));
+                return crc32.getValue();
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Can't read migration %s", resource.getFilename()), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.opinta.ratelimit;
+
+/**
+ * Endpoints limited by buckets of their own, so a counterparty printing forms doesn't use up its writes
+ */
+public enum EndpointClass {
+    WRITE,
+    READ,
+    RENDER;
+
+    /**
+     * @param path path within the application
+     * @return class of the endpoint or null if it isn't limited, ops endpoints under /admin never are
+     */
+    public static EndpointClass of(String method, String path) {
+        if (path.startsWith("/admin/")) {
+            return null;
+        }
+        switch (method) {
+            case "GET":
+            case "HEAD":
+                return path.endsWith("-form") || path.endsWith("/export") ? RENDER : READ;
+            case "POST":
+            case "PUT":
+            case "PATCH":
+            case "DELETE":
+                return WRITE;
+            default:
+                return null;
+        }
+    }
+}
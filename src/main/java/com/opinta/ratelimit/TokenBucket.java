@@ -0,0 +1,59 @@
+package com.opinta.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Instead of a token count it keeps the time at which the bucket is full again,
+ * so taking a token is a single compare-and-set and refilling needs no timer. Times are System.nanoTime values
+ */
+public class TokenBucket {
+    private final int burst;
+    private final double refillPerSecond;
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(int burst, double refillPerSecond, long nowNanos) {
+        this.burst = burst;
+        this.refillPerSecond = refillPerSecond;
+        this.nanosPerToken = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond));
+        this.burstNanos = burst * nanosPerToken;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return 0 when a token has been taken, otherwise the nanos until the next token is available
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            // a bucket that has been full since some time ago is just full
+            long next = (current - nowNanos > 0 ? current : nowNanos) + nanosPerToken;
+            long waitNanos = next - nowNanos - burstNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public double getTokens(long nowNanos) {
+        long missingNanos = Math.max(0, fullAt.get() - nowNanos);
+        return (burstNanos - missingNanos) / (double) nanosPerToken;
+    }
+
+    public boolean isFull(long nowNanos) {
+        return fullAt.get() - nowNanos <= 0;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public double getRefillPerSecond() {
+        return refillPerSecond;
+    }
+}
@@ -2,7 +2,9 @@ package com.opinta.service;
 
 import com.opinta.entity.Address;
 import java.util.List;
+import java.util.Map;
 
+import com.opinta.dao.FieldProjection;
 import com.opinta.dto.AddressDto;
 
 public interface AddressService {
@@ -19,6 +21,18 @@ public interface AddressService {
 
     AddressDto getById(long id);
 
+    /**
+     * @return projection of the comma separated address dto fields or null if any of them is unknown
+     */
+    FieldProjection getFieldProjection(String fields);
+
+    /**
+     * @return the projected fields of the address or null if it doesn't exist
+     */
+    Map<String, Object> getById(long id, FieldProjection projection);
+
+    List<Map<String, Object>> getAll(FieldProjection projection);
+
     AddressDto save(AddressDto addressDto);
 
     AddressDto update(long id, AddressDto addressDto);
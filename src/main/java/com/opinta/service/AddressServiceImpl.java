@@ -1,11 +1,12 @@
 package com.opinta.service;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.List;
+import java.util.Map;
 
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.opinta.dao.AddressDao;
+import com.opinta.dao.FieldProjection;
 import com.opinta.dto.AddressDto;
 import com.opinta.mapper.AddressMapper;
 import com.opinta.entity.Address;
@@ -13,11 +14,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import static org.apache.commons.beanutils.BeanUtils.copyProperties;
-
 @Service
 @Slf4j
 public class AddressServiceImpl implements AddressService {
+    private static final FieldProjection.Fields PROJECTABLE_FIELDS = new FieldProjection.Fields()
+            .field("id")
+            .field("postcode")
+            .field("region")
+            .field("district")
+            .field("city")
+            .field("street")
+            .field("houseNumber")
+            .field("apartmentNumber")
+            .field("description");
     private final AddressDao addressDao;
     private final AddressMapper addressMapper;
 
@@ -28,14 +37,14 @@ public class AddressServiceImpl implements AddressService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Address> getAllEntities() {
         log.info("Getting all addresses");
         return addressDao.getAll();
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public Address getEntityById(long id) {
         log.info("Getting address by id {}", id);
         return addressDao.getById(id);
@@ -56,12 +65,7 @@ public class AddressServiceImpl implements AddressService {
             log.debug("Can't update address. Address doesn't exist {}", id);
             return null;
         }
-        try {
-            copyProperties(target, source);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            log.error("Can't get properties from object to updatable object for address", e);
-        }
-        target.setId(id);
+        addressMapper.merge(source, target);
         log.info("Updating address {}", target);
         addressDao.update(target);
         return target;
@@ -81,17 +85,36 @@ public class AddressServiceImpl implements AddressService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<AddressDto> getAll() {
         return addressMapper.toDto(getAllEntities());
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public AddressDto getById(long id) {
         return addressMapper.toDto(getEntityById(id));
     }
 
+    @Override
+    public FieldProjection getFieldProjection(String fields) {
+        return PROJECTABLE_FIELDS.compile(fields);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getById(long id, FieldProjection projection) {
+        log.info("Getting fields of address by id {}", id);
+        return addressDao.getById(id, projection);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAll(FieldProjection projection) {
+        log.info("Getting fields of all addresses");
+        return addressDao.getAll(projection);
+    }
+
     @Override
     @Transactional
     public AddressDto save(AddressDto addressDto) {
@@ -19,4 +19,6 @@ public interface BarcodeInnerNumberService {
     boolean delete(long id);
 
     BarcodeInnerNumber generateBarcodeInnerNumber(PostcodePool postcodePool);
+
+    List<BarcodeInnerNumber> generateBarcodeInnerNumbers(PostcodePool postcodePool, int count);
 }
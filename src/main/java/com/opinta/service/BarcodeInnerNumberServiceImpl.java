@@ -1,16 +1,19 @@
 package com.opinta.service;
 
-import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.opinta.dao.BarcodeInnerNumberDao;
 import com.opinta.dao.PostcodePoolDao;
 import com.opinta.dto.BarcodeInnerNumberDto;
 import com.opinta.mapper.BarcodeInnerNumberMapper;
+import com.opinta.metrics.MetricRegistry;
+import com.opinta.metrics.RotatingLatencyHistogram;
 import com.opinta.entity.BarcodeInnerNumber;
 import com.opinta.entity.PostcodePool;
 import lombok.extern.slf4j.Slf4j;
@@ -19,7 +22,6 @@ import org.springframework.stereotype.Service;
 
 import static com.opinta.entity.BarcodeStatus.USED;
 import static java.lang.String.format;
-import static org.apache.commons.beanutils.BeanUtils.copyProperties;
 
 @Service
 @Slf4j
@@ -30,18 +32,22 @@ public class BarcodeInnerNumberServiceImpl implements BarcodeInnerNumberService
     private final BarcodeInnerNumberDao barcodeInnerNumberDao;
     private final PostcodePoolDao postcodePoolDao;
     private final BarcodeInnerNumberMapper barcodeInnerNumberMapper;
+    private final RotatingLatencyHistogram generateTimer;
+    private final RotatingLatencyHistogram generateBatchTimer;
 
     @Autowired
     public BarcodeInnerNumberServiceImpl(BarcodeInnerNumberDao barcodeInnerNumberDao,
                                          BarcodeInnerNumberMapper barcodeInnerNumberMapper,
-                                         PostcodePoolDao postcodePoolDao) {
+                                         PostcodePoolDao postcodePoolDao, MetricRegistry metricRegistry) {
         this.barcodeInnerNumberDao = barcodeInnerNumberDao;
         this.barcodeInnerNumberMapper = barcodeInnerNumberMapper;
         this.postcodePoolDao = postcodePoolDao;
+        this.generateTimer = metricRegistry.timer("generate_barcode_inner_number");
+        this.generateBatchTimer = metricRegistry.timer("generate_barcode_inner_numbers");
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<BarcodeInnerNumberDto> getAll(long postcodeId) {
         PostcodePool postcodePool = postcodePoolDao.getById(postcodeId);
         if (postcodePool == null) {
@@ -53,7 +59,7 @@ public class BarcodeInnerNumberServiceImpl implements BarcodeInnerNumberService
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public BarcodeInnerNumberDto getById(long id) {
         log.info("Getting barcodeInnerNumber by id {}", id);
         return barcodeInnerNumberMapper.toDto(barcodeInnerNumberDao.getById(id));
@@ -85,12 +91,7 @@ public class BarcodeInnerNumberServiceImpl implements BarcodeInnerNumberService
             log.info("Can't update barcodeInnerNumber. BarcodeInnerNumber doesn't exist {}", id);
             return null;
         }
-        try {
-            copyProperties(target, source);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            log.error("Can't get properties from object to updatable object for barcodeInnerNumber", e);
-        }
-        target.setId(id);
+        barcodeInnerNumberMapper.merge(source, target);
         log.info("Updating barcodeInnerNumber {}", target);
         barcodeInnerNumberDao.update(target);
         return barcodeInnerNumberMapper.toDto(target);
@@ -111,19 +112,47 @@ public class BarcodeInnerNumberServiceImpl implements BarcodeInnerNumberService
 
     @Override
     public BarcodeInnerNumber generateBarcodeInnerNumber(PostcodePool postcodePool) {
-        BarcodeInnerNumber barcodeInnerNumber = new BarcodeInnerNumber();
-        barcodeInnerNumber.setStatus(USED);
-        barcodeInnerNumber.setNumber(getNextInnerNumber(postcodePool.getPostcode()));
-        return barcodeInnerNumberDao.save(barcodeInnerNumber);
+        long start = System.nanoTime();
+        try {
+            BarcodeInnerNumber barcodeInnerNumber = new BarcodeInnerNumber();
+            barcodeInnerNumber.setStatus(USED);
+            barcodeInnerNumber.setNumber(getNextInnerNumber(postcodePool.getPostcode()));
+            return barcodeInnerNumberDao.save(barcodeInnerNumber);
+        } finally {
+            generateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public List<BarcodeInnerNumber> generateBarcodeInnerNumbers(PostcodePool postcodePool, int count) {
+        long start = System.nanoTime();
+        try {
+            int firstInnerNumber = reserveInnerNumbers(postcodePool.getPostcode(), count);
+            List<BarcodeInnerNumber> barcodeInnerNumbers = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                BarcodeInnerNumber barcodeInnerNumber = new BarcodeInnerNumber();
+                barcodeInnerNumber.setStatus(USED);
+                barcodeInnerNumber.setNumber(String.format("%07d", firstInnerNumber + i));
+                barcodeInnerNumbers.add(barcodeInnerNumberDao.save(barcodeInnerNumber));
+            }
+            return barcodeInnerNumbers;
+        } finally {
+            generateBatchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     private String getNextInnerNumber(String postcode) {
+        return String.format("%07d", reserveInnerNumbers(postcode, 1));
+    }
+
+    private static synchronized int reserveInnerNumbers(String postcode, int count) {
         POSTCODE_COUNTERS.putIfAbsent(postcode, 0);
         int innerNumberCounter = POSTCODE_COUNTERS.get(postcode);
-        POSTCODE_COUNTERS.put(postcode, innerNumberCounter + 1);
-        if (innerNumberCounter > 9_999_999) {
-            throw new RuntimeException(format("Barcode %d is too large", innerNumberCounter));
+        int lastInnerNumber = innerNumberCounter + count - 1;
+        if (lastInnerNumber > 9_999_999) {
+            throw new RuntimeException(format("Barcode %d is too large", lastInnerNumber));
         }
-        return String.format("%07d", innerNumberCounter);
+        POSTCODE_COUNTERS.put(postcode, innerNumberCounter + count);
+        return innerNumberCounter;
     }
 }
@@ -0,0 +1,11 @@
+package com.opinta.service;
+
+import com.opinta.dto.CacheRegionStatisticsDto;
+import java.util.List;
+
+public interface CacheStatisticsService {
+
+    List<CacheRegionStatisticsDto> getRegionStatistics();
+
+    CacheRegionStatisticsDto getRegionStatistics(String region);
+}
@@ -0,0 +1,52 @@
+package com.opinta.service;
+
+import com.opinta.dto.CacheRegionStatisticsDto;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+public class CacheStatisticsServiceImpl implements CacheStatisticsService {
+    private final SessionFactory sessionFactory;
+
+    @Autowired
+    public CacheStatisticsServiceImpl(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public List<CacheRegionStatisticsDto> getRegionStatistics() {
+        String[] regions = sessionFactory.getStatistics().getSecondLevelCacheRegionNames();
+        Arrays.sort(regions);
+        List<CacheRegionStatisticsDto> regionStatistics = new ArrayList<>(regions.length);
+        for (String region : regions) {
+            regionStatistics.add(getRegionStatistics(region));
+        }
+        return regionStatistics;
+    }
+
+    @Override
+    public CacheRegionStatisticsDto getRegionStatistics(String region) {
+        Statistics statistics = sessionFactory.getStatistics();
+        if (!Arrays.asList(statistics.getSecondLevelCacheRegionNames()).contains(region)) {
+            log.info("Cache region {} doesn't exist", region);
+            return null;
+        }
+        SecondLevelCacheStatistics cacheStatistics = statistics.getSecondLevelCacheStatistics(region);
+        CacheRegionStatisticsDto regionStatistics = new CacheRegionStatisticsDto();
+        regionStatistics.setRegion(region);
+        regionStatistics.setHitCount(cacheStatistics.getHitCount());
+        regionStatistics.setMissCount(cacheStatistics.getMissCount());
+        regionStatistics.setPutCount(cacheStatistics.getPutCount());
+        regionStatistics.setElementCountInMemory(cacheStatistics.getElementCountInMemory());
+        regionStatistics.setSizeInMemory(cacheStatistics.getSizeInMemory());
+        return regionStatistics;
+    }
+}
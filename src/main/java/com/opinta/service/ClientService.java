@@ -1,7 +1,12 @@
 package com.opinta.service;
 
+import com.opinta.util.JsonFormat;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
 
+import com.opinta.dao.FieldProjection;
 import com.opinta.dto.ClientDto;
 import com.opinta.entity.Client;
 
@@ -15,9 +20,33 @@ public interface ClientService {
     
     List<ClientDto> getAll();
 
+    /**
+     * Writes every client as an array in the format, clients are loaded and written one by one
+     *
+     * @return number of written clients
+     */
+    long writeAll(JsonFormat format, OutputStream outputStream) throws IOException;
+
     List<ClientDto> getAllByCounterpartyId(long counterpartyId);
 
     ClientDto getById(long id);
+
+    /**
+     * @return projection of the comma separated client dto fields or null if any of them is unknown
+     */
+    FieldProjection getFieldProjection(String fields);
+
+    /**
+     * @return the projected fields of the client or null if it doesn't exist
+     */
+    Map<String, Object> getById(long id, FieldProjection projection);
+
+    /**
+     * Writes the projected fields of every client as an array in the format
+     *
+     * @return number of written clients
+     */
+    long writeAll(JsonFormat format, OutputStream outputStream, FieldProjection projection) throws IOException;
     
     ClientDto update(long id, ClientDto source);
     
@@ -2,25 +2,35 @@ package com.opinta.service;
 
 import com.opinta.entity.Counterparty;
 
-import java.lang.reflect.InvocationTargetException;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
 
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.opinta.dao.ClientDao;
+import com.opinta.dao.FieldProjection;
 import com.opinta.dao.CounterpartyDao;
 import com.opinta.dto.ClientDto;
 import com.opinta.mapper.ClientMapper;
 import com.opinta.entity.Client;
+import com.opinta.util.JsonFormat;
+import com.opinta.util.JsonStreamUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import static org.apache.commons.beanutils.BeanUtils.copyProperties;
-
 @Service
 @Slf4j
 public class ClientServiceImpl implements ClientService {
+    private static final int FETCH_SIZE = 500;
+    private static final FieldProjection.Fields PROJECTABLE_FIELDS = new FieldProjection.Fields()
+            .field("id")
+            .field("name")
+            .field("uniqueRegistrationNumber")
+            .field("counterpartyId", "counterparty.id")
+            .field("addressId", "address.id");
     private final ClientDao clientDao;
     private final CounterpartyDao counterpartyDao;
     private final ClientMapper clientMapper;
@@ -34,14 +44,14 @@ public class ClientServiceImpl implements ClientService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Client> getAllEntities() {
         log.info("Getting all clients");
         return clientDao.getAll();
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public Client getEntityById(long id) {
         log.info("Getting address by id {}", id);
         return clientDao.getById(id);
@@ -55,7 +65,7 @@ public class ClientServiceImpl implements ClientService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<ClientDto> getAll() {
         log.info("Getting all clients");
         List<Client> allClients = clientDao.getAll();
@@ -63,7 +73,23 @@ public class ClientServiceImpl implements ClientService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
+    public long writeAll(JsonFormat format, OutputStream outputStream) throws IOException {
+        log.info("Writing all clients");
+        return JsonStreamUtil.<ClientDto>writeArray(format, outputStream, consumer ->
+                clientDao.scrollAll(FETCH_SIZE, client -> consumer.accept(clientMapper.toDto(client))));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long writeAll(JsonFormat format, OutputStream outputStream, FieldProjection projection) throws IOException {
+        log.info("Writing fields of all clients");
+        return JsonStreamUtil.<Map<String, Object>>writeArray(format, outputStream,
+                consumer -> clientDao.scrollAll(projection, FETCH_SIZE, consumer));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<ClientDto> getAllByCounterpartyId(long counterpartyId) {
         Counterparty counterparty = counterpartyDao.getById(counterpartyId);
         if (counterparty == null) {
@@ -75,13 +101,25 @@ public class ClientServiceImpl implements ClientService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public ClientDto getById(long id) {
         log.info("Getting client by id {}", id);
         Client client = clientDao.getById(id);
         return clientMapper.toDto(client);
     }
 
+    @Override
+    public FieldProjection getFieldProjection(String fields) {
+        return PROJECTABLE_FIELDS.compile(fields);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getById(long id, FieldProjection projection) {
+        log.info("Getting fields of client by id {}", id);
+        return clientDao.getById(id, projection);
+    }
+
     @Override
     @Transactional
     public ClientDto save(ClientDto clientDto) {
@@ -100,12 +138,7 @@ public class ClientServiceImpl implements ClientService {
             log.debug("Can't update client. Client doesn't exist {}", id);
             return null;
         }
-        try {
-            copyProperties(target, source);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            log.error("Can't get properties from object to updatable object for client", e);
-        }
-        target.setId(id);
+        clientMapper.merge(source, target);
         log.info("Updating client {}", target);
         clientDao.update(target);
         return clientMapper.toDto(target);
@@ -3,10 +3,9 @@ package com.opinta.service;
 import com.opinta.entity.Counterparty;
 import com.opinta.entity.PostcodePool;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.opinta.dao.CounterpartyDao;
 import com.opinta.dto.CounterpartyDto;
@@ -15,8 +14,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import static org.apache.commons.beanutils.BeanUtils.copyProperties;
-
 @Service
 @Slf4j
 public class CounterpartyServiceImpl implements CounterpartyService {
@@ -31,21 +28,21 @@ public class CounterpartyServiceImpl implements CounterpartyService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Counterparty> getAllEntities() {
         log.info("Getting all counterparties");
         return counterpartyDao.getAll();
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public Counterparty getEntityById(long id) {
         log.info("Getting counterparty {}", id);
         return counterpartyDao.getById(id);
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Counterparty> getEntityByPostcodePool(PostcodePool postcodePool) {
         log.info("Getting counterparty by postcodePool {}", postcodePool);
         return counterpartyDao.getByPostcodePool(postcodePool);
@@ -65,7 +62,7 @@ public class CounterpartyServiceImpl implements CounterpartyService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<CounterpartyDto> getAll() {
         log.info("Getting all counterparties");
         List<Counterparty> counterParties = counterpartyDao.getAll();
@@ -73,7 +70,7 @@ public class CounterpartyServiceImpl implements CounterpartyService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public CounterpartyDto getById(long id) {
         log.info("Getting counterparty by id " + id);
         Counterparty counterparty = counterpartyDao.getById(id);
@@ -97,12 +94,7 @@ public class CounterpartyServiceImpl implements CounterpartyService {
             log.debug("Can't update counterparty. Counterparty doesn't exist {}", id);
             return null;
         }
-        try {
-            copyProperties(target, source);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            log.error("Can't get properties from object to updatable object for counterparty", e);
-        }
-        target.setId(id);
+        counterpartyMapper.merge(source, target);
         log.info("Updating counterparty {}", target);
         counterpartyDao.update(target);
         return counterpartyMapper.toDto(target);
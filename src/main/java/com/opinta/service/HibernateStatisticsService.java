@@ -0,0 +1,11 @@
+package com.opinta.service;
+
+import com.opinta.dto.HibernateStatisticsDto;
+
+public interface HibernateStatisticsService {
+
+    /**
+     * @param queryLimit number of queries to list, the ones that took the most time in total come first
+     */
+    HibernateStatisticsDto getStatistics(int queryLimit);
+}
@@ -0,0 +1,101 @@
+package com.opinta.service;
+
+import com.opinta.dto.HibernateStatisticsDto;
+import com.opinta.dto.QueryStatisticsDto;
+import com.opinta.metrics.MetricRegistry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class HibernateStatisticsServiceImpl implements HibernateStatisticsService {
+    private final SessionFactory sessionFactory;
+
+    @Autowired
+    public HibernateStatisticsServiceImpl(SessionFactory sessionFactory, MetricRegistry metricRegistry) {
+        this.sessionFactory = sessionFactory;
+        registerCounter(metricRegistry, "hibernate_query_executions_total",
+                "Hql and criteria queries executed", Statistics::getQueryExecutionCount);
+        registerCounter(metricRegistry, "hibernate_entity_loads_total",
+                "Entities loaded", Statistics::getEntityLoadCount);
+        registerCounter(metricRegistry, "hibernate_entity_fetches_total",
+                "Entities fetched by a select of their own", Statistics::getEntityFetchCount);
+        registerCounter(metricRegistry, "hibernate_collection_fetches_total",
+                "Collections fetched by a select of their own", Statistics::getCollectionFetchCount);
+        registerCounter(metricRegistry, "hibernate_second_level_cache_hits_total",
+                "Second level cache hits", Statistics::getSecondLevelCacheHitCount);
+        registerCounter(metricRegistry, "hibernate_second_level_cache_misses_total",
+                "Second level cache misses", Statistics::getSecondLevelCacheMissCount);
+        registerCounter(metricRegistry, "hibernate_flushes_total",
+                "Session flushes", Statistics::getFlushCount);
+        registerCounter(metricRegistry, "hibernate_statements_prepared_total",
+                "Jdbc statements prepared", Statistics::getPrepareStatementCount);
+    }
+
+    @Override
+    public HibernateStatisticsDto getStatistics(int queryLimit) {
+        Statistics statistics = sessionFactory.getStatistics();
+        HibernateStatisticsDto statisticsDto = new HibernateStatisticsDto();
+        statisticsDto.setQueryExecutionCount(statistics.getQueryExecutionCount());
+        statisticsDto.setQueryExecutionMaxTimeMillis(statistics.getQueryExecutionMaxTime());
+        statisticsDto.setQueryExecutionMaxTimeQuery(statistics.getQueryExecutionMaxTimeQueryString());
+        statisticsDto.setEntityLoadCount(statistics.getEntityLoadCount());
+        statisticsDto.setEntityFetchCount(statistics.getEntityFetchCount());
+        statisticsDto.setEntityInsertCount(statistics.getEntityInsertCount());
+        statisticsDto.setEntityUpdateCount(statistics.getEntityUpdateCount());
+        statisticsDto.setEntityDeleteCount(statistics.getEntityDeleteCount());
+        statisticsDto.setCollectionLoadCount(statistics.getCollectionLoadCount());
+        statisticsDto.setCollectionFetchCount(statistics.getCollectionFetchCount());
+        long hits = statistics.getSecondLevelCacheHitCount();
+        long misses = statistics.getSecondLevelCacheMissCount();
+        statisticsDto.setSecondLevelCacheHitCount(hits);
+        statisticsDto.setSecondLevelCacheMissCount(misses);
+        statisticsDto.setSecondLevelCacheHitRatio(hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        statisticsDto.setQueryCacheHitCount(statistics.getQueryCacheHitCount());
+        statisticsDto.setQueryCacheMissCount(statistics.getQueryCacheMissCount());
+        statisticsDto.setFlushCount(statistics.getFlushCount());
+        statisticsDto.setPrepareStatementCount(statistics.getPrepareStatementCount());
+        statisticsDto.setSessionOpenCount(statistics.getSessionOpenCount());
+        statisticsDto.setTransactionCount(statistics.getTransactionCount());
+        statisticsDto.setSlowestQueries(getSlowestQueries(statistics, queryLimit));
+        return statisticsDto;
+    }
+
+    // criteria queries are listed by their sql with a [CRITERIA] prefix
+    private List<QueryStatisticsDto> getSlowestQueries(Statistics statistics, int limit) {
+        List<QueryStatisticsDto> queries = new ArrayList<>();
+        for (String query : statistics.getQueries()) {
+            QueryStatistics queryStatistics = statistics.getQueryStatistics(query);
+            QueryStatisticsDto queryDto = new QueryStatisticsDto();
+            queryDto.setQuery(query);
+            queryDto.setExecutionCount(queryStatistics.getExecutionCount());
+            queryDto.setExecutionRowCount(queryStatistics.getExecutionRowCount());
+            queryDto.setExecutionAvgTimeMillis(queryStatistics.getExecutionAvgTime());
+            queryDto.setExecutionMaxTimeMillis(queryStatistics.getExecutionMaxTime());
+            queryDto.setExecutionTotalTimeMillis(
+                    queryStatistics.getExecutionAvgTime() * queryStatistics.getExecutionCount());
+            queryDto.setCacheHitCount(queryStatistics.getCacheHitCount());
+            queryDto.setCacheMissCount(queryStatistics.getCacheMissCount());
+            queries.add(queryDto);
+        }
+        return queries.stream()
+                .sorted(Comparator.comparingLong(QueryStatisticsDto::getExecutionTotalTimeMillis)
+                        .thenComparingLong(QueryStatisticsDto::getExecutionMaxTimeMillis)
+                        .thenComparingLong(QueryStatisticsDto::getExecutionCount)
+                        .reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private void registerCounter(MetricRegistry metricRegistry, String name, String help,
+                                 ToLongFunction<Statistics> counter) {
+        metricRegistry.registerCounter(name, help, () -> counter.applyAsLong(sessionFactory.getStatistics()));
+    }
+}
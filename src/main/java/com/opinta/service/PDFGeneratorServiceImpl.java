@@ -1,9 +1,12 @@
 package com.opinta.service;
 
+import com.opinta.dao.ShipmentFetchPlan;
 import com.opinta.entity.Address;
 import com.opinta.entity.Client;
 import com.opinta.entity.Parcel;
 import com.opinta.entity.Shipment;
+import com.opinta.metrics.MetricRegistry;
+import com.opinta.metrics.RotatingLatencyHistogram;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
@@ -15,6 +18,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
@@ -23,31 +27,48 @@ public class PDFGeneratorServiceImpl implements PDFGeneratorService {
     private static final String PDF_POSTPAY_TEMPLATE = "pdfTemplate/postpay-template.pdf";
 
     private ShipmentService shipmentService;
-    private PDDocument template;
-    private PDTextField field;
+    private final RotatingLatencyHistogram postpayTimer;
+    private final RotatingLatencyHistogram labelTimer;
 
     @Autowired
-    public PDFGeneratorServiceImpl(ShipmentService shipmentService) {
+    public PDFGeneratorServiceImpl(ShipmentService shipmentService, MetricRegistry metricRegistry) {
         this.shipmentService = shipmentService;
+        this.postpayTimer = metricRegistry.timer("render_pdf_postpay");
+        this.labelTimer = metricRegistry.timer("render_pdf_label");
     }
 
     @Override
     public byte[] generatePostpay(long shipmentId) {
-        Shipment shipment = shipmentService.getEntityById(shipmentId);
-        byte[] data = null;
+        long start = System.nanoTime();
+        try {
+            return renderPostpay(shipmentId);
+        } finally {
+            postpayTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public byte[] generateLabel(long shipmentId) {
+        long start = System.nanoTime();
         try {
-            File file = new File(getClass()
-                    .getClassLoader()
-                    .getResource(PDF_POSTPAY_TEMPLATE)
-                    .getFile());
-            template = PDDocument.load(file);
+            return renderLabel(shipmentId);
+        } finally {
+            labelTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private byte[] renderPostpay(long shipmentId) {
+        Shipment shipment = shipmentService.getEntityById(shipmentId, ShipmentFetchPlan.POSTPAY_FORM);
+        byte[] data = null;
+        // renders run concurrently on the print pool, so every one of them loads a document of its own
+        try (PDDocument template = PDDocument.load(templateFile(PDF_POSTPAY_TEMPLATE))) {
             PDAcroForm acroForm = template.getDocumentCatalog().getAcroForm();
             if (acroForm != null) {
                 generateClientsData(shipment, acroForm);
 
                 String[] priceParts = String.valueOf(shipment.getPostPay()).split("\\.");
 
-                field = (PDTextField) acroForm.getField("priceHryvnas");
+                PDTextField field = (PDTextField) acroForm.getField("priceHryvnas");
                 field.setValue(priceParts[0]);
 
                 if (priceParts.length > 1) {
@@ -66,21 +87,15 @@ public class PDFGeneratorServiceImpl implements PDFGeneratorService {
         return data;
     }
 
-    @Override
-    public byte[] generateLabel(long shipmentId) {
-        Shipment shipment = shipmentService.getEntityById(shipmentId);
+    private byte[] renderLabel(long shipmentId) {
+        Shipment shipment = shipmentService.getEntityById(shipmentId, ShipmentFetchPlan.LABEL_FORM);
         byte[] data = null;
-        try {
-            File file = new File(getClass()
-                    .getClassLoader()
-                    .getResource(PDF_LABEL_TEMPLATE)
-                    .getFile());
-            template = PDDocument.load(file);
+        try (PDDocument template = PDDocument.load(templateFile(PDF_LABEL_TEMPLATE))) {
             PDAcroForm acroForm = template.getDocumentCatalog().getAcroForm();
             if (acroForm != null) {
                 generateClientsData(shipment, acroForm);
 
-                field = (PDTextField) acroForm.getField("mass");
+                PDTextField field = (PDTextField) acroForm.getField("mass");
                 field.setValue(String.valueOf(calculateWeight(shipment)));
 
                 field = (PDTextField) acroForm.getField("value");
@@ -106,10 +121,17 @@ public class PDFGeneratorServiceImpl implements PDFGeneratorService {
         return data;
     }
 
+    private File templateFile(String template) {
+        return new File(getClass()
+                .getClassLoader()
+                .getResource(template)
+                .getFile());
+    }
+
     private void generateClientsData(Shipment shipment, PDAcroForm acroForm) throws IOException {
         Client sender = shipment.getSender();
 
-        field = (PDTextField) acroForm.getField("senderName");
+        PDTextField field = (PDTextField) acroForm.getField("senderName");
         field.setValue(sender.getName());
 
         field = (PDTextField) acroForm.getField("senderPhone");
@@ -2,6 +2,7 @@ package com.opinta.service;
 
 import com.opinta.entity.Parcel;
 import com.opinta.entity.Shipment;
+import com.opinta.entity.TariffGrid;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -14,9 +15,16 @@ public interface ParcelService {
 
     Parcel save(Parcel parcel, long shipmentId);
 
-    Parcel update(long id, long shipmentId, Parcel parcel);
+    /**
+     * @param expectedVersion version the client has seen, null to skip the check
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the parcel has another version
+     *                                                                     or has been changed concurrently
+     */
+    Parcel update(long id, long shipmentId, Parcel parcel, Long expectedVersion);
 
     boolean delete(long id);
 
     BigDecimal calculatePrice(Parcel parcel, Shipment shipment);
+
+    BigDecimal calculatePrice(Parcel parcel, Shipment shipment, List<TariffGrid> tariffGrids);
 }
@@ -9,38 +9,51 @@ import com.opinta.entity.Shipment;
 import com.opinta.entity.W2wVariation;
 import com.opinta.entity.TariffGrid;
 import com.opinta.entity.DeliveryType;
+import com.opinta.logging.LogSampler;
+import com.opinta.mapper.ParcelMapper;
+import com.opinta.metrics.MetricRegistry;
+import com.opinta.metrics.RotatingLatencyHistogram;
 import com.opinta.util.AddressUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
-import javax.transaction.Transactional;
-import java.lang.reflect.InvocationTargetException;
+import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.util.Comparator;
 import java.util.List;
-
-import static org.apache.commons.beanutils.BeanUtils.copyProperties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class ParcelServiceImpl implements ParcelService {
+    private static final LogSampler PRICE_LOG_SAMPLER = new LogSampler(100);
+
     private final TariffGridDao tariffGridDao;
     private final ParcelDao parcelDao;
     private final ShipmentDao shipmentDao;
+    private final ParcelMapper parcelMapper;
+    private final RotatingLatencyHistogram calculatePriceTimer;
 
-    public ParcelServiceImpl(TariffGridDao tariffGridDao, ParcelDao parcelDao, ShipmentDao shipmentDao) {
+    public ParcelServiceImpl(TariffGridDao tariffGridDao, ParcelDao parcelDao, ShipmentDao shipmentDao,
+                             ParcelMapper parcelMapper, MetricRegistry metricRegistry) {
         this.tariffGridDao = tariffGridDao;
         this.parcelDao = parcelDao;
         this.shipmentDao = shipmentDao;
+        this.parcelMapper = parcelMapper;
+        this.calculatePriceTimer = metricRegistry.timer("calculate_price");
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Parcel> getAll() {
         log.info("Getting all parcels");
         return parcelDao.getAll();
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public Parcel getById(long id) {
         log.info("Getting parcel by id {}", id);
         return parcelDao.getById(id);
@@ -55,21 +68,21 @@ public class ParcelServiceImpl implements ParcelService {
 
     @Override
     @Transactional
-    public Parcel update(long id, long shipmentId, Parcel sourceParcel) {
+    public Parcel update(long id, long shipmentId, Parcel sourceParcel, Long expectedVersion) {
         Parcel target = parcelDao.getById(id);
         if (target == null) {
             log.debug("Can't update parcel. Parcel doesn't exist {}", id);
             return null;
         }
-
-        try {
-            copyProperties(target, sourceParcel);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            log.error("Can't get properties from object to updatable object for parcel", e);
+        if (expectedVersion != null && expectedVersion != target.getVersion()) {
+            log.info("Can't update parcel {}. Expected version {}, actual {}", id, expectedVersion,
+                    target.getVersion());
+            throw new ObjectOptimisticLockingFailureException(Parcel.class, id);
         }
 
+        parcelMapper.merge(sourceParcel, target);
+
         target.setPrice(calculatePrice(target, shipmentDao.getById(shipmentId)));
-        target.setId(id);
         log.info("Updating parcel {}", target);
         parcelDao.update(target);
         return target;
@@ -90,28 +103,72 @@ public class ParcelServiceImpl implements ParcelService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public BigDecimal calculatePrice(Parcel parcel, Shipment shipment) {
-        log.info("Calculating price for parcel {}", parcel);
+        boolean logged = PRICE_LOG_SAMPLER.sample();
+        if (logged) {
+            log.info("Calculating price for parcel {}, 1 of {} calls is logged", parcel, PRICE_LOG_SAMPLER.getRate());
+        }
+        long start = System.nanoTime();
+        try {
+            W2wVariation w2wVariation = getW2wVariation(shipment);
+            TariffGrid tariffGrid = tariffGridDao.getLast(w2wVariation);
+            if (parcel.getWeight() < tariffGrid.getWeight() &&
+                    parcel.getLength() < tariffGrid.getLength()) {
+                tariffGrid = tariffGridDao.getByDimension(parcel.getWeight(), parcel.getLength(), w2wVariation);
+            }
+
+            if (logged) {
+                log.info("TariffGrid for weight {} per length {} and type {}: {}",
+                        parcel.getWeight(), parcel.getLength(), w2wVariation, tariffGrid);
+            }
+
+            return getPrice(tariffGrid, shipment);
+        } finally {
+            calculatePriceTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
 
+    @Override
+    public BigDecimal calculatePrice(Parcel parcel, Shipment shipment, List<TariffGrid> tariffGrids) {
+        long start = System.nanoTime();
+        try {
+            W2wVariation w2wVariation = getW2wVariation(shipment);
+            List<TariffGrid> variationGrids = tariffGrids.stream()
+                    .filter(tariffGrid -> tariffGrid.getW2wVariation() == w2wVariation)
+                    .sorted(Comparator.comparingLong(TariffGrid::getId))
+                    .collect(Collectors.toList());
+            if (variationGrids.isEmpty()) {
+                return BigDecimal.ZERO;
+            }
+
+            TariffGrid tariffGrid = variationGrids.get(variationGrids.size() - 1);
+            if (parcel.getWeight() < tariffGrid.getWeight() &&
+                    parcel.getLength() < tariffGrid.getLength()) {
+                tariffGrid = variationGrids.stream()
+                        .filter(grid -> grid.getWeight() >= parcel.getWeight()
+                                && grid.getLength() >= parcel.getLength())
+                        .findFirst()
+                        .orElse(null);
+            }
+            return getPrice(tariffGrid, shipment);
+        } finally {
+            calculatePriceTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private W2wVariation getW2wVariation(Shipment shipment) {
         Address senderAddress = shipment.getSender().getAddress();
         Address recipientAddress = shipment.getRecipient().getAddress();
-        W2wVariation w2wVariation = W2wVariation.COUNTRY;
         if (AddressUtil.isSameTown(senderAddress, recipientAddress)) {
-            w2wVariation = W2wVariation.TOWN;
+            return W2wVariation.TOWN;
         } else if (AddressUtil.isSameRegion(senderAddress, recipientAddress)) {
-            w2wVariation = W2wVariation.REGION;
+            return W2wVariation.REGION;
         }
+        return W2wVariation.COUNTRY;
+    }
 
-        TariffGrid tariffGrid = tariffGridDao.getLast(w2wVariation);
-        if (parcel.getWeight() < tariffGrid.getWeight() &&
-                parcel.getLength() < tariffGrid.getLength()) {
-            tariffGrid = tariffGridDao.getByDimension(parcel.getWeight(), parcel.getLength(), w2wVariation);
-        }
-
-        log.info("TariffGrid for weight {} per length {} and type {}: {}",
-                parcel.getWeight(), parcel.getLength(), w2wVariation, tariffGrid);
-
+    private BigDecimal getPrice(TariffGrid tariffGrid, Shipment shipment) {
         if (tariffGrid == null) {
             return BigDecimal.ZERO;
         }
@@ -120,7 +177,7 @@ public class ParcelServiceImpl implements ParcelService {
 
         return new BigDecimal(Float.toString(price));
     }
-    
+
     private float getSurcharges(Shipment shipment) {
         float surcharges = 0;
         if (shipment.getDeliveryType().equals(DeliveryType.D2W) ||
@@ -5,15 +5,12 @@ import com.opinta.dto.PostOfficeDto;
 import com.opinta.mapper.PostOfficeMapper;
 import com.opinta.entity.PostOffice;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.List;
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import static org.apache.commons.beanutils.BeanUtils.copyProperties;
-
 @Service
 @Slf4j
 public class PostOfficeServiceImpl implements PostOfficeService {
@@ -27,14 +24,14 @@ public class PostOfficeServiceImpl implements PostOfficeService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<PostOffice> getAllEntities() {
         log.info("Getting all post offices");
         return postOfficeDao.getAll();
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public PostOffice getEntityById(long id) {
         log.info("Getting client by id {}", id);
         return postOfficeDao.getById(id);
@@ -48,13 +45,13 @@ public class PostOfficeServiceImpl implements PostOfficeService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<PostOfficeDto> getAll() {
         return postOfficeMapper.toDto(getAllEntities());
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public PostOfficeDto getById(long id) {
         return postOfficeMapper.toDto(getEntityById(id));
     }
@@ -74,12 +71,7 @@ public class PostOfficeServiceImpl implements PostOfficeService {
             log.info("Can't update postOffice. PostOffice doesn't exist {}", id);
             return null;
         }
-        try {
-            copyProperties(target, source);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            log.error("Can't get properties from object to updatable object for postOffice", e);
-        }
-        target.setId(id);
+        postOfficeMapper.merge(source, target);
         log.info("Updating postOffice {}", target);
         postOfficeDao.update(target);
         return postOfficeMapper.toDto(target);
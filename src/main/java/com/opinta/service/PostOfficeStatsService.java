@@ -0,0 +1,35 @@
+package com.opinta.service;
+
+import com.opinta.dto.PostOfficeHourlyStatsDto;
+import com.opinta.dto.PostOfficeStatsDto;
+import com.opinta.entity.ShipmentTrackingDetail;
+import com.opinta.metrics.DwellSample;
+import java.util.Date;
+import java.util.List;
+
+public interface PostOfficeStatsService {
+
+    int getMaxWindowMinutes();
+
+    /**
+     * @return scans and dwell times of the last windowMinutes minutes including the current one
+     * or null if the post office doesn't exist
+     */
+    PostOfficeStatsDto getStats(long postOfficeId, int windowMinutes);
+
+    /**
+     * @return rolled up hours from inclusive to exclusive or null if the post office doesn't exist
+     */
+    List<PostOfficeHourlyStatsDto> getHourlyStats(long postOfficeId, Date from, Date to);
+
+    /**
+     * Counts the scans and dwell times once the current transaction commits, right away without transaction
+     */
+    void recordAfterCommit(List<ShipmentTrackingDetail> scans, List<DwellSample> dwells);
+
+    /**
+     * Replaces the hourly stats of the hour with the in-memory totals. Finished hours are rolled up
+     * automatically while they are still in memory
+     */
+    void rollup(Date hourStart);
+}
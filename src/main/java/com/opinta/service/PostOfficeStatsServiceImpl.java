@@ -0,0 +1,203 @@
+package com.opinta.service;
+
+import com.opinta.dao.PostOfficeDao;
+import com.opinta.dao.PostOfficeHourlyStatsDao;
+import com.opinta.dto.HistogramDto;
+import com.opinta.dto.PostOfficeHourlyStatsDto;
+import com.opinta.dto.PostOfficeStatsDto;
+import com.opinta.dto.PostOfficeStatusStatsDto;
+import com.opinta.entity.PostOfficeHourlyStats;
+import com.opinta.entity.ShipmentStatus;
+import com.opinta.entity.ShipmentTrackingDetail;
+import com.opinta.mapper.PostOfficeHourlyStatsMapper;
+import com.opinta.metrics.DwellSample;
+import com.opinta.metrics.RollingPostOfficeStats;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Scans are counted by the minute they are committed in, dwell times by the minute the shipment left.
+ * The in-memory ring keeps an hour more than the longest window, so a finished hour is still complete
+ * when the rollup task persists it
+ */
+@Service
+@Slf4j
+public class PostOfficeStatsServiceImpl implements PostOfficeStatsService {
+    private static final int MINUTES_PER_HOUR = 60;
+
+    private final PostOfficeDao postOfficeDao;
+    private final PostOfficeHourlyStatsDao postOfficeHourlyStatsDao;
+    private final PostOfficeHourlyStatsMapper postOfficeHourlyStatsMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxWindowMinutes;
+    private final int ringMinutes;
+    private final long rollupCheckSeconds;
+    private final RollingPostOfficeStats rollingStats;
+    private final ScheduledExecutorService rollupExecutor;
+    private long lastRolledUpHour;
+
+    @Autowired
+    public PostOfficeStatsServiceImpl(PostOfficeDao postOfficeDao, PostOfficeHourlyStatsDao postOfficeHourlyStatsDao,
+                                      PostOfficeHourlyStatsMapper postOfficeHourlyStatsMapper,
+                                      PlatformTransactionManager transactionManager, Environment environment) {
+        this.postOfficeDao = postOfficeDao;
+        this.postOfficeHourlyStatsDao = postOfficeHourlyStatsDao;
+        this.postOfficeHourlyStatsMapper = postOfficeHourlyStatsMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxWindowMinutes = environment.getRequiredProperty("stats.postOffice.maxWindowMinutes", Integer.class);
+        this.rollupCheckSeconds = environment.getRequiredProperty("stats.postOffice.rollupCheckSeconds", Long.class);
+        this.ringMinutes = maxWindowMinutes + MINUTES_PER_HOUR;
+        this.rollingStats = new RollingPostOfficeStats(ringMinutes);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("post-office-stats-rollup-");
+        threadFactory.setDaemon(true);
+        this.rollupExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @PostConstruct
+    public void start() {
+        lastRolledUpHour = TimeUnit.MILLISECONDS.toHours(System.currentTimeMillis()) - 1;
+        rollupExecutor.scheduleWithFixedDelay(this::rollupFinishedHour, rollupCheckSeconds, rollupCheckSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rollupExecutor.shutdownNow();
+    }
+
+    @Override
+    public int getMaxWindowMinutes() {
+        return maxWindowMinutes;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PostOfficeStatsDto getStats(long postOfficeId, int windowMinutes) {
+        if (postOfficeDao.getById(postOfficeId) == null) {
+            log.debug("Can't get stats of post office. PostOffice doesn't exist {}", postOfficeId);
+            return null;
+        }
+        log.info("Getting stats of post office {} for {} minutes", postOfficeId, windowMinutes);
+        long toMinute = RollingPostOfficeStats.toMinute(System.currentTimeMillis()) + 1;
+        Map<ShipmentStatus, RollingPostOfficeStats.Totals> totals =
+                rollingStats.aggregate(postOfficeId, toMinute - windowMinutes, toMinute);
+
+        PostOfficeStatsDto postOfficeStatsDto = new PostOfficeStatsDto();
+        postOfficeStatsDto.setPostOfficeId(postOfficeId);
+        postOfficeStatsDto.setWindowMinutes(windowMinutes);
+        List<PostOfficeStatusStatsDto> statuses = new ArrayList<>(totals.size());
+        long scans = 0;
+        for (Map.Entry<ShipmentStatus, RollingPostOfficeStats.Totals> entry : totals.entrySet()) {
+            PostOfficeStatusStatsDto statusStatsDto = new PostOfficeStatusStatsDto();
+            statusStatsDto.setShipmentStatus(entry.getKey());
+            statusStatsDto.setScans(entry.getValue().getScans());
+            statusStatsDto.setScansPerMinute((double) entry.getValue().getScans() / windowMinutes);
+            statusStatsDto.setDwell(entry.getValue().getDwell().snapshot());
+            statuses.add(statusStatsDto);
+            scans += entry.getValue().getScans();
+        }
+        postOfficeStatsDto.setStatuses(statuses);
+        postOfficeStatsDto.setScans(scans);
+        postOfficeStatsDto.setScansPerMinute((double) scans / windowMinutes);
+        return postOfficeStatsDto;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PostOfficeHourlyStatsDto> getHourlyStats(long postOfficeId, Date from, Date to) {
+        if (postOfficeDao.getById(postOfficeId) == null) {
+            log.debug("Can't get hourly stats of post office. PostOffice doesn't exist {}", postOfficeId);
+            return null;
+        }
+        log.info("Getting hourly stats of post office {} from {} to {}", postOfficeId, from, to);
+        return postOfficeHourlyStatsMapper.toDto(postOfficeHourlyStatsDao.getByPostOffice(postOfficeId, from, to));
+    }
+
+    @Override
+    public void recordAfterCommit(List<ShipmentTrackingDetail> scans, List<DwellSample> dwells) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(scans, dwells);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                record(scans, dwells);
+            }
+        });
+    }
+
+    private void record(List<ShipmentTrackingDetail> scans, List<DwellSample> dwells) {
+        long now = System.currentTimeMillis();
+        scans.stream()
+                .filter(scan -> scan.getPostOffice() != null)
+                .forEach(scan -> rollingStats.recordScan(scan.getPostOffice().getId(), scan.getShipmentStatus(), now));
+        dwells.forEach(dwell -> rollingStats.recordDwell(dwell.getPostOfficeId(), dwell.getShipmentStatus(),
+                dwell.getDwellMillis(), now));
+    }
+
+    @Override
+    public void rollup(Date hourStart) {
+        long fromMinute = RollingPostOfficeStats.toMinute(hourStart.getTime());
+        List<PostOfficeHourlyStats> hourlyStats = new ArrayList<>();
+        for (Long postOfficeId : rollingStats.getPostOfficeIds()) {
+            rollingStats.aggregate(postOfficeId, fromMinute, fromMinute + MINUTES_PER_HOUR).forEach((status, totals) ->
+                    hourlyStats.add(toHourlyStats(postOfficeId, status, hourStart, totals)));
+        }
+        transactionTemplate.execute(transactionStatus -> {
+            postOfficeHourlyStatsDao.deleteByHour(hourStart);
+            hourlyStats.forEach(postOfficeHourlyStatsDao::save);
+            return null;
+        });
+        log.info("Rolled up {} post office stats of hour {}", hourlyStats.size(), hourStart);
+    }
+
+    private PostOfficeHourlyStats toHourlyStats(long postOfficeId, ShipmentStatus status, Date hourStart,
+                                                RollingPostOfficeStats.Totals totals) {
+        HistogramDto dwell = totals.getDwell().snapshot();
+        PostOfficeHourlyStats postOfficeHourlyStats = new PostOfficeHourlyStats();
+        postOfficeHourlyStats.setPostOfficeId(postOfficeId);
+        postOfficeHourlyStats.setShipmentStatus(status);
+        postOfficeHourlyStats.setHourStart(hourStart);
+        postOfficeHourlyStats.setScans(totals.getScans());
+        postOfficeHourlyStats.setDwellCount(dwell.getCount());
+        postOfficeHourlyStats.setDwellSumMicros(dwell.getSumMicros());
+        postOfficeHourlyStats.setDwellMaxMicros(dwell.getMaxMicros());
+        postOfficeHourlyStats.setDwellP50Micros(dwell.getP50Micros());
+        postOfficeHourlyStats.setDwellP90Micros(dwell.getP90Micros());
+        postOfficeHourlyStats.setDwellP99Micros(dwell.getP99Micros());
+        return postOfficeHourlyStats;
+    }
+
+    private void rollupFinishedHour() {
+        long now = System.currentTimeMillis();
+        long finishedHour = TimeUnit.MILLISECONDS.toHours(now) - 1;
+        try {
+            // older hours have partly left the ring, a failed rollup is only retried during the next hour
+            if (lastRolledUpHour < finishedHour) {
+                rollup(new Date(TimeUnit.HOURS.toMillis(finishedHour)));
+                lastRolledUpHour = finishedHour;
+            }
+            rollingStats.evictIdle(RollingPostOfficeStats.toMinute(now) - ringMinutes);
+        } catch (RuntimeException e) {
+            log.error("Can't roll up post office stats of hour {}", finishedHour, e);
+        }
+    }
+}
@@ -7,15 +7,12 @@ import com.opinta.mapper.BarcodeInnerNumberMapper;
 import com.opinta.mapper.PostcodePoolMapper;
 import com.opinta.entity.PostcodePool;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.List;
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import static org.apache.commons.beanutils.BeanUtils.copyProperties;
-
 @Service
 @Slf4j
 public class PostcodePoolServiceImpl implements PostcodePoolService {
@@ -39,14 +36,14 @@ public class PostcodePoolServiceImpl implements PostcodePoolService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<PostcodePoolDto> getAll() {
         log.info("Getting all postcodePools");
         return postcodePoolMapper.toDto(postcodePoolDao.getAll());
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public PostcodePoolDto getById(long id) {
         log.info("Getting postcodePool by id {}", id);
         return postcodePoolMapper.toDto(postcodePoolDao.getById(id));
@@ -67,12 +64,7 @@ public class PostcodePoolServiceImpl implements PostcodePoolService {
             log.debug("Can't update postcodePool. PostCodePool doesn't exist {}", id);
             return null;
         }
-        try {
-            copyProperties(target, source);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            log.error("Can't get properties from object to updatable object for postcodePool", e);
-        }
-        target.setId(id);
+        postcodePoolMapper.merge(source, target);
         log.info("Updating postcodePool {}", target);
         postcodePoolDao.update(target);
         return postcodePoolMapper.toDto(target);
@@ -0,0 +1,24 @@
+package com.opinta.service;
+
+import com.opinta.dto.RateLimitBucketDto;
+import com.opinta.ratelimit.EndpointClass;
+import java.util.List;
+
+public interface RateLimitService {
+    /**
+     * Counterparty of requests without a counterparty id, it has one set of buckets shared by all of them
+     */
+    long ANONYMOUS_COUNTERPARTY_ID = -1;
+
+    /**
+     * An id that isn't known to belong to a counterparty also takes a token of the anonymous buckets,
+     * so made up ids are limited by them and get no buckets of their own
+     *
+     * @return 0 when the request is admitted, otherwise the nanos until the counterparty may retry
+     */
+    long tryAcquire(long counterpartyId, EndpointClass endpointClass);
+
+    List<RateLimitBucketDto> getBuckets();
+
+    List<RateLimitBucketDto> getBuckets(long counterpartyId);
+}
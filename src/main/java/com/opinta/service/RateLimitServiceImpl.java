@@ -0,0 +1,164 @@
+package com.opinta.service;
+
+import com.opinta.dao.CounterpartyDao;
+import com.opinta.dto.RateLimitBucketDto;
+import com.opinta.ratelimit.EndpointClass;
+import com.opinta.ratelimit.TokenBucket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Token buckets of every counterparty and endpoint class. A full bucket is the same as a new one,
+ * so buckets of counterparties that have been idle long enough to refill are evicted.
+ * Buckets are only allocated for ids looked up as counterparties, the ids found are remembered,
+ * so the map is bounded by the number of counterparties
+ */
+@Service
+@Slf4j
+public class RateLimitServiceImpl implements RateLimitService {
+    private static final EndpointClass[] ENDPOINT_CLASSES = EndpointClass.values();
+
+    private final int[] bursts = new int[ENDPOINT_CLASSES.length];
+    private final double[] refillsPerSecond = new double[ENDPOINT_CLASSES.length];
+    private final Map<Long, TokenBucket[]> buckets = new ConcurrentHashMap<>();
+    private final Set<Long> counterpartyIds = ConcurrentHashMap.newKeySet();
+    private final CounterpartyDao counterpartyDao;
+    private final TransactionTemplate transactionTemplate;
+    private final long evictionIntervalSeconds;
+    private final ScheduledExecutorService evictionExecutor;
+
+    @Autowired
+    public RateLimitServiceImpl(CounterpartyDao counterpartyDao, PlatformTransactionManager transactionManager,
+                                Environment environment) {
+        this.counterpartyDao = counterpartyDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        for (EndpointClass endpointClass : ENDPOINT_CLASSES) {
+            String prefix = "ratelimit." + endpointClass.name().toLowerCase() + ".";
+            bursts[endpointClass.ordinal()] = environment.getRequiredProperty(prefix + "burst", Integer.class);
+            refillsPerSecond[endpointClass.ordinal()] =
+                    environment.getRequiredProperty(prefix + "refillPerSecond", Double.class);
+        }
+        this.evictionIntervalSeconds = environment.getRequiredProperty("ratelimit.evictionIntervalSeconds",
+                Long.class);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("rate-limit-eviction-");
+        threadFactory.setDaemon(true);
+        this.evictionExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @PostConstruct
+    public void start() {
+        evictionExecutor.scheduleWithFixedDelay(this::evictFull, evictionIntervalSeconds, evictionIntervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        evictionExecutor.shutdownNow();
+    }
+
+    @Override
+    public long tryAcquire(long counterpartyId, EndpointClass endpointClass) {
+        long now = System.nanoTime();
+        if (counterpartyId != ANONYMOUS_COUNTERPARTY_ID && !counterpartyIds.contains(counterpartyId)) {
+            // the lookup is only made for requests the anonymous buckets admit
+            long waitNanos = tryAcquire(ANONYMOUS_COUNTERPARTY_ID, endpointClass, now);
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (!counterpartyExists(counterpartyId)) {
+                log.debug("Limiting {} request of unknown counterparty {} as anonymous", endpointClass,
+                        counterpartyId);
+                return 0;
+            }
+            counterpartyIds.add(counterpartyId);
+        }
+        return tryAcquire(counterpartyId, endpointClass, now);
+    }
+
+    private long tryAcquire(long counterpartyId, EndpointClass endpointClass, long now) {
+        TokenBucket bucket = buckets.computeIfAbsent(counterpartyId, key -> newBuckets(now))[endpointClass.ordinal()];
+        long waitNanos = bucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            log.debug("Rate limited {} request of counterparty {}", endpointClass, counterpartyId);
+        }
+        return waitNanos;
+    }
+
+    @Override
+    public List<RateLimitBucketDto> getBuckets() {
+        long now = System.nanoTime();
+        List<RateLimitBucketDto> bucketDtos = new ArrayList<>();
+        buckets.forEach((counterpartyId, counterpartyBuckets) ->
+                addBucketDtos(bucketDtos, counterpartyId, counterpartyBuckets, now));
+        return bucketDtos;
+    }
+
+    @Override
+    public List<RateLimitBucketDto> getBuckets(long counterpartyId) {
+        long now = System.nanoTime();
+        // a counterparty without buckets is not limited at the moment, as if its buckets were full
+        TokenBucket[] counterpartyBuckets = buckets.getOrDefault(counterpartyId, newBuckets(now));
+        List<RateLimitBucketDto> bucketDtos = new ArrayList<>(ENDPOINT_CLASSES.length);
+        addBucketDtos(bucketDtos, counterpartyId, counterpartyBuckets, now);
+        return bucketDtos;
+    }
+
+    private void addBucketDtos(List<RateLimitBucketDto> bucketDtos, long counterpartyId,
+                               TokenBucket[] counterpartyBuckets, long now) {
+        for (EndpointClass endpointClass : ENDPOINT_CLASSES) {
+            TokenBucket bucket = counterpartyBuckets[endpointClass.ordinal()];
+            RateLimitBucketDto bucketDto = new RateLimitBucketDto();
+            bucketDto.setCounterpartyId(counterpartyId);
+            bucketDto.setEndpointClass(endpointClass);
+            bucketDto.setTokens(bucket.getTokens(now));
+            bucketDto.setBurst(bucket.getBurst());
+            bucketDto.setRefillPerSecond(bucket.getRefillPerSecond());
+            bucketDtos.add(bucketDto);
+        }
+    }
+
+    private boolean counterpartyExists(long counterpartyId) {
+        return transactionTemplate.execute(status -> counterpartyDao.getById(counterpartyId) != null);
+    }
+
+    private TokenBucket[] newBuckets(long now) {
+        TokenBucket[] counterpartyBuckets = new TokenBucket[ENDPOINT_CLASSES.length];
+        for (int i = 0; i < counterpartyBuckets.length; i++) {
+            counterpartyBuckets[i] = new TokenBucket(bursts[i], refillsPerSecond[i], now);
+        }
+        return counterpartyBuckets;
+    }
+
+    /**
+     * A token taken while its buckets are being evicted may be given back, which only lets one request more in
+     */
+    private void evictFull() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(counterpartyBuckets -> {
+            for (TokenBucket bucket : counterpartyBuckets) {
+                if (!bucket.isFull(now)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        log.debug("Evicted rate limit buckets of {} idle counterparties", before - buckets.size());
+    }
+}
@@ -0,0 +1,21 @@
+package com.opinta.service;
+
+public enum ScanEventAck {
+    /**
+     * As soon as the events are in the ingestion buffer, they are lost if the application stops abnormally
+     */
+    BUFFERED,
+    /**
+     * After the transaction that stored the events has been committed
+     */
+    COMMITTED;
+
+    public static ScanEventAck fromName(String name) {
+        for (ScanEventAck ack : values()) {
+            if (ack.name().equalsIgnoreCase(name)) {
+                return ack;
+            }
+        }
+        return null;
+    }
+}
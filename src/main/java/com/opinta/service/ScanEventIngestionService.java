@@ -0,0 +1,17 @@
+package com.opinta.service;
+
+import com.opinta.dto.ScanEventBatchResultDto;
+import com.opinta.dto.ScanEventDto;
+import java.util.Iterator;
+
+public interface ScanEventIngestionService {
+
+    /**
+     * Puts the events into the ingestion buffer as they are read, so a stream doesn't have to fit in memory.
+     * Reading stops at the first event the iterator fails to produce, the events before it are kept
+     * and the result has the index of that event
+     *
+     * @param ack when to return, null for the configured default
+     */
+    ScanEventBatchResultDto ingest(Iterator<ScanEventDto> scanEvents, ScanEventAck ack);
+}
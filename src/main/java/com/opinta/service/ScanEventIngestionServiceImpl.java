@@ -0,0 +1,349 @@
+package com.opinta.service;
+
+import com.opinta.dao.PostOfficeDao;
+import com.opinta.dao.ShipmentDao;
+import com.opinta.dao.ShipmentTrackingDetailDao;
+import com.opinta.dto.ScanEventBatchResultDto;
+import com.opinta.dto.ScanEventDto;
+import com.opinta.entity.PostOffice;
+import com.opinta.entity.Shipment;
+import com.opinta.entity.ShipmentTrackingDetail;
+import com.opinta.mapper.ShipmentTrackingDetailMapper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Scan events are queued in a bounded ring buffer and a single writer thread stores them
+ * with jdbc batch inserts, every batchSize events or flushIntervalMillis after the first buffered event.
+ * A full buffer makes senders wait up to offerTimeoutMillis, events that still don't fit are rejected
+ */
+@Service
+@Slf4j
+public class ScanEventIngestionServiceImpl implements ScanEventIngestionService {
+    private final ShipmentTrackingDetailDao shipmentTrackingDetailDao;
+    private final ShipmentDao shipmentDao;
+    private final PostOfficeDao postOfficeDao;
+    private final ShipmentCurrentStatusService shipmentCurrentStatusService;
+    private final TrackingStreamService trackingStreamService;
+    private final ShipmentTrackingDetailMapper shipmentTrackingDetailMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingScanEvent> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMillis;
+    private final long ackTimeoutMillis;
+    private final ScanEventAck defaultAck;
+    private final Thread writer = new Thread(this::writeBatches, "scan-event-writer");
+    private volatile boolean running = true;
+
+    @Autowired
+    public ScanEventIngestionServiceImpl(ShipmentTrackingDetailDao shipmentTrackingDetailDao, ShipmentDao shipmentDao,
+                                         PostOfficeDao postOfficeDao,
+                                         ShipmentCurrentStatusService shipmentCurrentStatusService,
+                                         TrackingStreamService trackingStreamService,
+                                         ShipmentTrackingDetailMapper shipmentTrackingDetailMapper,
+                                         PlatformTransactionManager transactionManager, Environment environment) {
+        this.shipmentTrackingDetailDao = shipmentTrackingDetailDao;
+        this.shipmentDao = shipmentDao;
+        this.postOfficeDao = postOfficeDao;
+        this.shipmentCurrentStatusService = shipmentCurrentStatusService;
+        this.trackingStreamService = trackingStreamService;
+        this.shipmentTrackingDetailMapper = shipmentTrackingDetailMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.buffer = new ArrayBlockingQueue<>(
+                environment.getRequiredProperty("tracking.ingest.bufferCapacity", Integer.class));
+        this.batchSize = environment.getRequiredProperty("tracking.ingest.batchSize", Integer.class);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(
+                environment.getRequiredProperty("tracking.ingest.flushIntervalMillis", Long.class));
+        this.offerTimeoutMillis = environment.getRequiredProperty("tracking.ingest.offerTimeoutMillis", Long.class);
+        this.ackTimeoutMillis = environment.getRequiredProperty("tracking.ingest.ackTimeoutMillis", Long.class);
+        this.defaultAck = ScanEventAck.valueOf(environment.getRequiredProperty("tracking.ingest.ack").toUpperCase());
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        log.info("Stopping scan event writer, {} events are buffered", buffer.size());
+        running = false;
+        writer.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + ackTimeoutMillis);
+    }
+
+    @Override
+    public ScanEventBatchResultDto ingest(Iterator<ScanEventDto> scanEvents, ScanEventAck ack) {
+        if (ack == null) {
+            ack = defaultAck;
+        }
+        ScanEventBatchResultDto result = new ScanEventBatchResultDto();
+        BatchTicket ticket = ack == ScanEventAck.COMMITTED ? new BatchTicket() : null;
+        int index = 0;
+        int buffered = 0;
+        int rejected = 0;
+        boolean bufferFull = false;
+        try {
+            for (; scanEvents.hasNext(); index++) {
+                ScanEventDto scanEvent = scanEvents.next();
+                if (!isValid(scanEvent)) {
+                    rejected++;
+                    continue;
+                }
+                if (ticket != null) {
+                    ticket.enqueued();
+                }
+                PendingScanEvent pendingScanEvent = new PendingScanEvent(scanEvent, ticket);
+                // once the buffer has been full for offerTimeoutMillis the rest of the batch doesn't wait again
+                boolean offered = bufferFull ? buffer.offer(pendingScanEvent)
+                        : buffer.offer(pendingScanEvent, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+                if (offered) {
+                    buffered++;
+                } else {
+                    bufferFull = true;
+                    if (ticket != null) {
+                        ticket.cancelled();
+                    }
+                    rejected++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.setError(String.format("Interrupted at scan event %d", index));
+            result.setFailedIndex(index);
+        } catch (RuntimeException e) {
+            log.debug("Can't read scan event {}", index, e);
+            result.setError(String.format("Malformed scan event at index %d", index));
+            result.setFailedIndex(index);
+        }
+        if (bufferFull) {
+            log.warn("Scan event buffer is full, rejected {} events", rejected);
+        }
+        result.setAccepted(buffered);
+        result.setRejected(rejected);
+        if (ticket != null && ticket.await(ackTimeoutMillis)) {
+            result.setAccepted(ticket.getWritten());
+            result.setRejected(rejected + ticket.getFailed());
+            result.setCommitted(true);
+        }
+        log.info("Ingested scan event batch: accepted {}, rejected {}, committed {}",
+                result.getAccepted(), result.getRejected(), result.isCommitted());
+        return result;
+    }
+
+    private boolean isValid(ScanEventDto scanEvent) {
+        return (scanEvent.getShipmentId() != null || scanEvent.getBarcode() != null)
+                && scanEvent.getShipmentStatus() != null && scanEvent.getDate() != null;
+    }
+
+    private void writeBatches() {
+        List<PendingScanEvent> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                log.warn("Scan event writer has been interrupted");
+                running = false;
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                log.warn("Can't store batch of {} scan events, storing them one by one", batch.size(), e);
+                writeOneByOne(batch);
+            }
+            batch.clear();
+        }
+        log.info("Scan event writer has stopped");
+    }
+
+    // only the events that fail on their own are rejected, not the whole batch they came with
+    private void writeOneByOne(List<PendingScanEvent> batch) {
+        for (PendingScanEvent pendingScanEvent : batch) {
+            if (pendingScanEvent.completed) {
+                continue;
+            }
+            try {
+                write(Collections.singletonList(pendingScanEvent));
+            } catch (RuntimeException e) {
+                log.error("Can't store scan event of shipment {}", pendingScanEvent.scanEvent.getShipmentId() != null
+                        ? pendingScanEvent.scanEvent.getShipmentId() : pendingScanEvent.scanEvent.getBarcode(), e);
+                pendingScanEvent.completed(false);
+            }
+        }
+    }
+
+    private void fillBatch(List<PendingScanEvent> batch) throws InterruptedException {
+        PendingScanEvent first = buffer.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            PendingScanEvent next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    private void write(List<PendingScanEvent> batch) {
+        List<PendingScanEvent> written = new ArrayList<>(batch.size());
+        transactionTemplate.execute(status -> {
+            Set<String> barcodes = new HashSet<>();
+            Set<Long> shipmentIds = new HashSet<>();
+            Set<Long> postOfficeIds = new HashSet<>();
+            batch.forEach(pendingScanEvent -> {
+                ScanEventDto scanEvent = pendingScanEvent.scanEvent;
+                if (scanEvent.getShipmentId() != null) {
+                    shipmentIds.add(scanEvent.getShipmentId());
+                } else {
+                    barcodes.add(scanEvent.getBarcode());
+                }
+                if (scanEvent.getPostOfficeId() != null) {
+                    postOfficeIds.add(scanEvent.getPostOfficeId());
+                }
+            });
+            Map<String, Long> shipmentIdsByBarcode = shipmentDao.getIdsByBarcodes(barcodes);
+            Set<Long> existingShipmentIds = shipmentDao.getExistingIds(shipmentIds);
+            Set<Long> existingPostOfficeIds = postOfficeDao.getExistingIds(postOfficeIds);
+
+            List<ShipmentTrackingDetail> shipmentTrackingDetails = new ArrayList<>(batch.size());
+            for (PendingScanEvent pendingScanEvent : batch) {
+                ScanEventDto scanEvent = pendingScanEvent.scanEvent;
+                Long shipmentId = scanEvent.getShipmentId();
+                boolean knownShipment = existingShipmentIds.contains(shipmentId);
+                if (shipmentId == null) {
+                    shipmentId = shipmentIdsByBarcode.get(scanEvent.getBarcode());
+                    knownShipment = shipmentId != null;
+                }
+                boolean knownPostOffice = scanEvent.getPostOfficeId() == null
+                        || existingPostOfficeIds.contains(scanEvent.getPostOfficeId());
+                if (!knownShipment || !knownPostOffice) {
+                    log.debug("Rejecting scan event of unknown shipment {} or post office {}",
+                            shipmentId != null ? shipmentId : scanEvent.getBarcode(), scanEvent.getPostOfficeId());
+                    pendingScanEvent.completed(false);
+                    continue;
+                }
+                Shipment shipment = new Shipment();
+                shipment.setId(shipmentId);
+                PostOffice postOffice = null;
+                if (scanEvent.getPostOfficeId() != null) {
+                    postOffice = new PostOffice();
+                    postOffice.setId(scanEvent.getPostOfficeId());
+                }
+                shipmentTrackingDetails.add(new ShipmentTrackingDetail(shipment, postOffice,
+                        scanEvent.getShipmentStatus(), scanEvent.getDate()));
+                written.add(pendingScanEvent);
+            }
+            if (!shipmentTrackingDetails.isEmpty()) {
+                shipmentTrackingDetailDao.insertAll(shipmentTrackingDetails);
+                shipmentCurrentStatusService.apply(shipmentTrackingDetails);
+                trackingStreamService.publishAfterCommit(shipmentTrackingDetailMapper.toDto(shipmentTrackingDetails));
+            }
+            return null;
+        });
+        written.forEach(pendingScanEvent -> pendingScanEvent.completed(true));
+        log.debug("Stored {} of {} scan events", written.size(), batch.size());
+    }
+
+    private static class PendingScanEvent {
+        private final ScanEventDto scanEvent;
+        private final BatchTicket ticket;
+        private boolean completed;
+
+        private PendingScanEvent(ScanEventDto scanEvent, BatchTicket ticket) {
+            this.scanEvent = scanEvent;
+            this.ticket = ticket;
+        }
+
+        private void completed(boolean written) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            if (ticket != null) {
+                ticket.completed(written);
+            }
+        }
+    }
+
+    /**
+     * Tracks the events of a request acknowledged after commit
+     */
+    private static class BatchTicket {
+        private int pending;
+        private int written;
+        private int failed;
+
+        private synchronized void enqueued() {
+            pending++;
+        }
+
+        private synchronized void cancelled() {
+            pending--;
+        }
+
+        private synchronized void completed(boolean isWritten) {
+            pending--;
+            if (isWritten) {
+                written++;
+            } else {
+                failed++;
+            }
+            if (pending == 0) {
+                notifyAll();
+            }
+        }
+
+        private synchronized boolean await(long timeoutMillis) {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            try {
+                while (pending > 0) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return true;
+        }
+
+        private synchronized int getWritten() {
+            return written;
+        }
+
+        private synchronized int getFailed() {
+            return failed;
+        }
+    }
+}
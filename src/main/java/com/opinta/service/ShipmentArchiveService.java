@@ -0,0 +1,26 @@
+package com.opinta.service;
+
+import com.opinta.dto.ShipmentDto;
+import com.opinta.dto.ShipmentTrackingDetailDto;
+import java.util.List;
+
+public interface ShipmentArchiveService {
+
+    /**
+     * Moves shipments delivered longer than the configured age ago with their parcels and tracking history
+     * from the database to the archive, batch by batch
+     *
+     * @return number of archived shipments
+     */
+    int archiveDelivered();
+
+    /**
+     * @return the archived shipment or null if it isn't archived
+     */
+    ShipmentDto getShipment(long id);
+
+    /**
+     * @return tracking history of the archived shipment or null if it isn't archived
+     */
+    List<ShipmentTrackingDetailDto> getTracking(long shipmentId);
+}
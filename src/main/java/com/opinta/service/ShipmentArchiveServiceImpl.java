@@ -0,0 +1,182 @@
+package com.opinta.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opinta.archive.ShipmentArchive;
+import com.opinta.dao.ShipmentCurrentStatusDao;
+import com.opinta.dao.ShipmentDao;
+import com.opinta.dao.ShipmentFetchPlan;
+import com.opinta.dao.ShipmentTrackingDetailDao;
+import com.opinta.dto.ArchivedShipmentDto;
+import com.opinta.dto.ShipmentDto;
+import com.opinta.dto.ShipmentTrackingDetailDto;
+import com.opinta.entity.Shipment;
+import com.opinta.entity.ShipmentStatus;
+import com.opinta.mapper.ShipmentMapper;
+import com.opinta.mapper.ShipmentTrackingDetailMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Every batch is written to the archive before it is deleted in the same transaction, so a failed commit
+ * leaves a copy in the archive and the shipment in the database, which is still read from the database first
+ */
+@Service
+@Slf4j
+public class ShipmentArchiveServiceImpl implements ShipmentArchiveService {
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM").withZone(ZoneOffset.UTC);
+
+    private final ShipmentDao shipmentDao;
+    private final ShipmentTrackingDetailDao shipmentTrackingDetailDao;
+    private final ShipmentCurrentStatusDao shipmentCurrentStatusDao;
+    private final ShipmentMapper shipmentMapper;
+    private final ShipmentTrackingDetailMapper shipmentTrackingDetailMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ShipmentArchive shipmentArchive;
+    private final long deliveredAgeMillis;
+    private final int batchSize;
+    private final long intervalMinutes;
+    private final ScheduledExecutorService archiveExecutor;
+
+    @Autowired
+    public ShipmentArchiveServiceImpl(ShipmentDao shipmentDao, ShipmentTrackingDetailDao shipmentTrackingDetailDao,
+                                      ShipmentCurrentStatusDao shipmentCurrentStatusDao, ShipmentMapper shipmentMapper,
+                                      ShipmentTrackingDetailMapper shipmentTrackingDetailMapper,
+                                      PlatformTransactionManager transactionManager, Environment environment)
+            throws IOException {
+        this.shipmentDao = shipmentDao;
+        this.shipmentTrackingDetailDao = shipmentTrackingDetailDao;
+        this.shipmentCurrentStatusDao = shipmentCurrentStatusDao;
+        this.shipmentMapper = shipmentMapper;
+        this.shipmentTrackingDetailMapper = shipmentTrackingDetailMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.deliveredAgeMillis = TimeUnit.DAYS.toMillis(
+                environment.getRequiredProperty("archive.shipments.deliveredAgeDays", Long.class));
+        this.batchSize = environment.getRequiredProperty("archive.shipments.batchSize", Integer.class);
+        this.intervalMinutes = environment.getRequiredProperty("archive.shipments.intervalMinutes", Long.class);
+        this.shipmentArchive = new ShipmentArchive(
+                Paths.get(environment.getRequiredProperty("archive.shipments.directory")),
+                environment.getRequiredProperty("archive.shipments.blockSize", Integer.class),
+                new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES),
+                environment.getRequiredProperty("hibernate.hbm2ddl.auto").startsWith("create"));
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("shipment-archive-");
+        threadFactory.setDaemon(true);
+        this.archiveExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @PostConstruct
+    public void start() {
+        archiveExecutor.scheduleWithFixedDelay(this::archiveScheduled, intervalMinutes, intervalMinutes,
+                TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        archiveExecutor.shutdownNow();
+    }
+
+    @Override
+    public synchronized int archiveDelivered() {
+        Date before = new Date(System.currentTimeMillis() - deliveredAgeMillis);
+        log.info("Archiving shipments delivered before {}", before);
+        int archived = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> archiveBatch(before));
+            archived += batch;
+        } while (batch == batchSize);
+        log.info("Archived {} shipments delivered before {}", archived, before);
+        return archived;
+    }
+
+    private int archiveBatch(Date before) {
+        Map<Long, Date> deliveredAt = shipmentCurrentStatusDao.getDatesByStatusBefore(ShipmentStatus.DELIVERED,
+                before, batchSize);
+        if (deliveredAt.isEmpty()) {
+            return 0;
+        }
+        List<Shipment> shipments = shipmentDao.getByIds(deliveredAt.keySet(), ShipmentFetchPlan.FULL);
+        List<Long> shipmentIds = shipments.stream().map(Shipment::getId).collect(Collectors.toList());
+        Map<Long, List<ShipmentTrackingDetailDto>> tracking = shipmentIds.isEmpty() ? new HashMap<>()
+                : shipmentTrackingDetailMapper.toDto(shipmentTrackingDetailDao.getByShipmentIds(shipmentIds)).stream()
+                        .collect(Collectors.groupingBy(ShipmentTrackingDetailDto::getShipmentId));
+
+        Map<String, List<ArchivedShipmentDto>> shipmentsByMonth = new TreeMap<>();
+        for (Shipment shipment : shipments) {
+            ArchivedShipmentDto archivedShipmentDto = new ArchivedShipmentDto();
+            archivedShipmentDto.setId(shipment.getId());
+            archivedShipmentDto.setDeliveredAt(deliveredAt.get(shipment.getId()));
+            archivedShipmentDto.setShipment(shipmentMapper.toDto(shipment));
+            archivedShipmentDto.setTracking(tracking.getOrDefault(shipment.getId(), new ArrayList<>()));
+            shipmentsByMonth.computeIfAbsent(MONTH.format(archivedShipmentDto.getDeliveredAt().toInstant()),
+                    month -> new ArrayList<>()).add(archivedShipmentDto);
+        }
+        try {
+            for (Map.Entry<String, List<ArchivedShipmentDto>> month : shipmentsByMonth.entrySet()) {
+                shipmentArchive.append(month.getKey(), month.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        shipmentTrackingDetailDao.deleteByShipmentIds(shipmentIds);
+        shipmentCurrentStatusDao.deleteByShipmentIds(deliveredAt.keySet());
+        shipmentDao.deleteAll(shipmentIds);
+        log.debug("Moved {} delivered shipments to the archive", shipmentIds.size());
+        return deliveredAt.size();
+    }
+
+    private void archiveScheduled() {
+        try {
+            archiveDelivered();
+        } catch (RuntimeException e) {
+            log.error("Can't archive delivered shipments", e);
+        }
+    }
+
+    @Override
+    public ShipmentDto getShipment(long id) {
+        ArchivedShipmentDto archivedShipmentDto = find(id);
+        return archivedShipmentDto == null ? null : archivedShipmentDto.getShipment();
+    }
+
+    @Override
+    public List<ShipmentTrackingDetailDto> getTracking(long shipmentId) {
+        ArchivedShipmentDto archivedShipmentDto = find(shipmentId);
+        return archivedShipmentDto == null ? null : archivedShipmentDto.getTracking();
+    }
+
+    private ArchivedShipmentDto find(long id) {
+        try {
+            ArchivedShipmentDto archivedShipmentDto = shipmentArchive.find(id);
+            if (archivedShipmentDto != null) {
+                log.info("Read shipment {} from the archive", id);
+            }
+            return archivedShipmentDto;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
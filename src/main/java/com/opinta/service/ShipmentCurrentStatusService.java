@@ -0,0 +1,31 @@
+package com.opinta.service;
+
+import com.opinta.dto.ShipmentCurrentStatusDto;
+import com.opinta.entity.ShipmentStatus;
+import com.opinta.entity.ShipmentTrackingDetail;
+import java.util.List;
+
+public interface ShipmentCurrentStatusService {
+
+    /**
+     * @param status null for any status
+     * @return shipments last seen at the post office, latest first, or null if the post office doesn't exist
+     */
+    List<ShipmentCurrentStatusDto> getByPostOffice(long postOfficeId, ShipmentStatus status, int page, int size);
+
+    /**
+     * Moves the current status of the shipments forward to the new events. Must be called in the transaction
+     * that stores the events, events older than the current status of their shipment are skipped.
+     * The shipments stay locked until that transaction ends.
+     * The time spent in the previous status is counted as dwell time of its post office
+     */
+    void apply(List<ShipmentTrackingDetail> shipmentTrackingDetails);
+
+    /**
+     * Rebuilds the current status of the shipment from its tracking history, after an event has been
+     * changed or deleted. Must be called in the transaction that changed the event. A caller refreshing several
+     * shipments locks them together first with {@link com.opinta.dao.ShipmentDao#lockByIds}, so they are locked
+     * in id order
+     */
+    void refresh(long shipmentId);
+}
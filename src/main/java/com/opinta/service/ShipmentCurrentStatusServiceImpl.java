@@ -0,0 +1,133 @@
+package com.opinta.service;
+
+import com.opinta.dao.PostOfficeDao;
+import com.opinta.dao.ShipmentCurrentStatusDao;
+import com.opinta.dao.ShipmentDao;
+import com.opinta.dao.ShipmentTrackingDetailDao;
+import com.opinta.dto.ShipmentCurrentStatusDto;
+import com.opinta.entity.ShipmentCurrentStatus;
+import com.opinta.entity.ShipmentStatus;
+import com.opinta.entity.ShipmentTrackingDetail;
+import com.opinta.mapper.ShipmentCurrentStatusMapper;
+import com.opinta.metrics.DwellSample;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@Slf4j
+public class ShipmentCurrentStatusServiceImpl implements ShipmentCurrentStatusService {
+    private final ShipmentCurrentStatusDao shipmentCurrentStatusDao;
+    private final ShipmentTrackingDetailDao shipmentTrackingDetailDao;
+    private final ShipmentDao shipmentDao;
+    private final PostOfficeDao postOfficeDao;
+    private final ShipmentCurrentStatusMapper shipmentCurrentStatusMapper;
+    private final PostOfficeStatsService postOfficeStatsService;
+
+    @Autowired
+    public ShipmentCurrentStatusServiceImpl(ShipmentCurrentStatusDao shipmentCurrentStatusDao,
+                                            ShipmentTrackingDetailDao shipmentTrackingDetailDao,
+                                            ShipmentDao shipmentDao, PostOfficeDao postOfficeDao,
+                                            ShipmentCurrentStatusMapper shipmentCurrentStatusMapper,
+                                            PostOfficeStatsService postOfficeStatsService) {
+        this.shipmentCurrentStatusDao = shipmentCurrentStatusDao;
+        this.shipmentTrackingDetailDao = shipmentTrackingDetailDao;
+        this.shipmentDao = shipmentDao;
+        this.postOfficeDao = postOfficeDao;
+        this.shipmentCurrentStatusMapper = shipmentCurrentStatusMapper;
+        this.postOfficeStatsService = postOfficeStatsService;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ShipmentCurrentStatusDto> getByPostOffice(long postOfficeId, ShipmentStatus status,
+                                                          int page, int size) {
+        if (postOfficeDao.getById(postOfficeId) == null) {
+            log.debug("Can't get shipments of post office. PostOffice doesn't exist {}", postOfficeId);
+            return null;
+        }
+        log.info("Getting {} shipments of post office {}, page {}", status, postOfficeId, page);
+        return shipmentCurrentStatusMapper.toDto(
+                shipmentCurrentStatusDao.getByPostOffice(postOfficeId, status, page * size, size));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(List<ShipmentTrackingDetail> shipmentTrackingDetails) {
+        Map<Long, List<ShipmentTrackingDetail>> eventsByShipment = new HashMap<>();
+        shipmentTrackingDetails.forEach(shipmentTrackingDetail -> eventsByShipment
+                .computeIfAbsent(shipmentTrackingDetail.getShipment().getId(), shipmentId -> new ArrayList<>())
+                .add(shipmentTrackingDetail));
+
+        // concurrent writers of the same shipments queue up here, so the statuses read next are the latest ones
+        shipmentDao.lockByIds(eventsByShipment.keySet());
+        Map<Long, ShipmentCurrentStatus> currentStatuses = new HashMap<>();
+        shipmentCurrentStatusDao.getByShipmentIds(eventsByShipment.keySet()).forEach(shipmentCurrentStatus ->
+                currentStatuses.put(shipmentCurrentStatus.getShipmentId(), shipmentCurrentStatus));
+        List<DwellSample> dwells = new ArrayList<>();
+        eventsByShipment.forEach((shipmentId, events) -> {
+            // the sort is stable, so of events with the same date the last one wins
+            events.sort(Comparator.comparing(ShipmentTrackingDetail::getDate));
+            ShipmentCurrentStatus shipmentCurrentStatus = currentStatuses.get(shipmentId);
+            boolean created = shipmentCurrentStatus == null;
+            if (created) {
+                shipmentCurrentStatus = new ShipmentCurrentStatus(shipmentId);
+                copy(events.get(0), shipmentCurrentStatus);
+            }
+            for (ShipmentTrackingDetail shipmentTrackingDetail : events.subList(created ? 1 : 0, events.size())) {
+                if (shipmentTrackingDetail.getDate().before(shipmentCurrentStatus.getDate())) {
+                    log.debug("Skipping out of order event of shipment {} at {}, current status is at {}",
+                            shipmentId, shipmentTrackingDetail.getDate(), shipmentCurrentStatus.getDate());
+                    continue;
+                }
+                if (shipmentCurrentStatus.getPostOffice() != null) {
+                    dwells.add(new DwellSample(shipmentCurrentStatus.getPostOffice().getId(),
+                            shipmentCurrentStatus.getShipmentStatus(),
+                            shipmentTrackingDetail.getDate().getTime() - shipmentCurrentStatus.getDate().getTime()));
+                }
+                copy(shipmentTrackingDetail, shipmentCurrentStatus);
+            }
+            if (created) {
+                shipmentCurrentStatusDao.save(shipmentCurrentStatus);
+            }
+        });
+        postOfficeStatsService.recordAfterCommit(shipmentTrackingDetails, dwells);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refresh(long shipmentId) {
+        shipmentDao.lockByIds(Collections.singleton(shipmentId));
+        List<ShipmentTrackingDetail> shipmentTrackingDetails = shipmentTrackingDetailDao.getByShipmentId(shipmentId);
+        ShipmentCurrentStatus shipmentCurrentStatus = shipmentCurrentStatusDao.getByShipmentId(shipmentId);
+        if (shipmentTrackingDetails.isEmpty()) {
+            if (shipmentCurrentStatus != null) {
+                log.info("Deleting current status of shipment {} without tracking events", shipmentId);
+                shipmentCurrentStatusDao.delete(shipmentCurrentStatus);
+            }
+            return;
+        }
+        ShipmentTrackingDetail latest = shipmentTrackingDetails.get(shipmentTrackingDetails.size() - 1);
+        if (shipmentCurrentStatus == null) {
+            shipmentCurrentStatus = new ShipmentCurrentStatus(shipmentId);
+            copy(latest, shipmentCurrentStatus);
+            shipmentCurrentStatusDao.save(shipmentCurrentStatus);
+        } else {
+            copy(latest, shipmentCurrentStatus);
+        }
+    }
+
+    private void copy(ShipmentTrackingDetail source, ShipmentCurrentStatus target) {
+        target.setPostOffice(source.getPostOffice());
+        target.setShipmentStatus(source.getShipmentStatus());
+        target.setDate(source.getDate());
+    }
+}
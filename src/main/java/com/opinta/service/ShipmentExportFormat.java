@@ -0,0 +1,32 @@
+package com.opinta.service;
+
+import lombok.Getter;
+
+@Getter
+public enum ShipmentExportFormat {
+    /**
+     * One shipment per line, in the same representation as returned by the shipments endpoint
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+    /**
+     * One parcel item per row, shipment and parcel columns are repeated for each item
+     */
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ShipmentExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public static ShipmentExportFormat fromName(String name) {
+        for (ShipmentExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.opinta.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+public interface ShipmentExportService {
+
+    long export(ShipmentExportFormat format, OutputStream outputStream) throws IOException;
+
+    long exportToFile(ShipmentExportFormat format, Path file) throws IOException;
+}
@@ -0,0 +1,149 @@
+package com.opinta.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.opinta.dao.ShipmentDao;
+import com.opinta.entity.Client;
+import com.opinta.entity.Parcel;
+import com.opinta.entity.ParcelItem;
+import com.opinta.entity.Shipment;
+import com.opinta.mapper.ShipmentMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@Slf4j
+public class ShipmentExportServiceImpl implements ShipmentExportService {
+    private static final int FETCH_SIZE = 500;
+    private static final String CSV_HEADER = "shipmentId,senderId,recipientId,deliveryType,postPay,description,"
+            + "shipmentPrice,parcelId,weight,length,width,height,declaredPrice,parcelPrice,"
+            + "parcelItemId,parcelItemName,quantity,parcelItemWidth,parcelItemPrice";
+    private final ShipmentDao shipmentDao;
+    private final ShipmentMapper shipmentMapper;
+    private final ObjectWriter objectWriter = new ObjectMapper().writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    @Autowired
+    public ShipmentExportServiceImpl(ShipmentDao shipmentDao, ShipmentMapper shipmentMapper) {
+        this.shipmentDao = shipmentDao;
+        this.shipmentMapper = shipmentMapper;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long export(ShipmentExportFormat format, OutputStream outputStream) throws IOException {
+        log.info("Exporting shipments as {}", format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == ShipmentExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        long[] exported = {0};
+        try {
+            shipmentDao.scrollAllWithParcelItems(FETCH_SIZE, shipment -> {
+                try {
+                    if (format == ShipmentExportFormat.CSV) {
+                        writeCsv(writer, shipment);
+                    } else {
+                        writeNdjson(writer, shipment);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                exported[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            log.error("Shipment export has been interrupted after {} shipments", exported[0], e);
+            throw e.getCause();
+        }
+        writer.flush();
+        log.info("Exported {} shipments as {}", exported[0], format);
+        return exported[0];
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportToFile(ShipmentExportFormat format, Path file) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            return export(format, outputStream);
+        }
+    }
+
+    private void writeNdjson(Writer writer, Shipment shipment) throws IOException {
+        objectWriter.writeValue(writer, shipmentMapper.toDto(shipment));
+        writer.write('\n');
+    }
+
+    private void writeCsv(Writer writer, Shipment shipment) throws IOException {
+        if (shipment.getParcels().isEmpty()) {
+            writeCsvRow(writer, shipment, null, null);
+        }
+        for (Parcel parcel : shipment.getParcels()) {
+            if (parcel.getParcelItems().isEmpty()) {
+                writeCsvRow(writer, shipment, parcel, null);
+            }
+            for (ParcelItem parcelItem : parcel.getParcelItems()) {
+                writeCsvRow(writer, shipment, parcel, parcelItem);
+            }
+        }
+    }
+
+    private void writeCsvRow(Writer writer, Shipment shipment, Parcel parcel, ParcelItem parcelItem)
+            throws IOException {
+        writeCsvValues(writer, shipment.getId(), clientId(shipment.getSender()), clientId(shipment.getRecipient()),
+                shipment.getDeliveryType(), shipment.getPostPay(), shipment.getDescription(), shipment.getPrice());
+        if (parcel == null) {
+            writer.write(",,,,,,,,,,,,");
+        } else {
+            writer.write(',');
+            writeCsvValues(writer, parcel.getId(), parcel.getWeight(), parcel.getLength(), parcel.getWidth(),
+                    parcel.getHeight(), parcel.getDeclaredPrice(), parcel.getPrice());
+            if (parcelItem == null) {
+                writer.write(",,,,,");
+            } else {
+                writer.write(',');
+                writeCsvValues(writer, parcelItem.getId(), parcelItem.getName(), parcelItem.getQuantity(),
+                        parcelItem.getWidth(), parcelItem.getPrice());
+            }
+        }
+        writer.write('\n');
+    }
+
+    private Long clientId(Client client) {
+        return client == null ? null : client.getId();
+    }
+
+    private void writeCsvValues(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values[i]));
+        }
+    }
+
+    private String escapeCsv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,8 +1,18 @@
 package com.opinta.service;
 
+import com.opinta.util.JsonFormat;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
 
+import com.opinta.dao.FieldProjection;
+import com.opinta.dao.ShipmentFetchPlan;
+import com.opinta.dao.ShipmentFilter;
+import com.opinta.dao.ShipmentSort;
+import com.opinta.dto.ShipmentBatchResultDto;
 import com.opinta.dto.ShipmentDto;
+import com.opinta.dto.ShipmentSearchResultDto;
 import com.opinta.entity.Parcel;
 import com.opinta.entity.Shipment;
 
@@ -12,17 +22,57 @@ public interface ShipmentService {
 
     Shipment getEntityById(long id);
 
+    Shipment getEntityById(long id, ShipmentFetchPlan fetchPlan);
+
     Shipment saveEntity(Shipment shipment);
     
     List<ShipmentDto> getAll();
 
+    /**
+     * Writes every shipment as an array in the format, shipments are loaded and written one by one
+     *
+     * @return number of written shipments
+     */
+    long writeAll(JsonFormat format, OutputStream outputStream) throws IOException;
+
     List<ShipmentDto> getAllByClientId(long clientId);
+
+    /**
+     * @param after cursor of the previous page or null for the first one
+     * @return a page of at most limit matching shipments or null if the cursor is invalid for the sort
+     */
+    ShipmentSearchResultDto search(ShipmentFilter filter, ShipmentSort sort, String after, int limit);
     
     ShipmentDto getById(long id);
+
+    /**
+     * @return projection of the comma separated shipment dto fields or null if any of them is unknown,
+     * parcels can't be projected
+     */
+    FieldProjection getFieldProjection(String fields);
+
+    /**
+     * @return the projected fields of the shipment or null if it doesn't exist
+     */
+    Map<String, Object> getById(long id, FieldProjection projection);
+
+    /**
+     * Writes the projected fields of every shipment as an array in the format
+     *
+     * @return number of written shipments
+     */
+    long writeAll(JsonFormat format, OutputStream outputStream, FieldProjection projection) throws IOException;
     
     ShipmentDto save(ShipmentDto shipmentDto);
+
+    List<ShipmentBatchResultDto> saveAll(List<ShipmentDto> shipmentDtos);
     
-    ShipmentDto update(long id, ShipmentDto shipmentDto);
+    /**
+     * @param expectedVersion version the client has seen, null to skip the check
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the shipment has another version
+     *                                                                     or has been changed concurrently
+     */
+    ShipmentDto update(long id, ShipmentDto shipmentDto, Long expectedVersion);
     
     boolean delete(long id);
 
@@ -2,16 +2,29 @@ package com.opinta.service;
 
 import com.opinta.dao.TariffGridDao;
 
-import java.lang.reflect.InvocationTargetException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.opinta.dao.ClientDao;
+import com.opinta.dao.FieldProjection;
 import com.opinta.dao.ShipmentDao;
+import com.opinta.dao.ShipmentFetchPlan;
+import com.opinta.dao.ShipmentFilter;
+import com.opinta.dao.ShipmentSort;
+import com.opinta.dto.ShipmentBatchResultDto;
 import com.opinta.dto.ShipmentDto;
+import com.opinta.dto.ShipmentSearchResultDto;
 
 import com.opinta.entity.Client;
 import com.opinta.entity.Counterparty;
@@ -19,45 +32,80 @@ import com.opinta.entity.PostcodePool;
 import com.opinta.entity.BarcodeInnerNumber;
 import com.opinta.entity.Parcel;
 import com.opinta.entity.Shipment;
+import com.opinta.entity.TariffGrid;
+import com.opinta.logging.LogSampler;
 import com.opinta.mapper.ShipmentMapper;
+import com.opinta.util.JsonFormat;
+import com.opinta.util.JsonStreamUtil;
+import java.io.IOException;
+import java.io.OutputStream;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
-import static org.apache.commons.beanutils.BeanUtils.copyProperties;
+import static java.lang.String.format;
 
 @Service
 @Slf4j
 public class ShipmentServiceImpl implements ShipmentService {
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int FETCH_SIZE = 500;
+    // pdf forms and tracking look shipments up on every request
+    private static final LogSampler GET_LOG_SAMPLER = new LogSampler(100);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final FieldProjection.Fields PROJECTABLE_FIELDS = new FieldProjection.Fields()
+            .field("id")
+            .field("version")
+            .field("senderId", "sender.id")
+            .field("recipientId", "recipient.id")
+            .field("deliveryType")
+            .field("price")
+            .field("postPay")
+            .field("description");
+
     private final ShipmentDao shipmentDao;
     private final ClientDao clientDao;
+    private final TariffGridDao tariffGridDao;
     private final ShipmentMapper shipmentMapper;
     private final BarcodeInnerNumberService barcodeInnerNumberService;
     private final ParcelService parcelService;
+    private final ShipmentArchiveService shipmentArchiveService;
 
     @Autowired
     public ShipmentServiceImpl(ShipmentDao shipmentDao, ClientDao clientDao, TariffGridDao tariffGridDao,
                                ShipmentMapper shipmentMapper, BarcodeInnerNumberService barcodeInnerNumberService,
-                               ParcelService parcelService) {
+                               ParcelService parcelService, ShipmentArchiveService shipmentArchiveService) {
         this.shipmentDao = shipmentDao;
         this.clientDao = clientDao;
+        this.tariffGridDao = tariffGridDao;
         this.shipmentMapper = shipmentMapper;
         this.barcodeInnerNumberService = barcodeInnerNumberService;
         this.parcelService = parcelService;
+        this.shipmentArchiveService = shipmentArchiveService;
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<Shipment> getAllEntities() {
         log.info("Getting all shipments");
-        return shipmentDao.getAll();
+        return shipmentDao.getAll(ShipmentFetchPlan.FULL);
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public Shipment getEntityById(long id) {
-        log.info("Getting postcodePool by id {}", id);
-        return shipmentDao.getById(id);
+        return getEntityById(id, ShipmentFetchPlan.FULL);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Shipment getEntityById(long id, ShipmentFetchPlan fetchPlan) {
+        if (GET_LOG_SAMPLER.sample()) {
+            log.info("Getting shipment by id {} with fetch plan {}, 1 of {} calls is logged", id, fetchPlan,
+                    GET_LOG_SAMPLER.getRate());
+        }
+        return shipmentDao.getById(id, fetchPlan);
     }
 
     @Override
@@ -68,13 +116,29 @@ public class ShipmentServiceImpl implements ShipmentService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<ShipmentDto> getAll() {
         return shipmentMapper.toDto(getAllEntities());
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
+    public long writeAll(JsonFormat format, OutputStream outputStream) throws IOException {
+        log.info("Writing all shipments");
+        return JsonStreamUtil.<ShipmentDto>writeArray(format, outputStream, consumer -> shipmentDao
+                .scrollAllWithParcelItems(FETCH_SIZE, shipment -> consumer.accept(shipmentMapper.toDto(shipment))));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long writeAll(JsonFormat format, OutputStream outputStream, FieldProjection projection) throws IOException {
+        log.info("Writing fields of all shipments");
+        return JsonStreamUtil.<Map<String, Object>>writeArray(format, outputStream,
+                consumer -> shipmentDao.scrollAll(projection, FETCH_SIZE, consumer));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<ShipmentDto> getAllByClientId(long clientId) {
         Client client = clientDao.getById(clientId);
         if (client == null) {
@@ -82,13 +146,69 @@ public class ShipmentServiceImpl implements ShipmentService {
             return null;
         }
         log.info("Getting all shipments by client {}", client);
-        return shipmentMapper.toDto(shipmentDao.getAllByClient(client));
+        return shipmentMapper.toDto(shipmentDao.getAllByClient(client, ShipmentFetchPlan.FULL));
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
+    public ShipmentSearchResultDto search(ShipmentFilter filter, ShipmentSort sort, String after, int limit) {
+        ShipmentSort.Keyset keyset = null;
+        if (after != null) {
+            keyset = sort.fromCursor(after);
+            if (keyset == null) {
+                log.debug("Can't search shipments. Cursor {} is invalid", after);
+                return null;
+            }
+        }
+        log.info("Searching {} shipments", limit);
+        // one more than the page shows whether there is a next page
+        List<Long> ids = shipmentDao.search(filter, sort, keyset, limit + 1);
+        List<Long> pageIds = ids.size() > limit ? ids.subList(0, limit) : ids;
+        Map<Long, Shipment> shipments = shipmentDao.getByIds(pageIds, ShipmentFetchPlan.FULL).stream()
+                .collect(Collectors.toMap(Shipment::getId, Function.identity()));
+        List<Shipment> page = new ArrayList<>(pageIds.size());
+        pageIds.forEach(id -> {
+            // a shipment deleted since the search is left out
+            if (shipments.containsKey(id)) {
+                page.add(shipments.get(id));
+            }
+        });
+
+        ShipmentSearchResultDto searchResultDto = new ShipmentSearchResultDto();
+        searchResultDto.setShipments(shipmentMapper.toDto(page));
+        if (ids.size() > limit && !page.isEmpty()) {
+            searchResultDto.setNext(sort.toCursor(page.get(page.size() - 1)));
+        }
+        return searchResultDto;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public ShipmentDto getById(long id) {
-        return shipmentMapper.toDto(getEntityById(id));
+        Shipment shipment = getEntityById(id);
+        if (shipment == null) {
+            // delivered shipments are moved to the archive after a while
+            return shipmentArchiveService.getShipment(id);
+        }
+        return shipmentMapper.toDto(shipment);
+    }
+
+    @Override
+    public FieldProjection getFieldProjection(String fields) {
+        return PROJECTABLE_FIELDS.compile(fields);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getById(long id, FieldProjection projection) {
+        log.info("Getting fields of shipment by id {}", id);
+        Map<String, Object> fields = shipmentDao.getById(id, projection);
+        if (fields == null) {
+            ShipmentDto archived = shipmentArchiveService.getShipment(id);
+            return archived == null ? null : projection.select(OBJECT_MAPPER.convertValue(archived, Map.class));
+        }
+        return fields;
     }
 
     @Override
@@ -101,7 +221,7 @@ public class ShipmentServiceImpl implements ShipmentService {
         postcodePool.getBarcodeInnerNumbers().add(newBarcode);
         Shipment shipment = shipmentMapper.toEntity(shipmentDto);
         shipment.setBarcode(newBarcode);
-        log.info("Saving shipment with assigned barcode", shipmentMapper.toDto(shipment));
+        log.info("Saving shipment with assigned barcode {}", newBarcode.getNumber());
 
         shipment.setSender(clientDao.getById(shipment.getSender().getId()));
         shipment.setRecipient(clientDao.getById(shipment.getRecipient().getId()));
@@ -116,22 +236,110 @@ public class ShipmentServiceImpl implements ShipmentService {
 
     @Override
     @Transactional
-    public ShipmentDto update(long id, ShipmentDto shipmentDto) {
+    public List<ShipmentBatchResultDto> saveAll(List<ShipmentDto> shipmentDtos) {
+        if (shipmentDtos == null || shipmentDtos.isEmpty() || shipmentDtos.size() > MAX_BATCH_SIZE) {
+            log.debug("Can't save shipment batch. Batch should contain from 1 to {} shipments", MAX_BATCH_SIZE);
+            return null;
+        }
+        log.info("Saving batch of {} shipments", shipmentDtos.size());
+
+        Set<Long> clientIds = new HashSet<>();
+        shipmentDtos.forEach(shipmentDto -> {
+            clientIds.add(shipmentDto.getSenderId());
+            clientIds.add(shipmentDto.getRecipientId());
+        });
+        Map<Long, Client> clients = clientDao.getByIds(clientIds).stream()
+                .collect(Collectors.toMap(Client::getId, Function.identity()));
+        List<TariffGrid> tariffGrids = tariffGridDao.getAll();
+
+        ShipmentBatchResultDto[] results = new ShipmentBatchResultDto[shipmentDtos.size()];
+        List<Shipment> validShipments = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        Map<Long, PostcodePool> postcodePools = new HashMap<>();
+        Map<Long, List<Shipment>> shipmentsByPostcodePool = new HashMap<>();
+        for (int i = 0; i < shipmentDtos.size(); i++) {
+            ShipmentDto shipmentDto = shipmentDtos.get(i);
+            String error = validateBatchShipment(shipmentDto, clients);
+            if (error != null) {
+                results[i] = new ShipmentBatchResultDto(i, null, error);
+                continue;
+            }
+
+            Shipment shipment = shipmentMapper.toEntity(shipmentDto);
+            shipment.setSender(clients.get(shipmentDto.getSenderId()));
+            shipment.setRecipient(clients.get(shipmentDto.getRecipientId()));
+            shipment.getParcels().forEach(parcel -> {
+                parcel.setShipment(shipment);
+                parcel.setPrice(parcelService.calculatePrice(parcel, shipment, tariffGrids));
+                if (parcel.getParcelItems() != null) {
+                    parcel.getParcelItems().forEach(parcelItem -> parcelItem.setParcel(parcel));
+                }
+            });
+            shipment.setPrice(calculatePrice(shipment));
+
+            PostcodePool postcodePool = shipment.getSender().getCounterparty().getPostcodePool();
+            postcodePools.putIfAbsent(postcodePool.getId(), postcodePool);
+            shipmentsByPostcodePool.computeIfAbsent(postcodePool.getId(), id -> new ArrayList<>()).add(shipment);
+            validShipments.add(shipment);
+            validIndexes.add(i);
+        }
+
+        shipmentsByPostcodePool.forEach((postcodePoolId, shipments) -> {
+            PostcodePool postcodePool = postcodePools.get(postcodePoolId);
+            List<BarcodeInnerNumber> barcodes =
+                    barcodeInnerNumberService.generateBarcodeInnerNumbers(postcodePool, shipments.size());
+            postcodePool.getBarcodeInnerNumbers().addAll(barcodes);
+            for (int i = 0; i < shipments.size(); i++) {
+                shipments.get(i).setBarcode(barcodes.get(i));
+            }
+        });
+
+        List<Shipment> savedShipments = shipmentDao.saveAll(validShipments);
+        for (int i = 0; i < savedShipments.size(); i++) {
+            int index = validIndexes.get(i);
+            results[index] = new ShipmentBatchResultDto(index, shipmentMapper.toDto(savedShipments.get(i)), null);
+        }
+        return Arrays.asList(results);
+    }
+
+    private String validateBatchShipment(ShipmentDto shipmentDto, Map<Long, Client> clients) {
+        Client sender = clients.get(shipmentDto.getSenderId());
+        if (sender == null) {
+            return format("Sender %d doesn't exist", shipmentDto.getSenderId());
+        }
+        if (sender.getCounterparty() == null) {
+            return format("Sender %d doesn't belong to any counterparty", shipmentDto.getSenderId());
+        }
+        if (sender.getCounterparty().getPostcodePool() == null) {
+            return format("Sender %d's counterparty has no postcode pool", shipmentDto.getSenderId());
+        }
+        if (!clients.containsKey(shipmentDto.getRecipientId())) {
+            return format("Recipient %d doesn't exist", shipmentDto.getRecipientId());
+        }
+        if (shipmentDto.getParcels() == null || shipmentDto.getParcels().isEmpty()) {
+            return "Shipment should contain at least one parcel";
+        }
+        return null;
+    }
+
+    @Override
+    @Transactional
+    public ShipmentDto update(long id, ShipmentDto shipmentDto, Long expectedVersion) {
         Shipment source = shipmentMapper.toEntity(shipmentDto);
-        Shipment target = shipmentDao.getById(id);
+        Shipment target = shipmentDao.getById(id, ShipmentFetchPlan.FULL);
         if (target == null) {
             log.debug("Can't update shipment. Shipment doesn't exist {}", id);
             return null;
         }
-
-        try {
-            copyProperties(target, source);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            log.error("Can't get properties from object to updatable object for shipment", e);
+        if (expectedVersion != null && expectedVersion != target.getVersion()) {
+            log.info("Can't update shipment {}. Expected version {}, actual {}", id, expectedVersion,
+                    target.getVersion());
+            throw new ObjectOptimisticLockingFailureException(Shipment.class, id);
         }
+
+        shipmentMapper.merge(source, target);
         target.getParcels().forEach(parcel -> parcelService.calculatePrice(parcel, target));
         target.setPrice(calculatePrice(target));
-        target.setId(id);
         log.info("Updating shipment {}", target);
         shipmentDao.update(target);
         return shipmentMapper.toDto(target);
@@ -160,10 +368,7 @@ public class ShipmentServiceImpl implements ShipmentService {
             return false;
         }
 
-        List<Parcel> updatedParcels = new ArrayList<>(parcels);
-        updatedParcels.addAll(shipment.getParcels());
-
-        shipment.setParcels(updatedParcels);
+        shipment.getParcels().addAll(0, parcels);
         log.info("Adding parcels list to shipment {}", shipment);
         shipmentDao.update(shipment);
         return true;
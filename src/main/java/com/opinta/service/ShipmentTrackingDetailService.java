@@ -1,14 +1,36 @@
 package com.opinta.service;
 
 import com.opinta.dto.ShipmentTrackingDetailDto;
+import com.opinta.dto.ShipmentTrackingDto;
+import com.opinta.util.JsonFormat;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface ShipmentTrackingDetailService {
     
     List<ShipmentTrackingDetailDto> getAll();
 
+    /**
+     * Writes every tracking event as an array in the format, events are loaded and written one by one
+     *
+     * @return number of written events
+     */
+    long writeAll(JsonFormat format, OutputStream outputStream) throws IOException;
+
     ShipmentTrackingDetailDto getById(long id);
 
+    /**
+     * @return tracking events of the shipment ordered by date or null if the shipment doesn't exist
+     */
+    List<ShipmentTrackingDetailDto> getByShipmentId(long shipmentId);
+
+    /**
+     * @return tracking of every distinct shipment in the order of request, shipments without events
+     * have empty tracking, or null if there are no ids, more than 1000 of them or a null one
+     */
+    List<ShipmentTrackingDto> getByShipmentIds(List<Long> shipmentIds);
+
     ShipmentTrackingDetailDto save(ShipmentTrackingDetailDto shipmentTrackingDetailDto);
 
     ShipmentTrackingDetailDto update(long id, ShipmentTrackingDetailDto shipmentTrackingDetailDto);
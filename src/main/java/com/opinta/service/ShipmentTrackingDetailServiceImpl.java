@@ -1,53 +1,125 @@
 package com.opinta.service;
 
+import com.opinta.dao.ShipmentDao;
 import com.opinta.dao.ShipmentTrackingDetailDao;
 import com.opinta.dto.ShipmentTrackingDetailDto;
+import com.opinta.dto.ShipmentTrackingDto;
 import com.opinta.mapper.ShipmentTrackingDetailMapper;
 import com.opinta.entity.ShipmentTrackingDetail;
+import com.opinta.util.JsonFormat;
+import com.opinta.util.JsonStreamUtil;
+import java.io.IOException;
+import java.io.OutputStream;
 
-import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import javax.transaction.Transactional;
+import java.util.Map;
+import org.springframework.transaction.annotation.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import static org.apache.commons.beanutils.BeanUtils.copyProperties;
-
 @Service
 @Slf4j
 public class ShipmentTrackingDetailServiceImpl implements ShipmentTrackingDetailService {
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int FETCH_SIZE = 500;
+
     private ShipmentTrackingDetailDao shipmentTrackingDetailDao;
+    private ShipmentDao shipmentDao;
     private ShipmentTrackingDetailMapper shipmentTrackingDetailMapper;
+    private ShipmentCurrentStatusService shipmentCurrentStatusService;
+    private TrackingStreamService trackingStreamService;
+    private ShipmentArchiveService shipmentArchiveService;
 
     @Autowired
     public ShipmentTrackingDetailServiceImpl(ShipmentTrackingDetailDao shipmentTrackingDetailDao,
-                                             ShipmentTrackingDetailMapper shipmentTrackingDetailMapper) {
+                                             ShipmentDao shipmentDao,
+                                             ShipmentTrackingDetailMapper shipmentTrackingDetailMapper,
+                                             ShipmentCurrentStatusService shipmentCurrentStatusService,
+                                             TrackingStreamService trackingStreamService,
+                                             ShipmentArchiveService shipmentArchiveService) {
         this.shipmentTrackingDetailDao = shipmentTrackingDetailDao;
+        this.shipmentDao = shipmentDao;
         this.shipmentTrackingDetailMapper = shipmentTrackingDetailMapper;
+        this.shipmentCurrentStatusService = shipmentCurrentStatusService;
+        this.trackingStreamService = trackingStreamService;
+        this.shipmentArchiveService = shipmentArchiveService;
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<ShipmentTrackingDetailDto> getAll() {
         log.info("Getting all shipmentTrackingDetails");
         return shipmentTrackingDetailMapper.toDto(shipmentTrackingDetailDao.getAll());
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
+    public long writeAll(JsonFormat format, OutputStream outputStream) throws IOException {
+        log.info("Writing all shipmentTrackingDetails");
+        return JsonStreamUtil.<ShipmentTrackingDetailDto>writeArray(format, outputStream, consumer ->
+                shipmentTrackingDetailDao.scrollAll(FETCH_SIZE, shipmentTrackingDetail ->
+                        consumer.accept(shipmentTrackingDetailMapper.toDto(shipmentTrackingDetail))));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public ShipmentTrackingDetailDto getById(long id) {
         log.info("Getting shipmentTrackingDetail by id {}", id);
         return shipmentTrackingDetailMapper.toDto(shipmentTrackingDetailDao.getById(id));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ShipmentTrackingDetailDto> getByShipmentId(long shipmentId) {
+        log.info("Getting tracking of shipment {}", shipmentId);
+        List<ShipmentTrackingDetail> shipmentTrackingDetails = shipmentTrackingDetailDao.getByShipmentId(shipmentId);
+        // the shipment is only looked up when there is no event that proves it exists
+        if (shipmentTrackingDetails.isEmpty() && shipmentDao.getById(shipmentId) == null) {
+            List<ShipmentTrackingDetailDto> archivedTracking = shipmentArchiveService.getTracking(shipmentId);
+            if (archivedTracking == null) {
+                log.debug("Can't get tracking. Shipment doesn't exist {}", shipmentId);
+            }
+            return archivedTracking;
+        }
+        return shipmentTrackingDetailMapper.toDto(shipmentTrackingDetails);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ShipmentTrackingDto> getByShipmentIds(List<Long> shipmentIds) {
+        if (shipmentIds == null || shipmentIds.isEmpty() || shipmentIds.size() > MAX_BATCH_SIZE
+                || shipmentIds.contains(null)) {
+            log.debug("Can't get tracking batch. Batch should contain from 1 to {} shipment ids and no nulls",
+                    MAX_BATCH_SIZE);
+            return null;
+        }
+        log.info("Getting tracking of {} shipments", shipmentIds.size());
+        Map<Long, List<ShipmentTrackingDetailDto>> tracking = new LinkedHashMap<>();
+        new LinkedHashSet<>(shipmentIds).forEach(shipmentId -> tracking.put(shipmentId, new ArrayList<>()));
+        shipmentTrackingDetailDao.getByShipmentIds(tracking.keySet()).forEach(shipmentTrackingDetail ->
+                tracking.get(shipmentTrackingDetail.getShipment().getId())
+                        .add(shipmentTrackingDetailMapper.toDto(shipmentTrackingDetail)));
+        List<ShipmentTrackingDto> result = new ArrayList<>(tracking.size());
+        tracking.forEach((shipmentId, events) -> result.add(new ShipmentTrackingDto(shipmentId, events)));
+        return result;
+    }
+
     @Override
     @Transactional
     public ShipmentTrackingDetailDto save(ShipmentTrackingDetailDto shipmentTrackingDetailDto) {
         log.info("Saving shipmentTrackingDetail {}", shipmentTrackingDetailDto);
-        return shipmentTrackingDetailMapper.toDto(
-                shipmentTrackingDetailDao.save(
-                        shipmentTrackingDetailMapper.toEntity(shipmentTrackingDetailDto)));
+        ShipmentTrackingDetail shipmentTrackingDetail = shipmentTrackingDetailDao.save(
+                shipmentTrackingDetailMapper.toEntity(shipmentTrackingDetailDto));
+        shipmentCurrentStatusService.apply(Collections.singletonList(shipmentTrackingDetail));
+        ShipmentTrackingDetailDto savedDto = shipmentTrackingDetailMapper.toDto(shipmentTrackingDetail);
+        trackingStreamService.publishAfterCommit(Collections.singletonList(savedDto));
+        return savedDto;
     }
 
     @Override
@@ -59,14 +131,17 @@ public class ShipmentTrackingDetailServiceImpl implements ShipmentTrackingDetail
             log.info("Can't update shipmentTrackingDetail. ShipmentTrackingDetail doesn't exist {}", id);
             return null;
         }
-        try {
-            copyProperties(target, source);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            log.error("Can't get properties from object to updatable object for shipmentTrackingDetail", e);
-        }
-        target.setId(id);
+        long previousShipmentId = target.getShipment().getId();
+        shipmentTrackingDetailMapper.merge(source, target);
         log.info("Updating shipmentTrackingDetail {}", target);
         shipmentTrackingDetailDao.update(target);
+        long shipmentId = target.getShipment().getId();
+        if (previousShipmentId != shipmentId) {
+            // both shipments are locked in one go, in id order, before refresh locks them one by one
+            shipmentDao.lockByIds(Arrays.asList(previousShipmentId, shipmentId));
+            shipmentCurrentStatusService.refresh(previousShipmentId);
+        }
+        shipmentCurrentStatusService.refresh(shipmentId);
         return shipmentTrackingDetailMapper.toDto(target);
     }
 
@@ -80,6 +155,7 @@ public class ShipmentTrackingDetailServiceImpl implements ShipmentTrackingDetail
         }
         log.info("Deleting shipmentTrackingDetail {}", shipmentTrackingDetail);
         shipmentTrackingDetailDao.delete(shipmentTrackingDetail);
+        shipmentCurrentStatusService.refresh(shipmentTrackingDetail.getShipment().getId());
         return true;
     }
 }
@@ -3,35 +3,35 @@ package com.opinta.service;
 import com.opinta.dao.TariffGridDao;
 import com.opinta.entity.TariffGrid;
 import com.opinta.entity.W2wVariation;
+import com.opinta.mapper.TariffGridMapper;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.List;
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import static org.apache.commons.beanutils.BeanUtils.copyProperties;
-
 @Service
 @Slf4j
 public class TariffGridServiceImpl implements TariffGridService {
     private TariffGridDao tariffGridDao;
+    private TariffGridMapper tariffGridMapper;
 
     @Autowired
-    public TariffGridServiceImpl(TariffGridDao tariffGridDao) {
+    public TariffGridServiceImpl(TariffGridDao tariffGridDao, TariffGridMapper tariffGridMapper) {
         this.tariffGridDao = tariffGridDao;
+        this.tariffGridMapper = tariffGridMapper;
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<TariffGrid> getAll() {
         log.info("Getting all tariffGrids");
         return tariffGridDao.getAll();
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public TariffGrid getById(long id) {
         log.info("Getting tariffGrid by id {}", id);
         return tariffGridDao.getById(id);
@@ -52,12 +52,7 @@ public class TariffGridServiceImpl implements TariffGridService {
             log.info("Can't update tariffGrid. TariffGrid doesn't exist {}", id);
             return null;
         }
-        try {
-            copyProperties(target, source);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            log.error("Can't get properties from object to updatable object for tariffGrid", e);
-        }
-        target.setId(id);
+        tariffGridMapper.merge(source, target);
         log.info("Updating tariffGrid {}", target);
         tariffGridDao.update(target);
         return target;
@@ -77,13 +72,13 @@ public class TariffGridServiceImpl implements TariffGridService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public TariffGrid getByDimension(float weight, float length, W2wVariation w2wVariation) {
         return tariffGridDao.getByDimension(weight, length, w2wVariation);
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public TariffGrid getLast(W2wVariation w2wVariation) {
         return tariffGridDao.getLast(w2wVariation);
     }
@@ -0,0 +1,25 @@
+package com.opinta.service;
+
+import com.opinta.dto.ShipmentTrackingDetailDto;
+import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface TrackingStreamService {
+
+    /**
+     * @return emitter of new tracking events of the shipment or null if the shipment doesn't exist
+     */
+    SseEmitter subscribeToShipment(long shipmentId);
+
+    /**
+     * @return emitter of new tracking events of the shipments the client sends or receives
+     * or null if the client doesn't exist
+     */
+    SseEmitter subscribeToClient(long clientId);
+
+    /**
+     * Delivers the events to subscribers once the current transaction commits, right away without transaction.
+     * Never blocks the caller, subscribers that can't keep up are disconnected
+     */
+    void publishAfterCommit(List<ShipmentTrackingDetailDto> shipmentTrackingDetails);
+}
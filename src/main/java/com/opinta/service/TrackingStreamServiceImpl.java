@@ -0,0 +1,268 @@
+package com.opinta.service;
+
+import com.opinta.dao.ClientDao;
+import com.opinta.dao.ShipmentDao;
+import com.opinta.dto.ShipmentTrackingDetailDto;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * In-process fan-out of committed tracking events to server-sent event subscribers.
+ * Every subscriber has a bounded queue drained by a shared sender pool, so a slow connection never holds up
+ * publishers. A subscriber whose queue overflows is disconnected and is expected to reload the timeline
+ * when it reconnects. Heartbeats keep idle connections open and detect dead ones.
+ * The servlet api has no write timeout, a send to a client that stopped reading blocks its sender thread until
+ * the container's own socket timeout fails it. As many stalled clients as there are sender threads delay
+ * every other subscriber until then, so senderThreads should be well above the number of clients expected
+ * to stall at the same time
+ */
+@Service
+@Slf4j
+public class TrackingStreamServiceImpl implements TrackingStreamService {
+    private static final String EVENT_NAME = "tracking";
+
+    private final ShipmentDao shipmentDao;
+    private final ClientDao clientDao;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Map<Long, Set<Subscriber>> shipmentSubscribers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscriber>> clientSubscribers = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService dispatcher;
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeat;
+    private final int queueCapacity;
+    private final long timeoutMillis;
+
+    @Autowired
+    public TrackingStreamServiceImpl(ShipmentDao shipmentDao, ClientDao clientDao,
+                                     PlatformTransactionManager transactionManager, Environment environment) {
+        this.shipmentDao = shipmentDao;
+        this.clientDao = clientDao;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.queueCapacity = environment.getRequiredProperty("tracking.stream.queueCapacity", Integer.class);
+        this.timeoutMillis = environment.getRequiredProperty("tracking.stream.timeoutMillis", Long.class);
+        this.dispatcher = Executors.newSingleThreadExecutor(threadFactory("tracking-stream-dispatcher-"));
+        this.senders = Executors.newFixedThreadPool(
+                environment.getRequiredProperty("tracking.stream.senderThreads", Integer.class),
+                threadFactory("tracking-stream-sender-"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(threadFactory("tracking-stream-heartbeat-"));
+        long heartbeatSeconds = environment.getRequiredProperty("tracking.stream.heartbeatSeconds", Long.class);
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    private static CustomizableThreadFactory threadFactory(String prefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeat.shutdownNow();
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        shipmentSubscribers.values().forEach(subscribers -> subscribers.forEach(Subscriber::close));
+        clientSubscribers.values().forEach(subscribers -> subscribers.forEach(Subscriber::close));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SseEmitter subscribeToShipment(long shipmentId) {
+        if (shipmentDao.getExistingIds(Collections.singleton(shipmentId)).isEmpty()) {
+            log.debug("Can't stream tracking. Shipment doesn't exist {}", shipmentId);
+            return null;
+        }
+        log.info("Streaming tracking of shipment {}", shipmentId);
+        return subscribe(shipmentSubscribers, shipmentId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SseEmitter subscribeToClient(long clientId) {
+        if (clientDao.getById(clientId) == null) {
+            log.debug("Can't stream tracking. Client doesn't exist {}", clientId);
+            return null;
+        }
+        log.info("Streaming tracking of client {}", clientId);
+        return subscribe(clientSubscribers, clientId);
+    }
+
+    private SseEmitter subscribe(Map<Long, Set<Subscriber>> subscribersByKey, long key) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis));
+        subscriber.unsubscribe = () -> subscribersByKey.computeIfPresent(key, (k, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        subscribersByKey.compute(key, (k, subscribers) -> {
+            if (subscribers == null) {
+                subscribers = ConcurrentHashMap.newKeySet();
+            }
+            subscribers.add(subscriber);
+            return subscribers;
+        });
+        subscriber.emitter.onCompletion(subscriber.unsubscribe);
+        subscriber.emitter.onTimeout(subscriber.unsubscribe);
+        return subscriber.emitter;
+    }
+
+    @Override
+    public void publishAfterCommit(List<ShipmentTrackingDetailDto> shipmentTrackingDetails) {
+        if (shipmentTrackingDetails.isEmpty() || shipmentSubscribers.isEmpty() && clientSubscribers.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatcher.execute(() -> dispatch(shipmentTrackingDetails));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                dispatcher.execute(() -> dispatch(shipmentTrackingDetails));
+            }
+        });
+    }
+
+    private void dispatch(List<ShipmentTrackingDetailDto> shipmentTrackingDetails) {
+        try {
+            Map<Long, List<Long>> clientIds = Collections.emptyMap();
+            if (!clientSubscribers.isEmpty()) {
+                Set<Long> shipmentIds = shipmentTrackingDetails.stream()
+                        .map(ShipmentTrackingDetailDto::getShipmentId)
+                        .collect(Collectors.toSet());
+                clientIds = readOnlyTransactionTemplate.execute(status -> shipmentDao.getClientIds(shipmentIds));
+            }
+            for (ShipmentTrackingDetailDto shipmentTrackingDetail : shipmentTrackingDetails) {
+                StreamEvent event = new StreamEvent(sequence.incrementAndGet(), shipmentTrackingDetail);
+                deliver(shipmentSubscribers.get(shipmentTrackingDetail.getShipmentId()), event);
+                for (Long clientId : clientIds.getOrDefault(shipmentTrackingDetail.getShipmentId(),
+                        Collections.emptyList())) {
+                    deliver(clientSubscribers.get(clientId), event);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Can't dispatch {} tracking events", shipmentTrackingDetails.size(), e);
+        }
+    }
+
+    private void deliver(Set<Subscriber> subscribers, StreamEvent event) {
+        if (subscribers != null) {
+            subscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    private void sendHeartbeats() {
+        StreamEvent heartbeatEvent = new StreamEvent(0, null);
+        shipmentSubscribers.values().forEach(subscribers -> deliver(subscribers, heartbeatEvent));
+        clientSubscribers.values().forEach(subscribers -> deliver(subscribers, heartbeatEvent));
+    }
+
+    private static class StreamEvent {
+        private final long id;
+        private final ShipmentTrackingDetailDto shipmentTrackingDetail;
+
+        private StreamEvent(long id, ShipmentTrackingDetailDto shipmentTrackingDetail) {
+            this.id = id;
+            this.shipmentTrackingDetail = shipmentTrackingDetail;
+        }
+
+        // builders keep the text they have built, so every subscriber gets a new one
+        private SseEmitter.SseEventBuilder toSseEvent() {
+            if (shipmentTrackingDetail == null) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            return SseEmitter.event()
+                    .id(Long.toString(id))
+                    .name(EVENT_NAME)
+                    .data(shipmentTrackingDetail, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<StreamEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+        private Runnable unsubscribe;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(StreamEvent event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                log.warn("Disconnecting tracking subscriber, {} events are not sent", queue.size());
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                StreamEvent event;
+                while (!closed && (event = queue.poll()) != null) {
+                    emitter.send(event.toSseEvent());
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Tracking subscriber has disconnected", e);
+                close();
+            } finally {
+                scheduled.set(false);
+            }
+            // an event offered after the last poll but before the flag was reset would wait for the next one
+            if (!closed && !queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.clear();
+            unsubscribe.run();
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                log.debug("Tracking emitter has already completed", e);
+            }
+        }
+    }
+}
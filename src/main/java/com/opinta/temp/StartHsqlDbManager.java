@@ -1,5 +1,6 @@
 package com.opinta.temp;
 
+import java.awt.GraphicsEnvironment;
 import org.hsqldb.util.DatabaseManagerSwing;
 import org.springframework.stereotype.Service;
 
@@ -9,6 +10,10 @@ import javax.annotation.PostConstruct;
 public class StartHsqlDbManager {
     @PostConstruct
     public void startDBManager() {
+        // the load and integration runs are headless, the manager can't open a window there
+        if (GraphicsEnvironment.isHeadless()) {
+            return;
+        }
         DatabaseManagerSwing.main(new String[]{"--url", "jdbc:hsqldb:mem:testdb", "--user", "sa", "--password", "sa"});
     }
 }
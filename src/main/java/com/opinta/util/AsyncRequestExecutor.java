@@ -0,0 +1,149 @@
+package com.opinta.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import static java.lang.String.format;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Runs slow requests as async tasks on a pool of their own, so they release the servlet thread and can't starve
+ * fast requests. At most threads + queueCapacity requests are admitted, the others are answered with 503 right
+ * away. A request that isn't done within the timeout is answered with 503, or cut off when its response is
+ * already committed. Its worker isn't interrupted, as interrupting jdbc or file io closes their channels, but
+ * a worker streaming the response fails on its next write, so it stops and rolls its transaction back.
+ * With 0 threads requests run on the servlet thread
+ */
+@Slf4j
+public class AsyncRequestExecutor {
+    private static final AsyncTaskExecutor CALLING_THREAD = new ConcurrentTaskExecutor(Runnable::run);
+
+    private final String name;
+    private final long timeoutMillis;
+    private final Semaphore permits;
+    private final ThreadPoolTaskExecutor pool;
+
+    public AsyncRequestExecutor(String name, int threads, int queueCapacity, long timeoutMillis) {
+        this.name = name;
+        this.timeoutMillis = timeoutMillis;
+        this.permits = new Semaphore(threads + queueCapacity);
+        if (threads == 0) {
+            this.pool = null;
+            return;
+        }
+        // the permits bound the queue, they are released when a worker is done rather than when its request is
+        this.pool = new ThreadPoolTaskExecutor();
+        pool.setThreadNamePrefix(name + "-");
+        pool.setDaemon(true);
+        pool.setCorePoolSize(threads);
+        pool.setMaxPoolSize(threads);
+        pool.initialize();
+    }
+
+    /**
+     * @param task returns the response to send
+     */
+    public WebAsyncTask<ResponseEntity<?>> submit(Callable<ResponseEntity<?>> task) {
+        return submitTask(cancelled -> task.call(), null);
+    }
+
+    /**
+     * @param body writes the response, its content type has to be set before the first write
+     */
+    public WebAsyncTask<ResponseEntity<?>> submit(StreamingResponseBody body, HttpServletResponse response) {
+        return submitTask(cancelled -> {
+            body.writeTo(new CancellableOutputStream(response.getOutputStream(), cancelled));
+            return null;
+        }, response);
+    }
+
+    private WebAsyncTask<ResponseEntity<?>> submitTask(Task task, HttpServletResponse response) {
+        if (!permits.tryAcquire()) {
+            log.warn("Rejected request. Executor {} is busy", name);
+            return new WebAsyncTask<>(timeoutMillis, CALLING_THREAD,
+                    () -> unavailable(format("Too many requests queued on %s", name)));
+        }
+        AtomicBoolean cancelled = new AtomicBoolean();
+        WebAsyncTask<ResponseEntity<?>> asyncTask = new WebAsyncTask<>(timeoutMillis,
+                pool == null ? CALLING_THREAD : pool, () -> {
+                    try {
+                        return cancelled.get() ? null : task.call(cancelled);
+                    } finally {
+                        permits.release();
+                    }
+                });
+        asyncTask.onTimeout(() -> {
+            log.warn("Request timed out on executor {} after {} ms", name, timeoutMillis);
+            cancelled.set(true);
+            if (response != null) {
+                try {
+                    response.resetBuffer();
+                } catch (IllegalStateException e) {
+                    // already committed, the response ends where the worker stopped writing
+                    return null;
+                }
+            }
+            return unavailable(format("Request timed out on %s", name));
+        });
+        return asyncTask;
+    }
+
+    private static ResponseEntity<?> unavailable(String message) {
+        return new ResponseEntity<>(message, SERVICE_UNAVAILABLE);
+    }
+
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private interface Task {
+        ResponseEntity<?> call(AtomicBoolean cancelled) throws Exception;
+    }
+
+    private static class CancellableOutputStream extends FilterOutputStream {
+        private final AtomicBoolean cancelled;
+
+        private CancellableOutputStream(OutputStream out, AtomicBoolean cancelled) {
+            super(out);
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            checkCancelled();
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkCancelled();
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            checkCancelled();
+            out.flush();
+        }
+
+        private void checkCancelled() throws IOException {
+            if (cancelled.get()) {
+                throw new IOException("Request timed out, the response is no longer written");
+            }
+        }
+    }
+}
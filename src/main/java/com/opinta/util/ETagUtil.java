@@ -0,0 +1,33 @@
+package com.opinta.util;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Entity tags of versioned entities are the quoted version, e.g. "3"
+ */
+public class ETagUtil {
+    private static final long NO_MATCH = -1;
+
+    public static String toETag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Returns the version expected by If-Match, null when the header is absent or "*".
+     * Weak, malformed or multiple tags never match any version
+     */
+    public static Long toExpectedVersion(String ifMatch) {
+        if (isBlank(ifMatch) || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String eTag = ifMatch.trim();
+        if (eTag.length() < 3 || !eTag.startsWith("\"") || !eTag.endsWith("\"")) {
+            return NO_MATCH;
+        }
+        try {
+            return Long.parseLong(eTag.substring(1, eTag.length() - 1));
+        } catch (NumberFormatException e) {
+            return NO_MATCH;
+        }
+    }
+}
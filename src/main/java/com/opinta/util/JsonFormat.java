@@ -0,0 +1,83 @@
+package com.opinta.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.Getter;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * Encodings of the json data model. Smile and CBOR carry the same documents as json in fewer bytes
+ * and are cheaper to parse, they are meant for services exchanging large shipment lists
+ */
+@Getter
+public enum JsonFormat {
+    JSON(MediaType.APPLICATION_JSON_UTF8, new ObjectMapper()),
+    SMILE(new MediaType("application", "x-jackson-smile"), new ObjectMapper(new SmileFactory())),
+    /**
+     * Decimals are written as text, this version of the Jackson CBOR parser can't read decimal fractions back
+     */
+    CBOR(new MediaType("application", "cbor"), new ObjectMapper(new CBORFactory())
+            .registerModule(new SimpleModule().addSerializer(BigDecimal.class, ToStringSerializer.instance)));
+
+    private final MediaType mediaType;
+    /**
+     * Configured like the json mapper of Spring MVC, unknown properties are ignored
+     */
+    private final ObjectMapper objectMapper;
+
+    JsonFormat(MediaType mediaType, ObjectMapper objectMapper) {
+        this.mediaType = mediaType;
+        this.objectMapper = objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * @return the most preferred format of the Accept header, json when the header is absent, malformed
+     * or accepts none of the formats
+     */
+    public static JsonFormat fromAccept(String accept) {
+        if (accept == null) {
+            return JSON;
+        }
+        try {
+            List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+            MediaType.sortBySpecificityAndQuality(mediaTypes);
+            for (MediaType mediaType : mediaTypes) {
+                for (JsonFormat format : values()) {
+                    if (mediaType.getQualityValue() > 0 && mediaType.includes(format.mediaType)) {
+                        return format;
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+        return JSON;
+    }
+
+    /**
+     * @return the format of the Content-Type header, null when it isn't one of the formats
+     */
+    public static JsonFormat fromContentType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            for (JsonFormat format : values()) {
+                if (format.mediaType.isCompatibleWith(mediaType)) {
+                    return format;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,48 @@
+package com.opinta.util;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes arrays of json or a binary json format element by element while the elements are produced,
+ * so a response starts before the last element is loaded and memory use doesn't depend on the number of elements
+ */
+public class JsonStreamUtil {
+
+    /**
+     * @param producer hands every element to the consumer it is given
+     * @return number of written elements. When writing fails the array is left open, so a client can tell
+     * a truncated response from a complete one
+     */
+    public static <T> long writeArray(JsonFormat format, OutputStream outputStream, Consumer<Consumer<T>> producer)
+            throws IOException {
+        ObjectWriter objectWriter = format.getObjectMapper().writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = format.getObjectMapper().getFactory()
+                .createGenerator(outputStream, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartArray();
+        long[] written = {0};
+        try {
+            producer.accept(element -> {
+                try {
+                    objectWriter.writeValue(generator, element);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                written[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.writeEndArray();
+        generator.close();
+        return written[0];
+    }
+}
@@ -0,0 +1,5 @@
+-- the id column is appended so lookups by owner are returned in id order without sorting
+CREATE INDEX idx_shipment_sender ON Shipment (sender_id, id);
+CREATE INDEX idx_shipment_tracking_detail_shipment ON ShipmentTrackingDetail (shipment_id, date);
+CREATE INDEX idx_parcel_shipment ON Parcel (shipment_id, id);
+CREATE INDEX idx_client_counterparty ON Client (counterparty_id, id);
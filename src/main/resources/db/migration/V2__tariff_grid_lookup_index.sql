@@ -0,0 +1,2 @@
+-- equality column first, then the range columns of TariffGridDao.getByDimension
+CREATE INDEX idx_tariff_grid_lookup ON TariffGrid (w2wVariation, weight, length);
@@ -0,0 +1,2 @@
+-- shipments at a post office by status, latest first
+CREATE INDEX idx_shipment_current_status_office ON ShipmentCurrentStatus (post_office_id, shipmentStatus, date);
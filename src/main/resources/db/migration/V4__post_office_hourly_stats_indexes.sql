@@ -0,0 +1,4 @@
+-- hourly stats of a post office for dashboards, one row per hour and status
+CREATE UNIQUE INDEX idx_post_office_hourly_stats_office ON PostOfficeHourlyStats (post_office_id, hourStart, shipmentStatus);
+-- replacing the rows of an hour on rollup
+CREATE INDEX idx_post_office_hourly_stats_hour ON PostOfficeHourlyStats (hourStart);
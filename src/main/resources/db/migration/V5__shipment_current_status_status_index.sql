@@ -0,0 +1,2 @@
+-- oldest shipments in a status, e.g. delivered shipments due for archival
+CREATE INDEX idx_shipment_current_status_status ON ShipmentCurrentStatus (shipmentStatus, date, shipment_id);
@@ -0,0 +1,4 @@
+-- shipment search: filters by recipient, price and creation time, each sortable with the id as tie breaker
+CREATE INDEX idx_shipment_recipient ON Shipment (recipient_id, id);
+CREATE INDEX idx_shipment_price ON Shipment (price, id);
+CREATE INDEX idx_shipment_created ON Shipment (created, id);
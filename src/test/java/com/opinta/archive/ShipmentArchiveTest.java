@@ -0,0 +1,74 @@
+package com.opinta.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opinta.dto.ArchivedShipmentDto;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ShipmentArchiveTest {
+    private static final String MONTH = "2017-05";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void append_ShouldKeepBlocksOfMonthSortedAndNotOverlapping() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        ShipmentArchive archive = new ShipmentArchive(directory, 4, objectMapper, false);
+        // even and odd ids in separate runs, so every run falls into the range of the blocks of the previous one
+        archive.append(MONTH, shipments(0, 40, 2));
+        archive.append(MONTH, shipments(1, 40, 2));
+        archive.append(MONTH, shipments(10, 20, 1));
+
+        List<String> index = Files.readAllLines(directory.resolve("shipments-" + MONTH + ".idx"),
+                StandardCharsets.US_ASCII);
+        assertTrue(index.get(0).startsWith("generation "));
+        long previousMaxId = -1;
+        int count = 0;
+        for (String line : index.subList(1, index.size())) {
+            String[] fields = line.split(" ");
+            long minId = Long.parseLong(fields[2]);
+            assertTrue(line, minId > previousMaxId);
+            previousMaxId = Long.parseLong(fields[3]);
+            count += Integer.parseInt(fields[4]);
+        }
+        assertEquals(40, count);
+
+        ShipmentArchive reopened = new ShipmentArchive(directory, 4, objectMapper, false);
+        for (long id = 0; id < 40; id++) {
+            ArchivedShipmentDto shipment = reopened.find(id);
+            assertNotNull("shipment " + id, shipment);
+            assertEquals(id, shipment.getId());
+        }
+        assertNull(reopened.find(40));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals("one data and one index file", 2, files.count());
+        }
+    }
+
+    private List<ArchivedShipmentDto> shipments(long fromId, long toId, int step) {
+        List<ArchivedShipmentDto> shipments = new ArrayList<>();
+        for (long id = fromId; id < toId; id += step) {
+            ArchivedShipmentDto shipment = new ArchivedShipmentDto();
+            shipment.setId(id);
+            shipment.setDeliveredAt(new Date(id));
+            shipments.add(shipment);
+        }
+        return shipments;
+    }
+}
@@ -0,0 +1,109 @@
+package com.opinta.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CompressionFilterTest {
+    private final CompressionFilter filter = new CompressionFilter(1024,
+            MediaType.parseMediaTypes("application/json,text/*"));
+
+    @Test
+    public void doFilter_ShouldCompressResponseOverThreshold() throws Exception {
+        byte[] body = repeat("{\"id\":1}", 500);
+
+        MockHttpServletResponse response = filter(MediaType.APPLICATION_JSON_VALUE, "deflate, gzip;q=0.5", body);
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeader("Vary"));
+        assertArrayEquals(body, gunzip(response.getContentAsByteArray()));
+    }
+
+    @Test
+    public void doFilter_ShouldSendSmallOrIncompressibleResponseAsItIs() throws Exception {
+        byte[] small = repeat("{\"id\":1}", 10);
+        MockHttpServletResponse smallResponse = filter(MediaType.APPLICATION_JSON_VALUE, "gzip", small);
+        assertNull(smallResponse.getHeader("Content-Encoding"));
+        assertEquals(small.length, smallResponse.getContentLength());
+        assertArrayEquals(small, smallResponse.getContentAsByteArray());
+
+        byte[] events = repeat("data: {}\n\n", 500);
+        MockHttpServletResponse eventResponse = filter("text/event-stream", "gzip", events);
+        assertNull(eventResponse.getHeader("Content-Encoding"));
+        assertArrayEquals(events, eventResponse.getContentAsByteArray());
+
+        MockHttpServletResponse refusedResponse = filter(MediaType.APPLICATION_JSON_VALUE, "gzip;q=0", events);
+        assertNull(refusedResponse.getHeader("Content-Encoding"));
+    }
+
+    @Test
+    public void doFilter_ShouldNotCompressErrorsAndRestartCompressionAfterReset() throws Exception {
+        byte[] body = repeat("{\"id\":1}", 500);
+        byte[] error = repeat("{\"error\":1}", 200);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/shipments");
+        request.addHeader("Accept-Encoding", "gzip");
+
+        MockHttpServletResponse errorResponse = new MockHttpServletResponse();
+        filter.doFilter(request, errorResponse, (filteredRequest, filteredResponse) -> {
+            filteredResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            ((HttpServletResponse) filteredResponse).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            filteredResponse.getOutputStream().write(body);
+        });
+        assertNull(errorResponse.getHeader("Content-Encoding"));
+        assertArrayEquals(body, errorResponse.getContentAsByteArray());
+
+        // the compressed part of the first body is dropped, the second one is a complete stream of its own
+        MockHttpServletResponse resetResponse = new MockHttpServletResponse();
+        filter.doFilter(request, resetResponse, (filteredRequest, filteredResponse) -> {
+            filteredResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            filteredResponse.getOutputStream().write(body);
+            filteredResponse.resetBuffer();
+            filteredResponse.getOutputStream().write(error);
+        });
+        assertEquals("gzip", resetResponse.getHeader("Content-Encoding"));
+        assertArrayEquals(error, gunzip(resetResponse.getContentAsByteArray()));
+    }
+
+    private MockHttpServletResponse filter(String contentType, String acceptEncoding, byte[] body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/shipments");
+        request.addHeader("Accept-Encoding", acceptEncoding);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (filteredRequest, filteredResponse) -> {
+            filteredResponse.setContentType(contentType);
+            filteredResponse.setContentLength(body.length);
+            // written in parts, so the threshold is crossed in the middle of the response
+            filteredResponse.getOutputStream().write(body, 0, body.length / 2);
+            filteredResponse.getOutputStream().write(body, body.length / 2, body.length - body.length / 2);
+        });
+        return response;
+    }
+
+    private byte[] repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] gunzip(byte[] compressed) throws IOException {
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            StreamUtils.copy(inputStream, outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.opinta.filter;
+
+import com.opinta.dao.CounterpartyDao;
+import com.opinta.entity.Counterparty;
+import com.opinta.service.RateLimitService;
+import com.opinta.service.RateLimitServiceImpl;
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RateLimitFilterTest {
+    private final RateLimitService rateLimitService = new RateLimitServiceImpl(counterpartyDao(),
+            mock(PlatformTransactionManager.class), new MockEnvironment()
+            .withProperty("ratelimit.write.burst", "2")
+            .withProperty("ratelimit.write.refillPerSecond", "0.5")
+            .withProperty("ratelimit.read.burst", "100")
+            .withProperty("ratelimit.read.refillPerSecond", "100")
+            .withProperty("ratelimit.render.burst", "1")
+            .withProperty("ratelimit.render.refillPerSecond", "1")
+            .withProperty("ratelimit.evictionIntervalSeconds", "60"));
+    private final RateLimitFilter filter = new RateLimitFilter(rateLimitService);
+
+    @Test
+    public void doFilter_ShouldRejectCounterpartyWithEmptyBucket() throws Exception {
+        assertEquals(200, filter("POST", "/shipments", "1").getStatus());
+        assertEquals(200, filter("POST", "/shipments", "1").getStatus());
+
+        MockHttpServletResponse rejected = filter("POST", "/shipments", "1");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("2", rejected.getHeader("Retry-After"));
+
+        // other counterparties and endpoint classes have buckets of their own
+        assertEquals(200, filter("POST", "/shipments", "2").getStatus());
+        assertEquals(200, filter("GET", "/shipments", "1").getStatus());
+    }
+
+    @Test
+    public void doFilter_ShouldLimitAnonymousAndUnknownCounterpartiesTogether() throws Exception {
+        assertEquals(200, filter("GET", "/shipments/1/label-form", "99").getStatus());
+        assertEquals(429, filter("GET", "/shipments/1/label-form", null).getStatus());
+        assertEquals(429, filter("GET", "/shipments/1/label-form", "98").getStatus());
+        assertFalse(rateLimitService.getBuckets().stream().anyMatch(bucket -> bucket.getCounterpartyId() == 99));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, filter("GET", "/admin/rate-limits", "3").getStatus());
+        }
+        assertEquals(400, filter("GET", "/shipments", "abc").getStatus());
+    }
+
+    @Test
+    public void doFilter_ShouldGiveKnownCounterpartyBucketsOfItsOwn() throws Exception {
+        assertEquals(200, filter("GET", "/shipments/1/label-form", "3").getStatus());
+        MockHttpServletResponse rejected = filter("GET", "/shipments/1/label-form", "3");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+    }
+
+    private MockHttpServletResponse filter(String method, String path, String counterpartyId) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        if (counterpartyId != null) {
+            request.addHeader(RateLimitFilter.COUNTERPARTY_HEADER, counterpartyId);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (filteredRequest, filteredResponse) -> { });
+        return response;
+    }
+
+    private static CounterpartyDao counterpartyDao() {
+        CounterpartyDao counterpartyDao = mock(CounterpartyDao.class);
+        when(counterpartyDao.getById(anyLong())).thenAnswer(invocation -> {
+            long id = (Long) invocation.getArguments()[0];
+            return id <= 3 ? new Counterparty() : null;
+        });
+        return counterpartyDao;
+    }
+}
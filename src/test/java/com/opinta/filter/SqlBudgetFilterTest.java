@@ -0,0 +1,49 @@
+package com.opinta.filter;
+
+import com.opinta.metrics.SqlStatementCounter;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SqlBudgetFilterTest {
+    private final SqlStatementCounter sqlStatementCounter = new SqlStatementCounter();
+    private final SqlBudgetFilter filter = new SqlBudgetFilter(sqlStatementCounter, 3,
+            "GET /shipments/{id}=1, POST /shipments=5", true);
+
+    @Test
+    public void doFilter_ShouldFailRequestOverBudgetOfItsRoute() throws Exception {
+        filter("GET", "/shipments/{id}", 1);
+        filter("POST", "/shipments", 5);
+        filter("GET", "/clients/{id}", 3);
+
+        try {
+            filter("GET", "/shipments/{id}", 2);
+            fail("Expected the budget of 1 statement to be exceeded");
+        } catch (IllegalStateException e) {
+            assertEquals("GET /shipments/{id} ran 2 sql statements, its budget is 1", e.getMessage());
+        }
+        try {
+            filter("GET", "/clients/{id}", 4);
+            fail("Expected the default budget of 3 statements to be exceeded");
+        } catch (IllegalStateException e) {
+            assertEquals("GET /clients/{id} ran 4 sql statements, its budget is 3", e.getMessage());
+        }
+        // statements outside of a request are not counted
+        sqlStatementCounter.onPrepareStatement("select 1");
+        assertEquals(0, sqlStatementCounter.stop());
+    }
+
+    private void filter(String method, String route, int statements) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, route);
+        filter.doFilter(request, new MockHttpServletResponse(), (filteredRequest, filteredResponse) -> {
+            filteredRequest.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, route);
+            for (int i = 0; i < statements; i++) {
+                sqlStatementCounter.onPrepareStatement("select 1");
+            }
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package com.opinta.logging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncConsoleAppenderTest {
+    private static final Logger LOGGER = Logger.getLogger(AsyncConsoleAppenderTest.class);
+
+    @Test
+    public void append_ShouldWriteJsonLinesOnWriterThread() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        AsyncConsoleAppender appender = new AsyncConsoleAppender();
+        try {
+            System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8.name()));
+            appender.setName("test");
+            appender.setLayout(new JsonLayout());
+            appender.activateOptions();
+        } finally {
+            System.setOut(out);
+        }
+
+        appender.doAppend(event(Level.INFO, "Saving shipment \"1\"", null));
+        appender.doAppend(event(Level.ERROR, "Can't save shipment", new IllegalStateException("Broken")));
+        appender.close();
+
+        String[] lines = output.toString(StandardCharsets.UTF_8.name()).split(System.lineSeparator());
+        assertEquals(2, lines.length);
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode info = objectMapper.readTree(lines[0]);
+        assertEquals("INFO", info.get("level").asText());
+        assertEquals(AsyncConsoleAppenderTest.class.getName(), info.get("logger").asText());
+        assertEquals(Thread.currentThread().getName(), info.get("thread").asText());
+        assertEquals("Saving shipment \"1\"", info.get("message").asText());
+        JsonNode error = objectMapper.readTree(lines[1]);
+        assertEquals("ERROR", error.get("level").asText());
+        assertTrue(error.get("exception").asText().startsWith("java.lang.IllegalStateException: Broken"));
+        assertEquals(0, appender.getDroppedCount());
+    }
+
+    private static LoggingEvent event(Level level, String message, Throwable throwable) {
+        return new LoggingEvent(Logger.class.getName(), LOGGER, level, message, throwable);
+    }
+}
@@ -0,0 +1,22 @@
+package com.opinta.logging;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogSamplerTest {
+
+    @Test
+    public void sample_ShouldLetFirstAndEveryRateThEventThrough() throws Exception {
+        LogSampler sampler = new LogSampler(3);
+        assertTrue(sampler.sample());
+        int sampled = 1;
+        for (int i = 1; i < 9; i++) {
+            if (sampler.sample()) {
+                sampled++;
+            }
+        }
+        assertEquals(3, sampled);
+    }
+}
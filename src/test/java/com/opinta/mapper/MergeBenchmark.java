@@ -0,0 +1,78 @@
+package com.opinta.mapper;
+
+import com.opinta.entity.Client;
+import com.opinta.entity.DeliveryType;
+import com.opinta.entity.Parcel;
+import com.opinta.entity.ParcelItem;
+import com.opinta.entity.Shipment;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.beanutils.BeanUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the generated shipment merge with the reflective BeanUtils.copyProperties it replaced.
+ * Not a unit test, run it with the main method from the test classpath
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergeBenchmark {
+    private final ShipmentMapper shipmentMapper = new ShipmentMapperImpl();
+    private Shipment source;
+    private Shipment reflectiveTarget;
+    private Shipment generatedTarget;
+
+    @Setup
+    public void setUp() {
+        source = createShipment(2);
+        reflectiveTarget = createShipment(3);
+        generatedTarget = createShipment(3);
+    }
+
+    @Benchmark
+    public Shipment reflectiveCopyProperties() throws Exception {
+        BeanUtils.copyProperties(reflectiveTarget, source);
+        return reflectiveTarget;
+    }
+
+    @Benchmark
+    public Shipment generatedMerge() {
+        shipmentMapper.merge(source, generatedTarget);
+        return generatedTarget;
+    }
+
+    private Shipment createShipment(int parcelCount) {
+        List<Parcel> parcels = new ArrayList<>();
+        for (int i = 0; i < parcelCount; i++) {
+            List<ParcelItem> parcelItems = new ArrayList<>();
+            parcelItems.add(new ParcelItem("Some item", 1, 2.0F, new BigDecimal("10.5")));
+            parcels.add(new Parcel(parcelItems, 3F, 3F, 3F, 3F, new BigDecimal("8.5"), new BigDecimal("2.25")));
+        }
+        Shipment shipment = new Shipment(new Client(), new Client(), DeliveryType.D2D, new BigDecimal("35.2"),
+                parcels);
+        shipment.setDescription("Benchmark shipment");
+        return shipment;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MergeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
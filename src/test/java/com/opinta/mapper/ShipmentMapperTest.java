@@ -0,0 +1,72 @@
+package com.opinta.mapper;
+
+import com.opinta.entity.BarcodeInnerNumber;
+import com.opinta.entity.Client;
+import com.opinta.entity.DeliveryType;
+import com.opinta.entity.Parcel;
+import com.opinta.entity.ParcelItem;
+import com.opinta.entity.Shipment;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ShipmentMapperTest {
+    private final ShipmentMapper shipmentMapper = new ShipmentMapperImpl();
+
+    @Test
+    public void merge_ShouldKeepIdAndNotNullValuesOfTarget() {
+        BarcodeInnerNumber barcode = new BarcodeInnerNumber();
+        Shipment target = createShipment(1);
+        target.setId(10);
+        target.setBarcode(barcode);
+        target.setDescription("Fragile");
+        Shipment source = createShipment(1);
+        source.setId(20);
+        source.setDeliveryType(DeliveryType.W2W);
+
+        shipmentMapper.merge(source, target);
+
+        assertEquals(10, target.getId());
+        assertSame(barcode, target.getBarcode());
+        assertEquals("Fragile", target.getDescription());
+        assertEquals(DeliveryType.W2W, target.getDeliveryType());
+    }
+
+    @Test
+    public void merge_ShouldRefillParcelsInPlace() {
+        Shipment target = createShipment(3);
+        List<Parcel> managedParcels = target.getParcels();
+        Shipment source = createShipment(2);
+
+        shipmentMapper.merge(source, target);
+
+        assertSame(managedParcels, target.getParcels());
+        assertEquals(2, target.getParcels().size());
+        target.getParcels().forEach(parcel -> assertSame(target, parcel.getShipment()));
+    }
+
+    @Test
+    public void merge_ShouldKeepParcelsWhenSourceHasNone() {
+        Shipment target = createShipment(3);
+        Shipment source = createShipment(0);
+        source.setParcels(null);
+
+        shipmentMapper.merge(source, target);
+
+        assertEquals(3, target.getParcels().size());
+    }
+
+    private Shipment createShipment(int parcelCount) {
+        List<Parcel> parcels = new ArrayList<>();
+        for (int i = 0; i < parcelCount; i++) {
+            List<ParcelItem> parcelItems = new ArrayList<>();
+            parcelItems.add(new ParcelItem("Some item", 1, 2.0F, new BigDecimal("10.5")));
+            parcels.add(new Parcel(parcelItems, 3F, 3F, 3F, 3F, new BigDecimal("8.5"), new BigDecimal("2.25")));
+        }
+        return new Shipment(new Client(), new Client(), DeliveryType.D2D, new BigDecimal("35.2"), parcels);
+    }
+}
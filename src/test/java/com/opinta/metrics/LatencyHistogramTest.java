@@ -0,0 +1,56 @@
+package com.opinta.metrics;
+
+import com.opinta.dto.HistogramDto;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketUpperBound_ShouldCoverEveryValueOfItsBucket() {
+        for (long micros = 0; micros < 1_000_000; micros++) {
+            int index = LatencyHistogram.bucketIndex(micros);
+            assertTrue(LatencyHistogram.bucketUpperBound(index) >= micros);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.bucketUpperBound(index - 1) < micros);
+            }
+        }
+    }
+
+    @Test
+    public void snapshot_ShouldReturnPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(millis, TimeUnit.MILLISECONDS);
+        }
+
+        HistogramDto snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1_000_000, snapshot.getMaxMicros());
+        assertEquals(500_000, snapshot.getP50Micros(), 500_000 * 0.125);
+        assertEquals(990_000, snapshot.getP99Micros(), 990_000 * 0.125);
+    }
+
+    @Test
+    public void add_ShouldMergeRecordedValues() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (int millis = 1; millis <= 500; millis++) {
+            first.record(millis, TimeUnit.MILLISECONDS);
+            second.record(millis + 500, TimeUnit.MILLISECONDS);
+        }
+
+        first.add(second);
+        HistogramDto snapshot = first.snapshot();
+
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1_000_000, snapshot.getMaxMicros());
+        assertEquals(500_500_000, snapshot.getSumMicros());
+        assertEquals(500_000, snapshot.getP50Micros(), 500_000 * 0.125);
+    }
+}
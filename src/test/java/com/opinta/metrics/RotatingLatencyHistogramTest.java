@@ -0,0 +1,31 @@
+package com.opinta.metrics;
+
+import com.opinta.dto.HistogramDto;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class RotatingLatencyHistogramTest {
+    private static final long START = 1_000_000_000L;
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    public void snapshot_ShouldForgetValuesOlderThanTwoWindowsButCountThem() {
+        RotatingLatencyHistogram histogram = new RotatingLatencyHistogram(5, TimeUnit.MINUTES, START);
+        for (int i = 0; i < 100; i++) {
+            histogram.record(1, TimeUnit.SECONDS, START);
+        }
+        histogram.record(10, TimeUnit.MILLISECONDS, START + 6 * MINUTE);
+
+        HistogramDto afterOneWindow = histogram.snapshot(START + 6 * MINUTE);
+        assertEquals(1_000_000, afterOneWindow.getP50Micros(), 1_000_000 * 0.125);
+
+        histogram.record(10, TimeUnit.MILLISECONDS, START + 12 * MINUTE);
+        HistogramDto afterTwoWindows = histogram.snapshot(START + 12 * MINUTE);
+        assertEquals(10_000, afterTwoWindows.getP999Micros(), 10_000 * 0.125);
+        assertEquals(102, afterTwoWindows.getCount());
+        assertEquals(100_020_000, afterTwoWindows.getSumMicros());
+    }
+}
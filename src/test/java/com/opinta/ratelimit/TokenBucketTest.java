@@ -0,0 +1,41 @@
+package com.opinta.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TokenBucketTest {
+    private static final long START = 1_000_000_000L;
+
+    @Test
+    public void tryAcquire_ShouldAdmitBurstAndThenRefillRate() {
+        TokenBucket bucket = new TokenBucket(5, 10, START);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(START));
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.tryAcquire(START));
+        assertEquals(0, bucket.getTokens(START), 0.001);
+
+        long later = START + TimeUnit.MILLISECONDS.toNanos(250);
+        assertEquals(2.5, bucket.getTokens(later), 0.001);
+        assertEquals(0, bucket.tryAcquire(later));
+        assertEquals(0, bucket.tryAcquire(later));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), bucket.tryAcquire(later));
+    }
+
+    @Test
+    public void tryAcquire_ShouldNotSaveUpMoreThanBurst() {
+        TokenBucket bucket = new TokenBucket(2, 1, START);
+        long muchLater = START + TimeUnit.HOURS.toNanos(1);
+        assertTrue(bucket.isFull(muchLater));
+        assertEquals(2, bucket.getTokens(muchLater), 0.001);
+
+        assertEquals(0, bucket.tryAcquire(muchLater));
+        assertEquals(0, bucket.tryAcquire(muchLater));
+        assertTrue(bucket.tryAcquire(muchLater) > 0);
+        assertFalse(bucket.isFull(muchLater));
+    }
+}
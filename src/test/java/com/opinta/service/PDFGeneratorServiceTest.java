@@ -1,7 +1,9 @@
 package com.opinta.service;
 
+import com.opinta.dao.ShipmentFetchPlan;
 import com.opinta.entity.*;
 import com.opinta.entity.Counterparty;
+import com.opinta.metrics.MetricRegistry;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
 import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
@@ -15,6 +17,10 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
@@ -32,7 +38,8 @@ public class PDFGeneratorServiceTest {
 
     @Before
     public void setUp() throws Exception {
-        pdfGeneratorService = new PDFGeneratorServiceImpl(shipmentService);
+        pdfGeneratorService = new PDFGeneratorServiceImpl(shipmentService,
+                new MetricRegistry(TimeUnit.MINUTES.toMillis(5)));
 
         List<ParcelItem> parcelItemsForSave =  new ArrayList<>();
         parcelItemsForSave.add(new ParcelItem("Some item", 1, 2.0F, new BigDecimal("10.5")));
@@ -61,17 +68,17 @@ public class PDFGeneratorServiceTest {
 
     @Test
     public void generateLabel_and_generatePostpay_ShouldReturnNotEmptyFile() {
-        when(shipmentService.getEntityById(1L)).thenReturn(shipment);
+        when(shipmentService.getEntityById(1L, ShipmentFetchPlan.LABEL_FORM)).thenReturn(shipment);
         assertNotEquals("PDFGenerator returned an empty label",
                 pdfGeneratorService.generateLabel(1L).length, 0);
         assertNotEquals("PDFGenerator returned an empty postpay form",
                 pdfGeneratorService.generateLabel(1L).length, 0);
-        verify(shipmentService, atLeast(2)).getEntityById(1L);
+        verify(shipmentService, atLeast(2)).getEntityById(1L, ShipmentFetchPlan.LABEL_FORM);
     }
 
     @Test
     public void generateLabel_ShouldReturnValidAcroForms() throws Exception {
-        when(shipmentService.getEntityById(1L)).thenReturn(shipment);
+        when(shipmentService.getEntityById(1L, ShipmentFetchPlan.LABEL_FORM)).thenReturn(shipment);
 
         System.out.println("BBBBB"+ shipment.getPrice());
 
@@ -109,12 +116,12 @@ public class PDFGeneratorServiceTest {
         field = (PDTextField) acroForm.getField("totalCost");
         assertEquals("Expected totalCost to be 15", field.getValue(), "15.25");
 
-        verify(shipmentService).getEntityById(1L);
+        verify(shipmentService).getEntityById(1L, ShipmentFetchPlan.LABEL_FORM);
     }
 
     @Test
     public void generatePostpay_ShouldReturnValidAcroForms() throws Exception {
-        when(shipmentService.getEntityById(1L)).thenReturn(shipment);
+        when(shipmentService.getEntityById(1L, ShipmentFetchPlan.POSTPAY_FORM)).thenReturn(shipment);
 
         byte[] postpayForm = pdfGeneratorService.generatePostpay(1L);
 
@@ -141,7 +148,41 @@ public class PDFGeneratorServiceTest {
         field = (PDTextField) acroForm.getField("priceKopiyky");
         assertEquals("Expected priceKopiyky to be 25", field.getValue(), "25");
 
-        verify(shipmentService).getEntityById(1L);
+        verify(shipmentService).getEntityById(1L, ShipmentFetchPlan.POSTPAY_FORM);
+    }
+
+    @Test
+    public void generateLabel_ShouldFillEveryLabelWithItsOwnShipmentWhenRenderedConcurrently() throws Exception {
+        int shipments = 16;
+        for (long id = 0; id < shipments; id++) {
+            Shipment other = new Shipment(new Client("Sender " + id, "001", shipment.getSender().getAddress(),
+                    shipment.getSender().getCounterparty()), shipment.getRecipient(), DeliveryType.W2W,
+                    new BigDecimal(id + ".5"), shipment.getParcels());
+            other.setPrice(new BigDecimal(id));
+            when(shipmentService.getEntityById(id, ShipmentFetchPlan.LABEL_FORM)).thenReturn(other);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<byte[]>> labels = new ArrayList<>();
+            for (int round = 0; round < 4; round++) {
+                for (long id = 0; id < shipments; id++) {
+                    long shipmentId = id;
+                    labels.add(executor.submit(() -> pdfGeneratorService.generateLabel(shipmentId)));
+                }
+            }
+            for (int i = 0; i < labels.size(); i++) {
+                long id = i % shipments;
+                try (PDDocument label = PDDocument.load(labels.get(i).get())) {
+                    PDAcroForm acroForm = label.getDocumentCatalog().getAcroForm();
+                    assertEquals("Sender " + id, acroForm.getField("senderName").getValueAsString());
+                    assertEquals(id + ".5", acroForm.getField("postPrice").getValueAsString());
+                    assertEquals(String.valueOf(id), acroForm.getField("sendingCost").getValueAsString());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
     }
 
     private PDAcroForm getAcroFormFromPdfFile(byte[] postpayForm) throws IOException {
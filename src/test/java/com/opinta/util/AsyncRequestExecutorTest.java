@@ -0,0 +1,116 @@
+package com.opinta.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AsyncRequestExecutorTest {
+    private final AsyncRequestExecutor executor = new AsyncRequestExecutor("test", 1, 1, 100);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final AtomicReference<IOException> writeFailure = new AtomicReference<>();
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new TestController()).build();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void submit_ShouldAnswer503WhenThreadAndQueueAreTaken() throws Exception {
+        mockMvc.perform(get("/blocking")).andExpect(request().asyncStarted());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        mockMvc.perform(get("/blocking")).andExpect(request().asyncStarted());
+
+        MvcResult rejected = mockMvc.perform(get("/blocking")).andReturn();
+
+        mockMvc.perform(asyncDispatch(rejected))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().string("Too many requests queued on test"));
+    }
+
+    @Test
+    public void submit_ShouldAnswer503AndStopWritingAfterTimeout() throws Exception {
+        MvcResult result = mockMvc.perform(get("/streaming")).andExpect(request().asyncStarted()).andReturn();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+        release.countDown();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().string("Request timed out on test"));
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertNotNull("the write after the timeout should fail", writeFailure.get());
+        assertEquals("the buffered part is reset, nothing is written after the timeout",
+                "", result.getResponse().getContentAsString());
+    }
+
+    @RestController
+    private class TestController {
+
+        @GetMapping("/blocking")
+        public WebAsyncTask<ResponseEntity<?>> blocking() {
+            return executor.submit(() -> {
+                started.countDown();
+                release.await();
+                return ResponseEntity.ok("done");
+            });
+        }
+
+        @GetMapping("/streaming")
+        public WebAsyncTask<ResponseEntity<?>> streaming(HttpServletResponse response) {
+            response.setContentType("text/plain");
+            return executor.submit(outputStream -> {
+                outputStream.write("first".getBytes(StandardCharsets.UTF_8));
+                started.countDown();
+                try {
+                    release.await();
+                    outputStream.write("second".getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    writeFailure.set(e);
+                    throw e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finished.countDown();
+                }
+            }, response);
+        }
+    }
+}
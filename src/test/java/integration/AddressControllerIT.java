@@ -14,6 +14,7 @@ import static io.restassured.module.mockmvc.RestAssuredMockMvc.given;
 import static io.restassured.module.mockmvc.RestAssuredMockMvc.when;
 import static java.lang.Integer.MIN_VALUE;
 
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
 import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 
@@ -54,6 +55,26 @@ public class AddressControllerIT extends BaseControllerIT {
                 body("id", equalTo(addressId));
     }
 
+    @Test
+    public void getAddress_fields() throws Exception {
+        given().
+                queryParam("fields", "city,id").
+        when().
+                get("/addresses/{id}", addressId).
+        then().
+                statusCode(SC_OK).
+                body("size()", equalTo(2)).
+                body("id", equalTo(addressId)).
+                body("city", equalTo(addressService.getById(addressId).getCity()));
+
+        given().
+                queryParam("fields", "city,latitude").
+        when().
+                get("/addresses/{id}", addressId).
+        then().
+                statusCode(SC_BAD_REQUEST);
+    }
+
     @Test
     public void getAddress_notFound() throws Exception {
         when().
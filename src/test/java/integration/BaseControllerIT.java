@@ -1,12 +1,14 @@
 package integration;
 
 import integration.config.ApplicationConfigTest;
+import com.opinta.filter.SqlBudgetFilter;
 import integration.config.HibernateConfigTest;
 import io.restassured.module.mockmvc.RestAssuredMockMvc;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
@@ -16,14 +18,19 @@ import org.springframework.web.context.WebApplicationContext;
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(classes = {ApplicationConfigTest.class, HibernateConfigTest.class})
 @WebAppConfiguration
+// the list is streamed on the servlet thread, the async dispatch of MockMvc starts a new response
+// and would lose the body written by a worker
+@TestPropertySource(properties = "async.list.threads=0")
 public abstract class BaseControllerIT {
     private MockMvc mockMvc;
     @Autowired
     private WebApplicationContext context;
+    @Autowired
+    private SqlBudgetFilter sqlBudgetFilter;
 
     @Before
     public final void initialize() {
-        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(sqlBudgetFilter).build();
         RestAssuredMockMvc.mockMvc(mockMvc);
     }
 }
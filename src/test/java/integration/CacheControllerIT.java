@@ -0,0 +1,40 @@
+package integration;
+
+import com.opinta.entity.TariffGrid;
+import org.junit.Test;
+
+import static io.restassured.module.mockmvc.RestAssuredMockMvc.when;
+
+import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItems;
+
+public class CacheControllerIT extends BaseControllerIT {
+
+    @Test
+    public void getRegionStatistics() throws Exception {
+        when().
+                get("/admin/cache").
+        then().
+                statusCode(SC_OK).
+                body("region", hasItems(TariffGrid.class.getName(), "query.tariffGrid"));
+
+        when().
+                get("/admin/cache/{region}", TariffGrid.class.getName()).
+        then().
+                statusCode(SC_OK).
+                body("region", equalTo(TariffGrid.class.getName())).
+                body("elementCountInMemory", greaterThan(0));
+    }
+
+    @Test
+    public void getRegionStatistics_notFound() throws Exception {
+        when().
+                get("/admin/cache/{region}", "com.opinta.entity.Unknown").
+        then().
+                statusCode(SC_NOT_FOUND);
+    }
+}
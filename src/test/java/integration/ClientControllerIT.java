@@ -10,6 +10,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
+import org.skyscreamer.jsonassert.JSONCompareMode;
 import org.springframework.beans.factory.annotation.Autowired;
 import integration.helper.TestHelper;
 
@@ -43,10 +44,15 @@ public class ClientControllerIT extends BaseControllerIT {
 
     @Test
     public void getClients() throws Exception {
-        when().
+        String clients = when().
                 get("/clients").
         then().
-                statusCode(SC_OK);
+                statusCode(SC_OK).
+                contentType("application/json").
+                extract().asString();
+
+        String expected = new ObjectMapper().writeValueAsString(clientService.getAll());
+        JSONAssert.assertEquals(expected, clients, JSONCompareMode.NON_EXTENSIBLE);
     }
 
     @Test
@@ -2,9 +2,14 @@ package integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.opinta.dto.CounterpartyDto;
+import com.opinta.entity.Address;
+import com.opinta.entity.Client;
 import com.opinta.entity.Counterparty;
+import com.opinta.entity.PostcodePool;
 import com.opinta.mapper.CounterpartyMapper;
 import com.opinta.service.CounterpartyService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.json.simple.JSONObject;
 import org.junit.After;
 import org.junit.Before;
@@ -19,6 +24,7 @@ import static java.lang.Integer.MIN_VALUE;
 import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertEquals;
 
 public class CounterpartyControllerIT extends BaseControllerIT {
     private Counterparty counterparty;
@@ -30,6 +36,8 @@ public class CounterpartyControllerIT extends BaseControllerIT {
     private CounterpartyMapper counterpartyMapper;
     @Autowired
     private TestHelper testHelper;
+    @Autowired
+    private SessionFactory sessionFactory;
 
     @Before
     public void setUp() throws Exception {
@@ -67,6 +75,35 @@ public class CounterpartyControllerIT extends BaseControllerIT {
                 statusCode(SC_NOT_FOUND);
     }
 
+    @Test
+    public void getClientsByCounterparty_warmCache() throws Exception {
+        Client client = testHelper.createClient();
+        long clientCounterpartyId = client.getCounterparty().getId();
+        Statistics statistics = sessionFactory.getStatistics();
+
+        when().
+                get("/counterparties/{id}/clients", clientCounterpartyId).
+        then().
+                statusCode(SC_OK);
+
+        statistics.clear();
+        when().
+                get("/counterparties/{id}/clients", clientCounterpartyId).
+        then().
+                statusCode(SC_OK).
+                body("size()", equalTo(1)).
+                body("[0].id", equalTo((int) client.getId()));
+
+        for (Class<?> referenceEntity : new Class<?>[]{Counterparty.class, PostcodePool.class, Address.class}) {
+            assertEquals(referenceEntity.getSimpleName(), 0,
+                    statistics.getEntityStatistics(referenceEntity.getName()).getLoadCount());
+        }
+        // the clients query and the barcodes of the pool, which aren't cached as they change with every shipment
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        testHelper.deleteClient(client);
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void createCounterparty() throws Exception {
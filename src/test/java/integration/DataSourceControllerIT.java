@@ -0,0 +1,114 @@
+package integration;
+
+import com.opinta.datasource.InstrumentedDataSource;
+import com.opinta.service.AddressService;
+import integration.helper.TestHelper;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.orm.hibernate4.HibernateTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static io.restassured.module.mockmvc.RestAssuredMockMvc.given;
+import static io.restassured.module.mockmvc.RestAssuredMockMvc.when;
+
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DataSourceControllerIT extends BaseControllerIT {
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private InstrumentedDataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private InstrumentedDataSource replicaDataSource;
+    @Autowired
+    private HibernateTransactionManager transactionManager;
+    @Autowired
+    private SessionFactory sessionFactory;
+    @Autowired
+    private AddressService addressService;
+    @Autowired
+    private TestHelper testHelper;
+
+    @Test
+    public void getStatistics() throws Exception {
+        when().
+                get("/addresses").
+        then().
+                statusCode(SC_OK);
+
+        when().
+                get("/admin/datasource").
+        then().
+                statusCode(SC_OK).
+                body("maxTotal", equalTo(20)).
+                body("waiting", equalTo(0)).
+                body("acquisitionTime.count", greaterThan(0));
+
+        when().
+                get("/admin/datasource/replica").
+        then().
+                statusCode(SC_OK).
+                body("acquisitionTime.count", greaterThan(0));
+    }
+
+    @Test
+    public void readOnlyTransactionsUseReplica() throws Exception {
+        long primaryAcquisitions = acquisitions(primaryDataSource);
+        long replicaAcquisitions = acquisitions(replicaDataSource);
+
+        when().
+                get("/addresses").
+        then().
+                statusCode(SC_OK);
+
+        assertEquals(primaryAcquisitions, acquisitions(primaryDataSource));
+        assertEquals(replicaAcquisitions + 1, acquisitions(replicaDataSource));
+    }
+
+    @Test
+    public void writeTransactionsUsePrimary() throws Exception {
+        long primaryAcquisitions = acquisitions(primaryDataSource);
+        long replicaAcquisitions = acquisitions(replicaDataSource);
+
+        int addressId =
+                given().
+                        contentType("application/json;charset=UTF-8").
+                        body(testHelper.getJsonFromFile("json/address.json")).
+                when().
+                        post("/addresses").
+                then().
+                        statusCode(SC_OK).
+                        extract().
+                        path("id");
+
+        assertEquals(primaryAcquisitions + 1, acquisitions(primaryDataSource));
+        assertEquals(replicaAcquisitions, acquisitions(replicaDataSource));
+
+        addressService.delete(addressId);
+    }
+
+    @Test
+    public void readOnlyTransactionSkipsFlushAndDirtyChecking() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.execute(status -> {
+            Session session = sessionFactory.getCurrentSession();
+            assertEquals(FlushMode.MANUAL, session.getFlushMode());
+            assertTrue(session.isDefaultReadOnly());
+            return null;
+        });
+    }
+
+    private long acquisitions(InstrumentedDataSource dataSource) {
+        return dataSource.getStatistics().getAcquisitionTime().getCount();
+    }
+}
@@ -0,0 +1,47 @@
+package integration;
+
+import org.junit.Test;
+
+import static io.restassured.module.mockmvc.RestAssuredMockMvc.when;
+
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class HibernateStatisticsControllerIT extends BaseControllerIT {
+
+    @Test
+    public void getStatistics() throws Exception {
+        when().
+                get("/addresses").
+        then().
+                statusCode(SC_OK);
+
+        when().
+                get("/admin/hibernate?queries=2").
+        then().
+                statusCode(SC_OK).
+                body("queryExecutionCount", greaterThan(0)).
+                body("prepareStatementCount", greaterThan(0)).
+                body("secondLevelCacheHitRatio", lessThanOrEqualTo(1f)).
+                body("slowestQueries", hasSize(2));
+
+        when().
+                get("/metrics").
+        then().
+                statusCode(SC_OK).
+                body(containsString("# TYPE hibernate_statements_prepared_total counter"));
+    }
+
+    @Test
+    public void getStatistics_negativeQueries() throws Exception {
+        when().
+                get("/admin/hibernate?queries=-1").
+        then().
+                statusCode(SC_BAD_REQUEST);
+    }
+}
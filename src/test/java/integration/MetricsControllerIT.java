@@ -0,0 +1,40 @@
+package integration;
+
+import org.junit.Test;
+
+import static io.restassured.module.mockmvc.RestAssuredMockMvc.when;
+
+import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+
+public class MetricsControllerIT extends BaseControllerIT {
+
+    @Test
+    public void getMetrics() throws Exception {
+        when().
+                get("/addresses").
+        then().
+                statusCode(SC_OK);
+        when().
+                get("/addresses/{id}", Long.MAX_VALUE).
+        then().
+                statusCode(SC_NOT_FOUND);
+
+        when().
+                get("/metrics").
+        then().
+                statusCode(SC_OK).
+                contentType(startsWith("text/plain")).
+                body(containsString("# TYPE http_request_duration_seconds summary")).
+                body(containsString("http_request_duration_seconds{method=\"GET\",route=\"/addresses\","
+                        + "quantile=\"0.999\"}")).
+                body(containsString("http_requests_total{method=\"GET\",route=\"/addresses\",status=\"2xx\"}")).
+                body(containsString("http_requests_total{method=\"GET\",route=\"/addresses/{id}\",status=\"4xx\"}")).
+                body(containsString("http_request_errors_total{method=\"GET\",route=\"/addresses/{id}\"} 0")).
+                body(containsString("service_operation_duration_seconds_count{operation=\"calculate_price\"}")).
+                body(containsString("service_operation_duration_seconds_count{operation=\"render_pdf_label\"}"));
+    }
+}
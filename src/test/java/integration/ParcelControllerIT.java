@@ -0,0 +1,107 @@
+package integration;
+
+import com.opinta.entity.Shipment;
+import com.opinta.service.ParcelService;
+import integration.helper.TestHelper;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import javax.sql.DataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.hibernate4.HibernateTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static io.restassured.module.mockmvc.RestAssuredMockMvc.given;
+import static io.restassured.module.mockmvc.RestAssuredMockMvc.when;
+import static javax.servlet.http.HttpServletResponse.SC_CONFLICT;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static javax.servlet.http.HttpServletResponse.SC_PRECONDITION_FAILED;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertEquals;
+
+public class ParcelControllerIT extends BaseControllerIT {
+    private static final String PARCEL_JSON = "{\"weight\": 7, \"length\": 3, \"width\": 3, \"height\": 3, "
+            + "\"declaredPrice\": 8.5}";
+
+    private Shipment shipment;
+    private long parcelId;
+    @Autowired
+    private TestHelper testHelper;
+    @Autowired
+    private ParcelService parcelService;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private HibernateTransactionManager transactionManager;
+
+    @Before
+    public void setUp() throws Exception {
+        shipment = testHelper.createShipment();
+        parcelId = shipment.getParcels().get(0).getId();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        testHelper.deleteShipment(shipment);
+    }
+
+    @Test
+    public void updateParcel_staleIfMatch() throws Exception {
+        String eTag = when().
+                get("/{id}", parcelId).
+        then().
+                statusCode(SC_OK).
+                header("ETag", notNullValue()).
+                extract().header("ETag");
+
+        given().
+                contentType("application/json;charset=UTF-8").
+                header("If-Match", eTag).
+                body(PARCEL_JSON).
+        when().
+                put("/{id}/{shipmentId}", parcelId, shipment.getId()).
+        then().
+                statusCode(SC_OK);
+
+        // the parcel has been changed since eTag was read
+        given().
+                contentType("application/json;charset=UTF-8").
+                header("If-Match", eTag).
+                body(PARCEL_JSON.replace("7", "9")).
+        when().
+                put("/{id}/{shipmentId}", parcelId, shipment.getId()).
+        then().
+                statusCode(SC_PRECONDITION_FAILED);
+        assertEquals(7F, parcelService.getById(parcelId).getWeight(), 0);
+    }
+
+    @Test
+    public void updateParcel_changedConcurrently() throws Exception {
+        // the update joins a transaction that has already read the parcel, then another writer commits a change,
+        // so the version the update checks at flush is stale
+        new TransactionTemplate(transactionManager).execute(status -> {
+            parcelService.getById(parcelId);
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(
+                         "update Parcel set version = version + 1 where id = ?")) {
+                connection.setAutoCommit(true);
+                statement.setLong(1, parcelId);
+                assertEquals(1, statement.executeUpdate());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+
+            given().
+                    contentType("application/json;charset=UTF-8").
+                    body(PARCEL_JSON).
+            when().
+                    put("/{id}/{shipmentId}", parcelId, shipment.getId()).
+            then().
+                    statusCode(SC_CONFLICT);
+            status.setRollbackOnly();
+            return null;
+        });
+    }
+}
@@ -2,9 +2,16 @@ package integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.opinta.dto.PostOfficeDto;
+import com.opinta.dto.ShipmentTrackingDetailDto;
 import com.opinta.entity.PostOffice;
+import com.opinta.entity.Shipment;
 import com.opinta.mapper.PostOfficeMapper;
 import com.opinta.service.PostOfficeService;
+import com.opinta.service.PostOfficeStatsService;
+import com.opinta.service.ShipmentTrackingDetailService;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.json.simple.JSONObject;
 import org.junit.After;
 import org.junit.Before;
@@ -16,6 +23,8 @@ import integration.helper.TestHelper;
 import static io.restassured.module.mockmvc.RestAssuredMockMvc.given;
 import static io.restassured.module.mockmvc.RestAssuredMockMvc.when;
 import static java.lang.Integer.MIN_VALUE;
+import static java.lang.String.format;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
 import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -28,6 +37,10 @@ public class PostOfficeControllerIT extends BaseControllerIT {
     @Autowired
     private PostOfficeService postOfficeService;
     @Autowired
+    private ShipmentTrackingDetailService shipmentTrackingDetailService;
+    @Autowired
+    private PostOfficeStatsService postOfficeStatsService;
+    @Autowired
     private TestHelper testHelper;
 
     @Before
@@ -49,6 +62,129 @@ public class PostOfficeControllerIT extends BaseControllerIT {
                 statusCode(SC_OK);
     }
 
+    @Test
+    public void getShipments_currentStatus() throws Exception {
+        Shipment shipment = testHelper.createShipment();
+        PostOffice otherPostOffice = testHelper.createPostOffice();
+        try {
+            given().
+                    contentType("application/json;charset=UTF-8").
+                    body(format("[%s, %s]", scanEvent(shipment, postOfficeId, "PREPARED", 1000),
+                            scanEvent(shipment, otherPostOffice.getId(), "EN_ROUTE", 3000))).
+            when().
+                    post("/shipment-tracking/batch?ack=committed").
+            then().
+                    statusCode(SC_OK).
+                    body("accepted", equalTo(2));
+            // arrives late, but happened before the last event
+            given().
+                    contentType("application/json;charset=UTF-8").
+                    body(scanEvent(shipment, postOfficeId, "PREPARED", 2000)).
+            when().
+                    post("/shipment-tracking").
+            then().
+                    statusCode(SC_OK);
+
+            when().
+                    get("/post-offices/{id}/shipments?status=EN_ROUTE", otherPostOffice.getId()).
+            then().
+                    statusCode(SC_OK).
+                    body("size()", equalTo(1)).
+                    body("[0].shipmentId", equalTo((int) shipment.getId())).
+                    body("[0].postOfficeId", equalTo((int) otherPostOffice.getId()));
+            when().
+                    get("/post-offices/{id}/shipments", postOfficeId).
+            then().
+                    statusCode(SC_OK).
+                    body("size()", equalTo(0));
+
+            // without the latest event the shipment is back at the first post office
+            List<ShipmentTrackingDetailDto> events = shipmentTrackingDetailService.getByShipmentId(shipment.getId());
+            shipmentTrackingDetailService.delete(events.get(events.size() - 1).getId());
+            when().
+                    get("/post-offices/{id}/shipments?status=PREPARED&page=0&size=10", postOfficeId).
+            then().
+                    statusCode(SC_OK).
+                    body("size()", equalTo(1)).
+                    body("[0].date", equalTo(2000));
+        } finally {
+            shipmentTrackingDetailService.getByShipmentId(shipment.getId())
+                    .forEach(event -> shipmentTrackingDetailService.delete(event.getId()));
+            testHelper.deletePostOffice(otherPostOffice);
+            testHelper.deleteShipment(shipment);
+        }
+    }
+
+    @Test
+    public void getStats() throws Exception {
+        Shipment shipment = testHelper.createShipment();
+        PostOffice statsPostOffice = testHelper.createPostOffice();
+        Date hourStart = new Date(TimeUnit.HOURS.toMillis(TimeUnit.MILLISECONDS.toHours(System.currentTimeMillis())));
+        try {
+            given().
+                    contentType("application/json;charset=UTF-8").
+                    body(format("[%s, %s]", scanEvent(shipment, statsPostOffice.getId(), "PREPARED", 60_000),
+                            scanEvent(shipment, statsPostOffice.getId(), "EN_ROUTE", 660_000))).
+            when().
+                    post("/shipment-tracking/batch?ack=committed").
+            then().
+                    statusCode(SC_OK).
+                    body("accepted", equalTo(2));
+
+            when().
+                    get("/post-offices/{id}/stats?window=15m", statsPostOffice.getId()).
+            then().
+                    statusCode(SC_OK).
+                    body("windowMinutes", equalTo(15)).
+                    body("scans", equalTo(2)).
+                    body("statuses.find { it.shipmentStatus == 'PREPARED' }.scans", equalTo(1)).
+                    body("statuses.find { it.shipmentStatus == 'PREPARED' }.dwell.count", equalTo(1)).
+                    body("statuses.find { it.shipmentStatus == 'PREPARED' }.dwell.maxMicros", equalTo(600_000_000)).
+                    body("statuses.find { it.shipmentStatus == 'EN_ROUTE' }.dwell.count", equalTo(0));
+
+            postOfficeStatsService.rollup(hourStart);
+            when().
+                    get("/post-offices/{id}/stats/hourly", statsPostOffice.getId()).
+            then().
+                    statusCode(SC_OK).
+                    body("size()", equalTo(2)).
+                    body("find { it.shipmentStatus == 'PREPARED' }.scans", equalTo(1)).
+                    body("find { it.shipmentStatus == 'PREPARED' }.dwellSumMicros", equalTo(600_000_000)).
+                    body("find { it.shipmentStatus == 'EN_ROUTE' }.hourStart", equalTo(hourStart.getTime()));
+
+            when().
+                    get("/post-offices/{id}/stats?window=2h", statsPostOffice.getId()).
+            then().
+                    statusCode(SC_BAD_REQUEST);
+            when().
+                    get("/post-offices/{id}/stats", statsPostOffice.getId() + 1).
+            then().
+                    statusCode(SC_NOT_FOUND);
+        } finally {
+            shipmentTrackingDetailService.getByShipmentId(shipment.getId())
+                    .forEach(event -> shipmentTrackingDetailService.delete(event.getId()));
+            testHelper.deletePostOffice(statsPostOffice);
+            testHelper.deleteShipment(shipment);
+        }
+    }
+
+    @Test
+    public void getShipments_notFound() throws Exception {
+        when().
+                get("/post-offices/{id}/shipments", postOfficeId + 1).
+        then().
+                statusCode(SC_NOT_FOUND);
+        when().
+                get("/post-offices/{id}/shipments?size=0", postOfficeId).
+        then().
+                statusCode(SC_BAD_REQUEST);
+    }
+
+    private String scanEvent(Shipment shipment, long postOfficeId, String status, long date) {
+        return format("{\"shipmentId\": %d, \"postOfficeId\": %d, \"shipmentStatus\": \"%s\", \"date\": %d}",
+                shipment.getId(), postOfficeId, status, date);
+    }
+
     @Test
     public void getPostOffice() throws Exception {
         when().
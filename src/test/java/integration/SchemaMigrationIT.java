@@ -0,0 +1,97 @@
+package integration;
+
+import com.opinta.datasource.InstrumentedDataSource;
+import com.opinta.migration.SchemaMigrator;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+public class SchemaMigrationIT extends BaseControllerIT {
+    private static final String MIGRATION_LOCATION = "classpath:db/migration";
+    private static final Pattern TABLE_SCAN = Pattern.compile(
+            "table=(?!SYSTEM_SUBQUERY)\\w+\\s+cardinality=\\d+\\s+access=FULL SCAN");
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private InstrumentedDataSource primaryDataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() throws Exception {
+        jdbcTemplate = new JdbcTemplate(primaryDataSource);
+    }
+
+    @Test
+    public void migrate_isAppliedOnce() throws Exception {
+        int migrations = new PathMatchingResourcePatternResolver().getResources(MIGRATION_LOCATION + "/V*__*.sql")
+                .length;
+        assertEquals(migrations, countAppliedMigrations());
+
+        new SchemaMigrator(primaryDataSource, MIGRATION_LOCATION, false).migrate();
+
+        assertEquals(migrations, countAppliedMigrations());
+    }
+
+    @Test
+    public void keyQueries_useIndexAccess() throws Exception {
+        assertIndexAccess(explain("SELECT * FROM Shipment WHERE sender_id = ?"));
+        assertIndexAccess(explain("SELECT * FROM ShipmentTrackingDetail WHERE shipment_id = ?"));
+        assertIndexAccess(explain("SELECT * FROM Parcel WHERE shipment_id = ?"));
+        assertIndexAccess(explain("SELECT * FROM Client WHERE counterparty_id = ?"));
+        assertIndexAccess(explain("SELECT * FROM ShipmentCurrentStatus WHERE post_office_id = ? "
+                + "AND shipmentStatus = ? ORDER BY date DESC, shipment_id DESC LIMIT 50"));
+        assertIndexAccess(explain("SELECT shipment_id FROM ShipmentCurrentStatus WHERE shipmentStatus = ? "
+                + "AND date < ? ORDER BY date, shipment_id LIMIT 500"));
+        assertIndexAccess(explain("SELECT * FROM PostOfficeHourlyStats WHERE post_office_id = ? "
+                + "AND hourStart >= ? AND hourStart < ? ORDER BY hourStart, shipmentStatus"));
+
+        // most common shipment searches
+        assertIndexAccess(explain("SELECT id FROM Shipment WHERE sender_id = ? AND created >= ? AND created < ? "
+                + "ORDER BY id LIMIT 51"));
+        assertIndexAccess(explain("SELECT id FROM Shipment WHERE recipient_id = ? AND id > ? ORDER BY id LIMIT 51"));
+        assertIndexAccess(explain("SELECT id FROM Shipment WHERE created >= ? AND created < ? "
+                + "AND created IS NOT NULL ORDER BY created DESC, id DESC LIMIT 51"));
+        assertIndexAccess(explain("SELECT id FROM Shipment WHERE price >= ? AND price <= ? AND price IS NOT NULL "
+                + "AND (price > ? OR price = ? AND id > ?) ORDER BY price, id LIMIT 51"));
+        assertSubqueryIndexAccess(explain("SELECT id FROM Shipment WHERE sender_id IN "
+                + "(SELECT id FROM Client WHERE counterparty_id = ?) ORDER BY id LIMIT 51"));
+        assertSubqueryIndexAccess(explain("SELECT id FROM Shipment WHERE id IN "
+                + "(SELECT shipment_id FROM ShipmentCurrentStatus WHERE shipmentStatus = ?) ORDER BY id LIMIT 51"));
+
+        String tariffGridPlan = explain("SELECT * FROM TariffGrid "
+                + "WHERE weight >= ? AND length >= ? AND w2wVariation = ? ORDER BY id LIMIT 1");
+        assertIndexAccess(tariffGridPlan);
+        assertThat(tariffGridPlan, containsString("IDX_TARIFF_GRID_LOOKUP"));
+    }
+
+    private int countAppliedMigrations() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM schema_version", Integer.class);
+    }
+
+    private String explain(String sql) {
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN PLAN FOR " + sql, String.class);
+        return String.join("\n", plan);
+    }
+
+    private void assertIndexAccess(String plan) {
+        assertThat(plan, containsString("access=INDEX PRED"));
+        assertThat(plan, not(containsString("access=FULL SCAN")));
+    }
+
+    // the few rows selected by an IN subquery are scanned, but no table is
+    private void assertSubqueryIndexAccess(String plan) {
+        assertThat(plan, containsString("access=INDEX PRED"));
+        assertFalse(plan, TABLE_SCAN.matcher(plan).find());
+    }
+}
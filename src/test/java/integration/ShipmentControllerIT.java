@@ -1,24 +1,68 @@
 package integration;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opinta.dao.ShipmentFetchPlan;
 import com.opinta.dto.ShipmentDto;
+import com.opinta.dto.ShipmentTrackingDetailDto;
+import com.opinta.entity.Parcel;
+import com.opinta.entity.PostOffice;
 import com.opinta.entity.Shipment;
+import com.opinta.entity.ShipmentStatus;
 import com.opinta.mapper.ShipmentMapper;
+import com.opinta.service.ParcelService;
+import com.opinta.service.ShipmentExportFormat;
+import com.opinta.service.ShipmentExportService;
 import com.opinta.service.ShipmentService;
+import com.opinta.service.ShipmentTrackingDetailService;
+import com.opinta.util.JsonFormat;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
+import org.skyscreamer.jsonassert.JSONCompareMode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
 import integration.helper.TestHelper;
 
 import static io.restassured.module.mockmvc.RestAssuredMockMvc.given;
 import static io.restassured.module.mockmvc.RestAssuredMockMvc.when;
 import static java.lang.Integer.MIN_VALUE;
+import static java.lang.String.format;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
 import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static javax.servlet.http.HttpServletResponse.SC_PRECONDITION_FAILED;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 
 public class ShipmentControllerIT extends BaseControllerIT {
     private Shipment shipment;
@@ -28,7 +72,17 @@ public class ShipmentControllerIT extends BaseControllerIT {
     @Autowired
     private ShipmentService shipmentService;
     @Autowired
+    private ParcelService parcelService;
+    @Autowired
     private TestHelper testHelper;
+    @Autowired
+    private SessionFactory sessionFactory;
+    @Autowired
+    private ShipmentExportService shipmentExportService;
+    @Autowired
+    private ShipmentTrackingDetailService shipmentTrackingDetailService;
+    @Autowired
+    private WebApplicationContext context;
 
     @Before
     public void setUp() throws Exception {
@@ -43,10 +97,15 @@ public class ShipmentControllerIT extends BaseControllerIT {
 
     @Test
     public void getShipments() throws Exception {
-        when().
+        String shipments = when().
                 get("/shipments").
         then().
-                statusCode(SC_OK);
+                statusCode(SC_OK).
+                contentType("application/json").
+                extract().asString();
+
+        String expected = new ObjectMapper().writeValueAsString(shipmentService.getAll());
+        JSONAssert.assertEquals(expected, shipments, JSONCompareMode.NON_EXTENSIBLE);
     }
 
     @Test
@@ -58,6 +117,384 @@ public class ShipmentControllerIT extends BaseControllerIT {
                 body("id", equalTo(shipmentId));
     }
 
+    @Test
+    public void getShipments_binaryFormats() throws Exception {
+        byte[] smileShipment = given().
+                accept(JsonFormat.SMILE.getMediaType().toString()).
+        when().
+                get("shipments/{id}", shipmentId).
+        then().
+                statusCode(SC_OK).
+                contentType(JsonFormat.SMILE.getMediaType().toString()).
+                extract().asByteArray();
+        JsonNode shipmentNode = JsonFormat.SMILE.getObjectMapper().readTree(smileShipment);
+        assertEquals(shipmentId, shipmentNode.get("id").asInt());
+
+        byte[] cborShipments = given().
+                accept(JsonFormat.CBOR.getMediaType().toString()).
+        when().
+                get("/shipments").
+        then().
+                statusCode(SC_OK).
+                contentType(JsonFormat.CBOR.getMediaType().toString()).
+                extract().asByteArray();
+        ShipmentDto[] shipmentDtos = JsonFormat.CBOR.getObjectMapper().readValue(cborShipments, ShipmentDto[].class);
+        JSONAssert.assertEquals(when().get("/shipments").asString(),
+                new ObjectMapper().writeValueAsString(shipmentDtos), true);
+    }
+
+    @Test
+    public void getShipmentLabelForm() throws Exception {
+        // the first form also loads the template and fonts
+        byte[] pdf = given().when().async().with().timeout(10, TimeUnit.SECONDS).
+                get("/shipments/{id}/label-form", shipmentId).
+        then().
+                statusCode(SC_OK).
+                contentType("application/pdf").
+                extract().asByteArray();
+        assertEquals("%PDF", new String(pdf, 0, 4, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void getShipment_fields() throws Exception {
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        given().
+                queryParam("fields", "price,id,deliveryType").
+        when().
+                get("shipments/{id}", shipmentId).
+        then().
+                statusCode(SC_OK).
+                body("size()", equalTo(3)).
+                body("id", equalTo(shipmentId)).
+                body("deliveryType", equalTo(shipment.getDeliveryType().name()));
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    public void getShipments_fields() throws Exception {
+        given().
+                queryParam("fields", "senderId,id").
+        when().
+                get("/shipments").
+        then().
+                statusCode(SC_OK).
+                body(format("find { it.id == %d }.size()", shipmentId), equalTo(2)).
+                body(format("find { it.id == %d }.senderId", shipmentId), equalTo((int) shipment.getSender().getId()));
+
+        given().
+                queryParam("fields", "id,parcels").
+        when().
+                get("/shipments").
+        then().
+                statusCode(SC_BAD_REQUEST);
+    }
+
+    @Test
+    public void searchShipments() throws Exception {
+        given().
+                queryParam("counterpartyId", shipment.getSender().getCounterparty().getId()).
+                queryParam("deliveryType", "D2D").
+                queryParam("postcodePoolId", shipment.getSender().getCounterparty().getPostcodePool().getId()).
+        when().
+                get("/shipments/search").
+        then().
+                statusCode(SC_OK).
+                body("shipments.id", contains(shipmentId)).
+                body("next", equalTo(null));
+        given().
+                queryParam("senderId", shipment.getSender().getId()).
+                queryParam("deliveryType", "W2W").
+        when().
+                get("/shipments/search").
+        then().
+                statusCode(SC_OK).
+                body("shipments.size()", equalTo(0));
+
+        Shipment newerShipment = testHelper.createShipment();
+        try {
+            long createdFrom = shipment.getCreated().getTime();
+            String next = given().
+                    queryParam("createdFrom", createdFrom).
+                    queryParam("sort", "-created").
+                    queryParam("limit", 1).
+            when().
+                    get("/shipments/search").
+            then().
+                    statusCode(SC_OK).
+                    body("shipments.id", contains((int) newerShipment.getId())).
+                    body("next", notNullValue()).
+                    extract().path("next");
+            given().
+                    queryParam("createdFrom", createdFrom).
+                    queryParam("sort", "-created").
+                    queryParam("limit", 1).
+                    queryParam("after", next).
+            when().
+                    get("/shipments/search").
+            then().
+                    statusCode(SC_OK).
+                    body("shipments.id", contains(shipmentId)).
+                    body("next", equalTo(null));
+
+            given().
+                    queryParam("sort", "price").
+                    queryParam("after", next).
+            when().
+                    get("/shipments/search").
+            then().
+                    statusCode(SC_BAD_REQUEST);
+        } finally {
+            testHelper.deleteShipment(newerShipment);
+        }
+        given().
+                queryParam("sort", "barcode").
+        when().
+                get("/shipments/search").
+        then().
+                statusCode(SC_BAD_REQUEST);
+    }
+
+    @Test
+    public void getShipment_fetchPlans() throws Exception {
+        Statistics statistics = sessionFactory.getStatistics();
+        String parcelsRole = Shipment.class.getName() + ".parcels";
+        String parcelItemsRole = Parcel.class.getName() + ".parcelItems";
+        Shipment shipmentWithParcels = createShipmentWithParcelItems();
+        long id = shipmentWithParcels.getId();
+        try {
+            statistics.clear();
+            Shipment postpayShipment = shipmentService.getEntityById(id, ShipmentFetchPlan.POSTPAY_FORM);
+            assertFalse(Hibernate.isInitialized(postpayShipment.getParcels()));
+            assertEquals(0, statistics.getCollectionStatistics(parcelsRole).getLoadCount());
+            long postpayStatements = statistics.getPrepareStatementCount();
+
+            statistics.clear();
+            Shipment labelShipment = shipmentService.getEntityById(id, ShipmentFetchPlan.LABEL_FORM);
+            assertTrue(Hibernate.isInitialized(labelShipment.getParcels()));
+            assertFalse(labelShipment.getParcels().isEmpty());
+            labelShipment.getParcels().forEach(parcel -> assertFalse(Hibernate.isInitialized(parcel.getParcelItems())));
+            assertEquals(0, statistics.getCollectionStatistics(parcelsRole).getFetchCount());
+            assertEquals(0, statistics.getCollectionStatistics(parcelItemsRole).getLoadCount());
+            assertEquals(postpayStatements, statistics.getPrepareStatementCount());
+
+            statistics.clear();
+            Shipment fullShipment = shipmentService.getEntityById(id, ShipmentFetchPlan.FULL);
+            assertTrue(Hibernate.isInitialized(fullShipment.getParcels()));
+            fullShipment.getParcels().forEach(parcel -> assertTrue(Hibernate.isInitialized(parcel.getParcelItems())));
+            assertEquals(0, statistics.getCollectionStatistics(parcelsRole).getFetchCount());
+            assertEquals(0, statistics.getCollectionStatistics(parcelItemsRole).getFetchCount());
+            assertEquals(postpayStatements, statistics.getPrepareStatementCount());
+        } finally {
+            testHelper.deleteShipment(shipmentWithParcels);
+        }
+    }
+
+    @Test
+    public void exportShipments_ndjsonToFile() throws Exception {
+        Shipment createdShipment = createShipmentWithParcelItems();
+        Path file = Files.createTempFile("shipments", ".ndjson");
+
+        long exported = shipmentExportService.exportToFile(ShipmentExportFormat.NDJSON, file);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(shipmentService.getAll().size(), exported);
+        assertEquals(exported, lines.size());
+        String expectedJson = new ObjectMapper().writeValueAsString(shipmentMapper.toDto(createdShipment));
+        String actualJson = lines.stream()
+                .filter(line -> line.startsWith("{\"id\":" + createdShipment.getId() + ","))
+                .findFirst()
+                .orElse(null);
+        assertNotNull(actualJson);
+        JSONAssert.assertEquals(expectedJson, actualJson, false);
+
+        Files.delete(file);
+        testHelper.deleteShipment(createdShipment);
+    }
+
+    @Test
+    public void exportShipments_csv() throws Exception {
+        Shipment createdShipment = createShipmentWithParcelItems();
+
+        String csv =
+                when().
+                        get("/shipments/export?format=csv").
+                then().
+                        statusCode(SC_OK).
+                        contentType(startsWith("text/csv")).
+                        extract().
+                        asString();
+
+        String[] rows = csv.split("\n");
+        assertTrue(rows[0].startsWith("shipmentId,senderId,recipientId,"));
+        long itemRows = Arrays.stream(rows)
+                .filter(row -> row.startsWith(createdShipment.getId() + ","))
+                .count();
+        assertEquals(4, itemRows);
+
+        testHelper.deleteShipment(createdShipment);
+    }
+
+    @Test
+    public void exportShipments_unknownFormat() throws Exception {
+        when().
+                get("/shipments/export?format=xml").
+        then().
+                statusCode(SC_BAD_REQUEST);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Shipment createShipmentWithParcelItems() throws Exception {
+        JSONObject jsonObject = testHelper.getJsonObjectFromFile("json/shipment.json");
+        jsonObject.put("senderId", (int) testHelper.createClient().getId());
+        jsonObject.put("recipientId", (int) testHelper.createClient().getId());
+        int newShipmentId =
+                given().
+                        contentType("application/json;charset=UTF-8").
+                        body(jsonObject.toString()).
+                when().
+                        post("/shipments").
+                then().
+                        statusCode(SC_OK).
+                        extract().
+                        path("id");
+        return shipmentService.getEntityById(newShipmentId);
+    }
+
+    @Test
+    public void getShipmentTracking() throws Exception {
+        PostOffice postOffice = testHelper.createPostOffice();
+        List<ShipmentTrackingDetailDto> events = Arrays.asList(
+                createTrackingEvent(postOffice, ShipmentStatus.DELIVERED, new Date(3000)),
+                createTrackingEvent(postOffice, ShipmentStatus.PREPARED, new Date(1000)));
+        try {
+            when().
+                    get("/shipments/{id}/tracking", shipmentId).
+            then().
+                    statusCode(SC_OK).
+                    body("size()", equalTo(2)).
+                    body("[0].shipmentStatus", equalTo("PREPARED")).
+                    body("[1].shipmentStatus", equalTo("DELIVERED")).
+                    body("[0].postOfficeId", equalTo((int) postOffice.getId()));
+
+            Statistics statistics = sessionFactory.getStatistics();
+            statistics.clear();
+            given().
+                    contentType("application/json;charset=UTF-8").
+                    body(format("[%d, %d, %d]", shipmentId, shipmentId + 1, shipmentId)).
+            when().
+                    post("/shipments/tracking:batchGet").
+            then().
+                    statusCode(SC_OK).
+                    body("size()", equalTo(2)).
+                    body("[0].shipmentId", equalTo(shipmentId)).
+                    body("[0].events.shipmentStatus", contains("PREPARED", "DELIVERED")).
+                    body("[1].shipmentId", equalTo(shipmentId + 1)).
+                    body("[1].events.size()", equalTo(0));
+            assertEquals(1, statistics.getPrepareStatementCount());
+        } finally {
+            events.forEach(event -> shipmentTrackingDetailService.delete(event.getId()));
+            testHelper.deletePostOffice(postOffice);
+        }
+    }
+
+    @Test
+    public void getShipmentTracking_notFound() throws Exception {
+        when().
+                get("/shipments/{id}/tracking", shipmentId + 1).
+        then().
+                statusCode(SC_NOT_FOUND);
+
+        given().
+                contentType("application/json;charset=UTF-8").
+                body("[]").
+        when().
+                post("/shipments/tracking:batchGet").
+        then().
+                statusCode(SC_BAD_REQUEST);
+
+        given().
+                contentType("application/json;charset=UTF-8").
+                body(format("[%d, null]", shipmentId)).
+        when().
+                post("/shipments/tracking:batchGet").
+        then().
+                statusCode(SC_BAD_REQUEST);
+
+        when().
+                get("/shipments/{id}/tracking/stream", shipmentId + 1).
+        then().
+                statusCode(SC_NOT_FOUND);
+    }
+
+    @Test
+    public void getShipment_archived() throws Exception {
+        PostOffice postOffice = testHelper.createPostOffice();
+        try {
+            createTrackingEvent(postOffice, ShipmentStatus.DELIVERED, new Date(1000));
+            String hotShipment = when().get("/shipments/{id}", shipmentId).asString();
+
+            when().
+                    post("/admin/archive/shipments").
+            then().
+                    statusCode(SC_OK).
+                    body("archived", greaterThanOrEqualTo(1));
+
+            assertNull(shipmentService.getEntityById(shipmentId));
+            String archivedShipment = when().
+                    get("/shipments/{id}", shipmentId).
+            then().
+                    statusCode(SC_OK).
+                    body("id", equalTo(shipmentId)).
+                    extract().asString();
+            JSONAssert.assertEquals(hotShipment, archivedShipment, true);
+            when().
+                    get("/shipments/{id}/tracking", shipmentId).
+            then().
+                    statusCode(SC_OK).
+                    body("size()", equalTo(1)).
+                    body("[0].shipmentStatus", equalTo("DELIVERED"));
+        } finally {
+            testHelper.deletePostOffice(postOffice);
+        }
+    }
+
+    @Test
+    public void streamShipmentTracking() throws Exception {
+        MvcResult stream = MockMvcBuilders.webAppContextSetup(context).build()
+                .perform(get("/shipments/{id}/tracking/stream", shipmentId).accept("text/event-stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        PostOffice postOffice = testHelper.createPostOffice();
+        ShipmentTrackingDetailDto event = createTrackingEvent(postOffice, ShipmentStatus.EN_ROUTE, new Date(1000));
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!stream.getResponse().getContentAsString().contains("event:tracking")
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            String content = stream.getResponse().getContentAsString();
+            assertThat(content, containsString("event:tracking"));
+            assertThat(content, containsString(format("\"id\":%d", event.getId())));
+            assertThat(content, containsString("\"shipmentStatus\":\"EN_ROUTE\""));
+        } finally {
+            shipmentTrackingDetailService.delete(event.getId());
+            testHelper.deletePostOffice(postOffice);
+        }
+    }
+
+    private ShipmentTrackingDetailDto createTrackingEvent(PostOffice postOffice, ShipmentStatus status, Date date) {
+        ShipmentTrackingDetailDto shipmentTrackingDetailDto = new ShipmentTrackingDetailDto();
+        shipmentTrackingDetailDto.setShipmentId(shipmentId);
+        shipmentTrackingDetailDto.setPostOfficeId(postOffice.getId());
+        shipmentTrackingDetailDto.setShipmentStatus(status);
+        shipmentTrackingDetailDto.setDate(date);
+        return shipmentTrackingDetailService.save(shipmentTrackingDetailDto);
+    }
+
     @Test
     public void getShipment_notFound() throws Exception {
         when().
@@ -96,6 +533,39 @@ public class ShipmentControllerIT extends BaseControllerIT {
         testHelper.deleteShipment(createdShipment);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void createShipments_batch() throws Exception {
+        JSONObject validShipment = testHelper.getJsonObjectFromFile("json/shipment.json");
+        validShipment.put("senderId", (int) testHelper.createClient().getId());
+        validShipment.put("recipientId", (int) testHelper.createClient().getId());
+        JSONObject invalidShipment = testHelper.getJsonObjectFromFile("json/shipment.json");
+        invalidShipment.put("senderId", MIN_VALUE);
+        invalidShipment.put("recipientId", MIN_VALUE);
+        JSONArray batch = new JSONArray();
+        batch.add(validShipment);
+        batch.add(invalidShipment);
+
+        int newShipmentId =
+                given().
+                        contentType("application/json;charset=UTF-8").
+                        body(batch.toString()).
+                when().
+                        post("/shipments/batch").
+                then().
+                        statusCode(SC_OK).
+                        body("[0].error", nullValue()).
+                        body("[1].shipment", nullValue()).
+                        body("[1].error", notNullValue()).
+                        extract().
+                        path("[0].shipment.id");
+
+        Shipment createdShipment = shipmentService.getEntityById(newShipmentId);
+        assertEquals(2, createdShipment.getParcels().size());
+        assertNotNull(createdShipment.getBarcode());
+        testHelper.deleteShipment(createdShipment);
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void updateShipment() throws Exception {
@@ -125,6 +595,68 @@ public class ShipmentControllerIT extends BaseControllerIT {
         JSONAssert.assertEquals(expectedJson, actualJson, false);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void updateShipment_replacesParcels() throws Exception {
+        JSONObject jsonObject = testHelper.getJsonObjectFromFile("json/shipment.json");
+        jsonObject.put("senderId", (int) shipment.getSender().getId());
+        jsonObject.put("recipientId", (int) shipment.getRecipient().getId());
+        String body = jsonObject.toString();
+        int parcelCount = ((JSONArray) jsonObject.get("parcels")).size();
+
+        given().contentType("application/json;charset=UTF-8").body(body).
+        when().put("/shipments/{id}", shipmentId).
+        then().statusCode(SC_OK);
+        List<Parcel> previousParcels = shipmentService.getEntityById(shipmentId).getParcels();
+        assertEquals(parcelCount, previousParcels.size());
+
+        given().contentType("application/json;charset=UTF-8").body(body).
+        when().put("/shipments/{id}", shipmentId).
+        then().statusCode(SC_OK);
+
+        assertEquals(parcelCount, shipmentService.getEntityById(shipmentId).getParcels().size());
+        previousParcels.forEach(parcel -> assertNull("replaced parcel " + parcel.getId() + " is deleted",
+                parcelService.getById(parcel.getId())));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void updateShipment_ifMatch() throws Exception {
+        String eTag = when().
+                get("/shipments/{id}", shipmentId).
+        then().
+                statusCode(SC_OK).
+                header("ETag", notNullValue()).
+                extract().header("ETag");
+
+        JSONObject jsonObject = testHelper.getJsonObjectFromFile("json/updatedshipment.json");
+        jsonObject.put("senderId", (int) testHelper.createClient().getId());
+        jsonObject.put("recipientId", (int) testHelper.createClient().getId());
+
+        String newETag = given().
+                contentType("application/json;charset=UTF-8").
+                header("If-Match", eTag).
+                body(jsonObject.toString()).
+        when().
+                put("/shipments/{id}", shipmentId).
+        then().
+                statusCode(SC_OK).
+                extract().header("ETag");
+        assertNotEquals(eTag, newETag);
+
+        // the shipment has been changed since eTag was read
+        jsonObject.put("description", "lost update");
+        given().
+                contentType("application/json;charset=UTF-8").
+                header("If-Match", eTag).
+                body(jsonObject.toString()).
+        when().
+                put("/shipments/{id}", shipmentId).
+        then().
+                statusCode(SC_PRECONDITION_FAILED);
+        assertNotEquals("lost update", shipmentService.getEntityById(shipmentId).getDescription());
+    }
+
     @Test
     public void deleteShipment() throws Exception {
         when().
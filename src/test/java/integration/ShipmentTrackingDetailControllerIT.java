@@ -0,0 +1,121 @@
+package integration;
+
+import com.opinta.dto.ShipmentTrackingDetailDto;
+import com.opinta.entity.PostOffice;
+import com.opinta.entity.Shipment;
+import com.opinta.service.ShipmentTrackingDetailService;
+import integration.helper.TestHelper;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static io.restassured.module.mockmvc.RestAssuredMockMvc.given;
+import static java.lang.String.format;
+import static javax.servlet.http.HttpServletResponse.SC_ACCEPTED;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertEquals;
+
+public class ShipmentTrackingDetailControllerIT extends BaseControllerIT {
+    private Shipment shipment;
+    private PostOffice postOffice;
+    @Autowired
+    private ShipmentTrackingDetailService shipmentTrackingDetailService;
+    @Autowired
+    private TestHelper testHelper;
+
+    @Before
+    public void setUp() throws Exception {
+        shipment = testHelper.createShipment();
+        postOffice = testHelper.createPostOffice();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        shipmentTrackingDetailService.getByShipmentId(shipment.getId())
+                .forEach(event -> shipmentTrackingDetailService.delete(event.getId()));
+        testHelper.deletePostOffice(postOffice);
+        testHelper.deleteShipment(shipment);
+    }
+
+    @Test
+    public void ingestScanEvents_committed() throws Exception {
+        String scanEvents = "["
+                + scanEvent(shipment.getId(), "PREPARED", 1000) + ","
+                + scanEvent(shipment.getId(), "EN_ROUTE", 2000) + ","
+                + scanEvent(shipment.getId() + 1, "EN_ROUTE", 2000) + ","
+                + "{\"shipmentId\": " + shipment.getId() + "}]";
+
+        given().
+                contentType("application/json;charset=UTF-8").
+                body(scanEvents).
+        when().
+                post("/shipment-tracking/batch?ack=committed").
+        then().
+                statusCode(SC_OK).
+                body("accepted", equalTo(2)).
+                body("rejected", equalTo(2)).
+                body("committed", equalTo(true));
+
+        List<ShipmentTrackingDetailDto> tracking = shipmentTrackingDetailService.getByShipmentId(shipment.getId());
+        assertEquals(2, tracking.size());
+        assertEquals(postOffice.getId(), tracking.get(1).getPostOfficeId());
+    }
+
+    @Test
+    public void ingestScanEvents_bufferedNdjson() throws Exception {
+        String scanEvents = scanEvent(shipment.getId(), "PREPARED", 1000) + "\n"
+                + scanEvent(shipment.getId(), "EN_ROUTE", 2000) + "\n"
+                + scanEvent(shipment.getId(), "DELIVERED", 3000) + "\n";
+
+        given().
+                contentType("application/x-ndjson").
+                body(scanEvents).
+        when().
+                post("/shipment-tracking/batch?ack=buffered").
+        then().
+                statusCode(SC_ACCEPTED).
+                body("accepted", equalTo(3)).
+                body("committed", equalTo(false));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (shipmentTrackingDetailService.getByShipmentId(shipment.getId()).size() < 3
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(3, shipmentTrackingDetailService.getByShipmentId(shipment.getId()).size());
+    }
+
+    @Test
+    public void ingestScanEvents_malformed() throws Exception {
+        given().
+                contentType("application/x-ndjson").
+                body(scanEvent(shipment.getId(), "PREPARED", 1000) + "\n{\"shipmentStatus\": \"LOST\"}\n").
+        when().
+                post("/shipment-tracking/batch?ack=committed").
+        then().
+                statusCode(SC_OK).
+                body("accepted", equalTo(1)).
+                body("committed", equalTo(true)).
+                body("failedIndex", equalTo(1)).
+                body("error", equalTo("Malformed scan event at index 1"));
+
+        given().
+                contentType("application/x-ndjson").
+                body("{\"shipmentStatus\": \"LOST\"}\n" + scanEvent(shipment.getId(), "PREPARED", 1000) + "\n").
+        when().
+                post("/shipment-tracking/batch?ack=committed").
+        then().
+                statusCode(SC_BAD_REQUEST).
+                body("accepted", equalTo(0)).
+                body("failedIndex", equalTo(0));
+    }
+
+    private String scanEvent(long shipmentId, String status, long date) {
+        return format("{\"shipmentId\": %d, \"postOfficeId\": %d, \"shipmentStatus\": \"%s\", \"date\": %d}",
+                shipmentId, postOffice.getId(), status, date);
+    }
+}
@@ -2,12 +2,19 @@ package integration.config;
 
 import java.util.Properties;
 import javax.sql.DataSource;
+import com.opinta.datasource.ConnectionPoolFactory;
+import com.opinta.datasource.InstrumentedDataSource;
+import com.opinta.datasource.ReadOnlyAwareTransactionManager;
+import com.opinta.datasource.ReadWriteRoutingDataSource;
+import com.opinta.metrics.SqlStatementCounter;
+import com.opinta.migration.SchemaMigrator;
 import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.core.env.Environment;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.hibernate4.HibernateTransactionManager;
 import org.springframework.orm.hibernate4.LocalSessionFactoryBean;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
@@ -28,17 +35,36 @@ public class HibernateConfigTest {
         sessionFactory.setDataSource(dataSource());
         sessionFactory.setPackagesToScan(new String[]{"com.opinta.entity"});
         sessionFactory.setHibernateProperties(hibernateProperties());
+        sessionFactory.setEntityInterceptor(sqlStatementCounter());
         return sessionFactory;
     }
 
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    public InstrumentedDataSource primaryDataSource() {
+        return new ConnectionPoolFactory(environment, "jdbcTest").create("jdbcTest", false);
+    }
+
+    @Bean
+    public InstrumentedDataSource replicaDataSource() {
+        return new ConnectionPoolFactory(environment, "jdbcTest").create("jdbcTest.replica", true);
+    }
+
     @Bean(name = "dataSource")
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(environment.getRequiredProperty("jdbcTest.driverClassName"));
-        dataSource.setUrl(environment.getRequiredProperty("jdbcTest.url"));
-        dataSource.setUsername(environment.getRequiredProperty("jdbcTest.username"));
-        dataSource.setPassword(environment.getRequiredProperty("jdbcTest.password"));
-        return dataSource;
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primaryDataSource(), replicaDataSource()));
+    }
+
+    @Bean(initMethod = "migrate")
+    @DependsOn("sessionFactory")
+    public SchemaMigrator schemaMigrator() {
+        return new SchemaMigrator(primaryDataSource(), environment.getRequiredProperty("jdbcTest.migration.location"),
+                environment.getRequiredProperty("hibernate.hbm2ddl.auto").startsWith("create"));
     }
 
     private Properties hibernateProperties() {
@@ -46,13 +72,26 @@ public class HibernateConfigTest {
         properties.put("hibernate.dialect", environment.getRequiredProperty("hibernate.dialect"));
         properties.put("hibernate.show_sql", environment.getRequiredProperty("hibernate.show_sql"));
         properties.put("hibernate.hbm2ddl.auto", environment.getRequiredProperty("hibernate.hbm2ddl.auto"));
+        properties.put("hibernate.jdbc.batch_size", environment.getRequiredProperty("hibernate.jdbc.batch_size"));
+        properties.put("hibernate.order_inserts", environment.getRequiredProperty("hibernate.order_inserts"));
+        properties.put("hibernate.order_updates", environment.getRequiredProperty("hibernate.order_updates"));
+        properties.put("hibernate.generate_statistics",
+                environment.getRequiredProperty("hibernate.generate_statistics"));
+        properties.put("hibernate.cache.use_second_level_cache",
+                environment.getRequiredProperty("hibernate.cache.use_second_level_cache"));
+        properties.put("hibernate.cache.use_query_cache",
+                environment.getRequiredProperty("hibernate.cache.use_query_cache"));
+        properties.put("hibernate.cache.region.factory_class",
+                environment.getRequiredProperty("hibernate.cache.region.factory_class"));
+        properties.put("net.sf.ehcache.configurationResourceName",
+                environment.getRequiredProperty("net.sf.ehcache.configurationResourceName"));
         return properties;
     }
 
     @Bean
     @Autowired
     public HibernateTransactionManager transactionManager(SessionFactory s) {
-        HibernateTransactionManager txManager = new HibernateTransactionManager();
+        HibernateTransactionManager txManager = new ReadOnlyAwareTransactionManager();
         txManager.setSessionFactory(s);
         return txManager;
     }
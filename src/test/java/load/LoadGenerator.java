@@ -0,0 +1,256 @@
+package load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.opinta.dto.HistogramDto;
+import com.opinta.metrics.LatencyHistogram;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs a weighted mix of operations from a number of virtual users for a fixed time and reports throughput,
+ * latency percentiles and error rates of every operation. Every user picks its operations with a random
+ * of its own seeded from the run seed, so runs with the same settings replay the same mix and are comparable
+ * across commits. Nothing recorded during the warmup counts
+ */
+public class LoadGenerator {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final List<Operation> operations = new ArrayList<>();
+    private int totalWeight;
+    private volatile Map<String, OperationStats> stats;
+
+    public LoadGenerator operation(String name, int weight, Action action) {
+        operations.add(new Operation(name, weight, action));
+        totalWeight += weight;
+        return this;
+    }
+
+    public Report run(int users, long seed, int warmupSeconds, int durationSeconds) throws Exception {
+        stats = newStats();
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        CountDownLatch ready = new CountDownLatch(users);
+        ExecutorService executor = Executors.newFixedThreadPool(users);
+        try {
+            List<Future<?>> futures = new ArrayList<>(users);
+            for (int i = 0; i < users; i++) {
+                VirtualUser user = new VirtualUser(i, new Random(seed + i));
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    runUser(user, measureFrom, end);
+                    return null;
+                }));
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, measureFrom - System.nanoTime()));
+            stats = newStats();
+            long measureStart = System.nanoTime();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return new Report(users, seed, System.nanoTime() - measureStart, stats);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, OperationStats> newStats() {
+        Map<String, OperationStats> newStats = new LinkedHashMap<>();
+        operations.forEach(operation -> newStats.put(operation.name, new OperationStats()));
+        return newStats;
+    }
+
+    /**
+     * An operation counts in the stats that were current when it started, and not at all if it started during
+     * the warmup, so slow warmup operations that finish after the stats are swapped don't skew the measured ones
+     */
+    private void runUser(VirtualUser user, long measureFrom, long end) {
+        while (System.nanoTime() < end) {
+            Operation operation = pick(user.random);
+            OperationStats operationStats = stats.get(operation.name);
+            long start = System.nanoTime();
+            boolean failed;
+            try {
+                failed = !operation.action.run(user);
+            } catch (Exception e) {
+                failed = true;
+            }
+            if (start - measureFrom < 0) {
+                continue;
+            }
+            operationStats.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (failed) {
+                operationStats.errors.increment();
+            }
+        }
+    }
+
+    private Operation pick(Random random) {
+        int value = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            value -= operation.weight;
+            if (value < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("No operations to run");
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        /**
+         * @return false if the operation failed
+         */
+        boolean run(VirtualUser user) throws Exception;
+    }
+
+    /**
+     * State of a user that lives as long as the run, like the shipments it has created
+     */
+    public static class VirtualUser {
+        private final int index;
+        private final Random random;
+        private final List<Long> shipmentIds = new ArrayList<>();
+
+        private VirtualUser(int index, Random random) {
+            this.index = index;
+            this.random = random;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Random getRandom() {
+            return random;
+        }
+
+        public List<Long> getShipmentIds() {
+            return shipmentIds;
+        }
+
+        public <T> T pick(List<T> values) {
+            return values.get(random.nextInt(values.size()));
+        }
+    }
+
+    private static class Operation {
+        private final String name;
+        private final int weight;
+        private final Action action;
+
+        private Operation(String name, int weight, Action action) {
+            this.name = name;
+            this.weight = weight;
+            this.action = action;
+        }
+    }
+
+    private static class OperationStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+    }
+
+    public static class Report {
+        private final ObjectNode json = OBJECT_MAPPER.createObjectNode();
+
+        private Report(int users, long seed, long elapsedNanos, Map<String, OperationStats> stats) {
+            double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+            json.put("users", users);
+            json.put("seed", seed);
+            json.put("seconds", round(seconds));
+            LatencyHistogram total = new LatencyHistogram();
+            long totalErrors = 0;
+            ObjectNode operations = json.putObject("operations");
+            for (Map.Entry<String, OperationStats> entry : stats.entrySet()) {
+                OperationStats operationStats = entry.getValue();
+                putStats(operations.putObject(entry.getKey()), operationStats.latency.snapshot(),
+                        operationStats.errors.sum(), seconds);
+                total.add(operationStats.latency);
+                totalErrors += operationStats.errors.sum();
+            }
+            putStats(json.putObject("total"), total.snapshot(), totalErrors, seconds);
+        }
+
+        private static void putStats(ObjectNode node, HistogramDto latency, long errors, double seconds) {
+            node.put("requests", latency.getCount());
+            node.put("throughputPerSecond", round(latency.getCount() / seconds));
+            node.put("errorRate", latency.getCount() == 0 ? 0 : round((double) errors / latency.getCount()));
+            node.put("p50Millis", toMillis(latency.getP50Micros()));
+            node.put("p90Millis", toMillis(latency.getP90Micros()));
+            node.put("p99Millis", toMillis(latency.getP99Micros()));
+            node.put("p999Millis", toMillis(latency.getP999Micros()));
+            node.put("maxMillis", toMillis(latency.getMaxMicros()));
+        }
+
+        private static double toMillis(long micros) {
+            return round(micros / 1000.0);
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 1000) / 1000.0;
+        }
+
+        public JsonNode getTotal() {
+            return json.get("total");
+        }
+
+        public void write(File file) throws IOException {
+            File directory = file.getAbsoluteFile().getParentFile();
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException(String.format("Can't create directory %s", directory));
+            }
+            OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, json);
+        }
+
+        /**
+         * @param baseline report of an earlier run to compare throughput and p99 with, or null
+         */
+        public String toTable(File baseline) throws IOException {
+            JsonNode baselineOperations = baseline == null ? null : OBJECT_MAPPER.readTree(baseline).get("operations");
+            StringBuilder table = new StringBuilder(String.format(Locale.ROOT,
+                    "%d users for %.1f s%n%-14s %9s %10s %8s %9s %9s %9s %9s %9s%n", json.get("users").asInt(),
+                    json.get("seconds").asDouble(), "operation", "requests", "per second", "errors",
+                    "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms"));
+            json.get("operations").fields().forEachRemaining(entry -> {
+                appendRow(table, entry.getKey(), entry.getValue());
+                JsonNode previous = baselineOperations == null ? null : baselineOperations.get(entry.getKey());
+                if (previous != null) {
+                    table.append(String.format(Locale.ROOT, "%-14s %9s %+9.1f%% %8s %9s %9s %+8.1f%%%n", "",
+                            "", change(previous, entry.getValue(), "throughputPerSecond"), "", "", "",
+                            change(previous, entry.getValue(), "p99Millis")));
+                }
+            });
+            appendRow(table, "total", json.get("total"));
+            return table.toString();
+        }
+
+        private static void appendRow(StringBuilder table, String name, JsonNode row) {
+            table.append(String.format(Locale.ROOT, "%-14s %9d %10.1f %7.2f%% %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    name, row.get("requests").asLong(), row.get("throughputPerSecond").asDouble(),
+                    row.get("errorRate").asDouble() * 100, row.get("p50Millis").asDouble(),
+                    row.get("p90Millis").asDouble(), row.get("p99Millis").asDouble(),
+                    row.get("p999Millis").asDouble(), row.get("maxMillis").asDouble()));
+        }
+
+        private static double change(JsonNode previous, JsonNode current, String field) {
+            double before = previous.get(field).asDouble();
+            return before == 0 ? 0 : (current.get(field).asDouble() - before) * 100 / before;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.opinta.entity.Client;
+import com.opinta.entity.PostOffice;
+import com.opinta.filter.CompressionFilter;
+import com.opinta.filter.RateLimitFilter;
+import com.opinta.filter.SqlBudgetFilter;
+import integration.BaseControllerIT;
+import integration.helper.TestHelper;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.json.simple.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static java.lang.String.format;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * End to end throughput of the rest layer: virtual users send a mix of shipment requests through the filters,
+ * the dispatcher servlet and the in-memory database of the integration tests. Requests don't go through
+ * a servlet container or a socket. Not part of the build, run it with
+ * {@code mvn test -Dtest=ShipmentLoadTest -Dload.users=16 -Dload.durationSeconds=60}
+ * and pass the report of an earlier run as {@code -Dload.baseline=...} to compare with it
+ */
+@Slf4j
+// every virtual user sends as a counterparty of its own, with limits well above what one user sends,
+// so the rate limiter is on the path of every request without rejecting them
+@TestPropertySource(properties = {
+        "ratelimit.write.burst=1000", "ratelimit.write.refillPerSecond=1000",
+        "ratelimit.read.burst=2000", "ratelimit.read.refillPerSecond=2000",
+        "ratelimit.render.burst=200", "ratelimit.render.refillPerSecond=200"})
+public class ShipmentLoadTest extends BaseControllerIT {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int CLIENTS = 20;
+    private static final int SHIPMENTS = 50;
+    private static final long ASYNC_TIMEOUT_MILLIS = 60000;
+
+    @Autowired
+    private WebApplicationContext context;
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+    @Autowired
+    private SqlBudgetFilter sqlBudgetFilter;
+    @Autowired
+    private CompressionFilter compressionFilter;
+    @Autowired
+    private TestHelper testHelper;
+
+    private MockMvc mockMvc;
+    private final List<Long> clientIds = new ArrayList<>();
+    private final List<Long> counterpartyIds = new ArrayList<>();
+    private final List<Long> shipmentIds = new ArrayList<>();
+    private PostOffice postOffice;
+    private JSONObject shipmentTemplate;
+
+    @Before
+    public void setUp() throws Exception {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(rateLimitFilter, sqlBudgetFilter, compressionFilter)
+                .build();
+        for (int i = 0; i < CLIENTS; i++) {
+            Client client = testHelper.createClient();
+            clientIds.add(client.getId());
+            counterpartyIds.add(client.getCounterparty().getId());
+        }
+        for (int i = 0; i < SHIPMENTS; i++) {
+            shipmentIds.add(testHelper.createShipment().getId());
+        }
+        postOffice = testHelper.createPostOffice();
+        shipmentTemplate = testHelper.getJsonObjectFromFile("json/shipment.json");
+    }
+
+    @Test
+    public void runShipmentMix() throws Exception {
+        LoadGenerator loadGenerator = new LoadGenerator()
+                .operation("create", 10, this::createShipment)
+                .operation("get", 30, user -> isOk(perform(user, get("/shipments/{id}", anyShipment(user)))))
+                .operation("list", 15, user -> isOk(perform(user, get("/shipments/search")
+                        .param("senderId", String.valueOf(user.pick(clientIds)))
+                        .param("limit", "20"))))
+                .operation("reprice", 10, this::repriceShipment)
+                .operation("tracking", 20, user -> isOk(perform(user, get("/shipments/{id}/tracking",
+                        anyShipment(user)))))
+                .operation("scan", 10, user -> isOk(perform(user, post("/shipment-tracking")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(format("{\"shipmentId\": %d, \"postOfficeId\": %d, \"shipmentStatus\": "
+                                + "\"EN_ROUTE\", \"date\": %d}", anyShipment(user), postOffice.getId(),
+                                System.currentTimeMillis())))))
+                .operation("label", 5, user -> isOk(perform(user, get("/shipments/{id}/label-form",
+                        anyShipment(user)))));
+
+        LoadGenerator.Report report = loadGenerator.run(Integer.getInteger("load.users", 8),
+                Long.getLong("load.seed", 1), Integer.getInteger("load.warmupSeconds", 5),
+                Integer.getInteger("load.durationSeconds", 20));
+
+        String baseline = System.getProperty("load.baseline");
+        for (String line : report.toTable(baseline == null ? null : new File(baseline)).split("\n")) {
+            log.info(line);
+        }
+        report.write(new File(System.getProperty("load.report", "target/load/shipments.json")));
+
+        assertThat(report.getTotal().get("requests").asLong(), greaterThan(0L));
+        assertThat(report.getTotal().get("errorRate").asDouble(),
+                lessThanOrEqualTo(Double.valueOf(System.getProperty("load.maxErrorRate", "0.01"))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean createShipment(LoadGenerator.VirtualUser user) throws Exception {
+        JSONObject shipment = new JSONObject(shipmentTemplate);
+        shipment.put("senderId", user.pick(clientIds));
+        shipment.put("recipientId", user.pick(clientIds));
+        MvcResult result = perform(user, post("/shipments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(shipment.toJSONString()));
+        if (!isOk(result)) {
+            return false;
+        }
+        user.getShipmentIds().add(OBJECT_MAPPER.readTree(result.getResponse().getContentAsString())
+                .get("id").asLong());
+        return true;
+    }
+
+    // a user only reprices its own shipments, so the updates don't conflict with each other.
+    // The shipment is sent back with another delivery type and without its parcels, which keeps
+    // the parcels it has and prices them again
+    private boolean repriceShipment(LoadGenerator.VirtualUser user) throws Exception {
+        if (user.getShipmentIds().isEmpty()) {
+            return createShipment(user);
+        }
+        long shipmentId = user.pick(user.getShipmentIds());
+        MvcResult current = perform(user, get("/shipments/{id}", shipmentId));
+        if (!isOk(current)) {
+            return false;
+        }
+        ObjectNode shipment = (ObjectNode) OBJECT_MAPPER.readTree(current.getResponse().getContentAsString());
+        JsonNode parcels = shipment.remove("parcels");
+        shipment.put("deliveryType", "D2W".equals(shipment.get("deliveryType").asText()) ? "D2D" : "D2W");
+        MvcResult result = perform(user, put("/shipments/{id}", shipmentId)
+                .header(HttpHeaders.IF_MATCH, current.getResponse().getHeader(HttpHeaders.ETAG))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(OBJECT_MAPPER.writeValueAsString(shipment)));
+        return isOk(result) && OBJECT_MAPPER.readTree(result.getResponse().getContentAsString())
+                .get("parcels").size() == parcels.size();
+    }
+
+    private long anyShipment(LoadGenerator.VirtualUser user) {
+        int own = user.getShipmentIds().size();
+        int index = user.getRandom().nextInt(shipmentIds.size() + own);
+        return index < own ? user.getShipmentIds().get(index) : shipmentIds.get(index - own);
+    }
+
+    private MvcResult perform(LoadGenerator.VirtualUser user, MockHttpServletRequestBuilder request)
+            throws Exception {
+        MvcResult result = mockMvc.perform(request.header(RateLimitFilter.COUNTERPARTY_HEADER,
+                counterpartyIds.get(user.getIndex() % counterpartyIds.size()))).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result.getAsyncResult(ASYNC_TIMEOUT_MILLIS);
+        }
+        return result;
+    }
+
+    private static boolean isOk(MvcResult result) {
+        Object asyncResult = result.getRequest().isAsyncStarted() ? result.getAsyncResult() : null;
+        int status = asyncResult instanceof ResponseEntity
+                ? ((ResponseEntity<?>) asyncResult).getStatusCode().value()
+                : result.getResponse().getStatus();
+        return status < 400;
+    }
+}